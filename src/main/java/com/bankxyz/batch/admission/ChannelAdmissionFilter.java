@@ -0,0 +1,136 @@
+package com.bankxyz.batch.admission;
+
+import com.bankxyz.batch.config.ChannelAdmissionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admisión por canal (rol del token) en /api/**.
+ * REQUERIMIENTO: "Una ráfaga del BFF de cajeros no debe degradar a los demás canales"
+ *
+ * Cada canal tiene su tasa (token bucket) y su límite de peticiones en curso; lo que excede
+ * recibe 429 con Retry-After antes de tomar un hilo de controlador o una conexión del pool.
+ * Va justo después de la cadena de seguridad para conocer el rol; las respuestas SSE liberan
+ * su cupo al iniciar el modo asíncrono (el feed tiene su propio límite de conexiones).
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+public class ChannelAdmissionFilter extends OncePerRequestFilter {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final String DEFAULT_CHANNEL = "DEFAULT";
+
+    private final ChannelAdmissionProperties props;
+    private final Map<String, ChannelMeters> channels = new HashMap<>();
+    private final ChannelMeters defaultChannel;
+
+    public ChannelAdmissionFilter(ChannelAdmissionProperties props, MeterRegistry meterRegistry) {
+        this.props = props;
+        props.getChannels().forEach((role, limits) ->
+            channels.put(role, new ChannelMeters(new ChannelLimiter(role, limits), meterRegistry)));
+        this.defaultChannel = new ChannelMeters(new ChannelLimiter(DEFAULT_CHANNEL, props.getDefaultLimits()), meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !props.isEnabled() || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ChannelMeters channel = channelFor(SecurityContextHolder.getContext().getAuthentication());
+        ChannelLimiter limiter = channel.limiter;
+
+        if (!limiter.tryEnter()) {
+            channel.rejectedConcurrency.increment();
+            reject(response, limiter.getChannel(), TimeUnit.SECONDS.toNanos(1), "Too many concurrent requests");
+            return;
+        }
+        try {
+            long waitNanos = limiter.tryAcquireToken();
+            if (waitNanos != ChannelLimiter.ADMITTED) {
+                channel.rejectedRate.increment();
+                reject(response, limiter.getChannel(), waitNanos, "Rate limit exceeded");
+                return;
+            }
+            channel.admitted.increment();
+            long start = System.nanoTime();
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                channel.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            limiter.release();
+        }
+    }
+
+    private ChannelMeters channelFor(Authentication authentication) {
+        if (authentication != null) {
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                String role = authority.getAuthority();
+                ChannelMeters channel = channels.get(role.startsWith(ROLE_PREFIX) ? role.substring(ROLE_PREFIX.length()) : role);
+                if (channel != null) {
+                    return channel;
+                }
+            }
+        }
+        return defaultChannel;
+    }
+
+    // Respuesta armada a mano: rechazar debe costar menos que atender
+    private static void reject(HttpServletResponse response, String channel, long waitNanos, String message) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"status\":429,\"error\":\"Too Many Requests\",\"message\":\"" + message
+            + "\",\"channel\":\"" + channel + "\"}");
+    }
+
+    private static final class ChannelMeters {
+        final ChannelLimiter limiter;
+        final Counter admitted;
+        final Counter rejectedRate;
+        final Counter rejectedConcurrency;
+        final Timer latency;
+
+        ChannelMeters(ChannelLimiter limiter, MeterRegistry meterRegistry) {
+            String channel = limiter.getChannel();
+            this.limiter = limiter;
+            this.admitted = Counter.builder("api.admission.admitted").tag("channel", channel).register(meterRegistry);
+            this.rejectedRate = Counter.builder("api.admission.rejected").tag("channel", channel).tag("reason", "rate")
+                .register(meterRegistry);
+            this.rejectedConcurrency = Counter.builder("api.admission.rejected").tag("channel", channel).tag("reason", "concurrency")
+                .register(meterRegistry);
+            this.latency = Timer.builder("api.admission.latency").tag("channel", channel)
+                .description("Duración de las peticiones admitidas").register(meterRegistry);
+            Gauge.builder("api.admission.inflight", limiter, ChannelLimiter::getInFlight).tag("channel", channel)
+                .register(meterRegistry);
+        }
+    }
+}
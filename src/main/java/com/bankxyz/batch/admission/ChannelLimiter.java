@@ -0,0 +1,85 @@
+package com.bankxyz.batch.admission;
+
+import com.bankxyz.batch.config.ChannelAdmissionProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Límites de un canal sin locks: token bucket en su forma GCRA (un único AtomicLong con el
+ * instante teórico de la próxima llegada, actualizado por CAS) y un contador de peticiones en
+ * curso. Una petición rechazada no consume tokens ni cupo.
+ */
+final class ChannelLimiter {
+
+    // Resultado de tryAcquire: admitida, o nanosegundos hasta que habría lugar
+    static final long ADMITTED = 0;
+
+    private final String channel;
+    private final int maxConcurrent;
+    // Nanosegundos entre tokens y tolerancia de ráfaga (0 = sin límite de tasa)
+    private final long intervalNanos;
+    private final long burstNanos;
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(System.nanoTime());
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    ChannelLimiter(String channel, ChannelAdmissionProperties.Limits limits) {
+        this.channel = channel;
+        this.maxConcurrent = limits.getMaxConcurrent();
+        this.intervalNanos = limits.getRatePerSecond() > 0 ? (long) (1_000_000_000L / limits.getRatePerSecond()) : 0;
+        this.burstNanos = intervalNanos * Math.max(1, limits.getBurst());
+    }
+
+    String getChannel() {
+        return channel;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Reserva un cupo de concurrencia; con éxito el llamador debe invocar {@link #release()}.
+     */
+    boolean tryEnter() {
+        if (maxConcurrent <= 0) {
+            inFlight.incrementAndGet();
+            return true;
+        }
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= maxConcurrent) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Toma un token si hay.
+     * @return {@link #ADMITTED}, o los nanosegundos hasta el próximo token disponible
+     */
+    long tryAcquireToken() {
+        if (intervalNanos == 0) {
+            return ADMITTED;
+        }
+        while (true) {
+            long now = System.nanoTime();
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, now) + intervalNanos;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return ADMITTED;
+            }
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.bankxyz.batch.aggregation;
+
+import com.bankxyz.batch.config.AnnualAggregationProperties;
+import com.bankxyz.batch.model.AnnualAccountData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Agregación por (cuenta, año) para annualAccountsJob en modo AGGREGATE.
+ * REQUERIMIENTO: "Un estado anual por cuenta y año, sin re-agregar millones de filas en SQL"
+ *
+ * El step de lectura usa esta clase como writer: acumula depósitos y retiros en una tabla hash
+ * acotada por un presupuesto de memoria; al superarlo vuelca una corrida ordenada a disco.
+ * Los totales de cada chunk pasan a la tabla recién al confirmarse su commit, así un rollback
+ * o un reintento no suman dos veces. El estado vive en memoria y disco local: el reader no
+ * guarda posición y un reinicio vuelve a agregar el archivo completo.
+ *
+ * El step siguiente (tasklet) mezcla las corridas con la tabla residual, encadena el balance
+ * de apertura desde el cierre del año anterior (el primer año de cada cuenta parte del último
+ * cierre ya guardado en annual_statement) y escribe annual_statement por lotes.
+ *
+ * Una corrida por CLI y otra por /jobs/launch pueden solaparse: la tabla y las corridas en disco
+ * son de cada JobExecution (clave jobExecutionId), no del singleton. No se usa @JobScope porque el
+ * contexto de job no se propaga a los hilos del step multi-hilo; el de step sí.
+ */
+@Component
+public class AnnualStatementAggregator
+        implements ItemWriter<AnnualAccountData>, StepExecutionListener, JobExecutionListener, Tasklet {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnnualStatementAggregator.class);
+
+    // Estimación por entrada: nodo del HashMap, clave (record + String) y long[2]
+    private static final long BYTES_PER_ENTRY = 160;
+
+    private static final Comparator<AccountYear> KEY_ORDER =
+        Comparator.comparing(AccountYear::accountNumber).thenComparingInt(AccountYear::year);
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO annual_statement (year, account_number, opening_balance, total_deposits, total_withdrawals, closing_balance)
+        VALUES (?, ?, ?, ?, ?, ?)
+        ON CONFLICT (account_number, year)
+        DO UPDATE SET opening_balance = EXCLUDED.opening_balance,
+                      total_deposits = EXCLUDED.total_deposits,
+                      total_withdrawals = EXCLUDED.total_withdrawals,
+                      closing_balance = EXCLUDED.closing_balance
+        """;
+
+    // Último cierre guardado antes del primer año de cada cuenta del lote
+    private static final String PRIOR_CLOSING_SQL = """
+        SELECT DISTINCT ON (s.account_number) s.account_number, s.closing_balance
+        FROM annual_statement s
+        JOIN unnest(?::varchar[], ?::int[]) AS f(account_number, first_year)
+          ON s.account_number = f.account_number AND s.year < f.first_year
+        ORDER BY s.account_number, s.year DESC
+        """;
+
+    private final AnnualAggregationProperties props;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Estado de agregación por JobExecution en curso
+    private final Map<Long, Aggregation> aggregations = new ConcurrentHashMap<>();
+
+    public AnnualStatementAggregator(AnnualAggregationProperties props, JdbcTemplate jdbcTemplate) {
+        this.props = props;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /* ---------------- Fase 1: agregación con spill ---------------- */
+
+    @Override
+    public void write(Chunk<? extends AnnualAccountData> chunk) throws Exception {
+        Map<AccountYear, long[]> chunkTotals = new HashMap<>();
+        for (AnnualAccountData data : chunk) {
+            long[] totals = chunkTotals.computeIfAbsent(new AccountYear(data.accountNumber, data.year), k -> new long[2]);
+            totals[0] += toCents(data.totalDeposits);
+            totals[1] += toCents(data.totalWithdrawals);
+        }
+
+        // Resolver la agregación ahora: afterCommit puede correr sin contexto de step
+        Aggregation aggregation = current();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            aggregation.merge(chunkTotals);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    aggregation.merge(chunkTotals);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("No se pudo volcar la corrida parcial", e);
+                }
+            }
+        });
+    }
+
+    // La agregación de la JobExecution del step en curso (también en los hilos del step multi-hilo)
+    private Aggregation current() {
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context == null) {
+            throw new IllegalStateException("AnnualStatementAggregator requiere un contexto de step activo");
+        }
+        return aggregations.computeIfAbsent(context.getStepExecution().getJobExecutionId(), id -> new Aggregation());
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        // Un reintento del step dentro de la misma ejecución arranca de cero
+        Aggregation previous = aggregations.put(stepExecution.getJobExecutionId(), new Aggregation());
+        if (previous != null) {
+            previous.discard();
+        }
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        // Si el job falló antes del merge, liberar la tabla y las corridas de esta ejecución
+        Aggregation leftover = aggregations.remove(jobExecution.getId());
+        if (leftover != null) {
+            leftover.discard();
+        }
+    }
+
+    /* ---------------- Fase 2: merge y escritura por lotes ---------------- */
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        Long jobExecutionId = chunkContext.getStepContext().getStepExecution().getJobExecutionId();
+        Aggregation aggregation = aggregations.remove(jobExecutionId);
+        if (aggregation == null) {
+            logger.warn("⚠️ Sin agregación para la ejecución {}: no hay estados anuales que escribir", jobExecutionId);
+            return RepeatStatus.FINISHED;
+        }
+        synchronized (aggregation) {
+            List<RunCursor> cursors = new ArrayList<>();
+            try {
+                for (Path run : aggregation.runs) {
+                    cursors.add(new FileRunCursor(run));
+                }
+                cursors.add(new MemoryRunCursor(aggregation.sortedEntries().iterator()));
+
+                int written = mergeAndWrite(cursors);
+                contribution.incrementWriteCount(written);
+                logger.info("📊 Estados anuales escritos: {} (corridas en disco: {})", written, aggregation.runs.size());
+            } finally {
+                for (RunCursor cursor : cursors) {
+                    cursor.close();
+                }
+                aggregation.discard();
+            }
+        }
+        return RepeatStatus.FINISHED;
+    }
+
+    private int mergeAndWrite(List<RunCursor> cursors) throws IOException {
+        PriorityQueue<RunCursor> heap = new PriorityQueue<>((a, b) -> KEY_ORDER.compare(a.key(), b.key()));
+        for (RunCursor cursor : cursors) {
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+
+        StatementWriter writer = new StatementWriter();
+        while (!heap.isEmpty()) {
+            AccountYear key = heap.peek().key();
+            long deposits = 0;
+            long withdrawals = 0;
+            // Combinar la misma (cuenta, año) presente en varias corridas
+            while (!heap.isEmpty() && KEY_ORDER.compare(heap.peek().key(), key) == 0) {
+                RunCursor cursor = heap.poll();
+                deposits += cursor.deposits();
+                withdrawals += cursor.withdrawals();
+                if (cursor.advance()) {
+                    heap.add(cursor);
+                }
+            }
+            writer.add(key, deposits, withdrawals);
+        }
+        writer.flush();
+        return writer.written;
+    }
+
+    /**
+     * Lotes de annual_statement en orden (cuenta, año). La apertura de cada año es el cierre del
+     * anterior; la del primer año de una cuenta sale de annual_statement con una consulta por lote.
+     */
+    private final class StatementWriter {
+        private final List<AccountYear> keys = new ArrayList<>(props.getWriteBatchSize());
+        private final List<long[]> totals = new ArrayList<>(props.getWriteBatchSize());
+        private String currentAccount;
+        private long closingCents;
+        private int written;
+
+        void add(AccountYear key, long deposits, long withdrawals) {
+            keys.add(key);
+            totals.add(new long[] { deposits, withdrawals });
+            if (keys.size() >= props.getWriteBatchSize()) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (keys.isEmpty()) {
+                return;
+            }
+            Map<String, Long> priorClosings = findPriorClosings();
+            List<Object[]> batch = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                AccountYear key = keys.get(i);
+                long openingCents = key.accountNumber().equals(currentAccount)
+                    ? closingCents
+                    : priorClosings.getOrDefault(key.accountNumber(), 0L);
+                currentAccount = key.accountNumber();
+                closingCents = openingCents + totals.get(i)[0] - totals.get(i)[1];
+
+                batch.add(new Object[] {
+                    key.year(), key.accountNumber(),
+                    BigDecimal.valueOf(openingCents, 2), BigDecimal.valueOf(totals.get(i)[0], 2),
+                    BigDecimal.valueOf(totals.get(i)[1], 2), BigDecimal.valueOf(closingCents, 2)
+                });
+            }
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+            written += batch.size();
+            keys.clear();
+            totals.clear();
+        }
+
+        // Cuentas cuyo primer año está en este lote (la que sigue del lote anterior ya tiene cierre)
+        private Map<String, Long> findPriorClosings() {
+            List<String> accounts = new ArrayList<>();
+            List<Integer> firstYears = new ArrayList<>();
+            String previous = currentAccount;
+            for (AccountYear key : keys) {
+                if (!key.accountNumber().equals(previous)) {
+                    accounts.add(key.accountNumber());
+                    firstYears.add(key.year());
+                    previous = key.accountNumber();
+                }
+            }
+            Map<String, Long> closings = new HashMap<>();
+            if (accounts.isEmpty()) {
+                return closings;
+            }
+            jdbcTemplate.query(PRIOR_CLOSING_SQL, ps -> {
+                ps.setArray(1, ps.getConnection().createArrayOf("varchar", accounts.toArray()));
+                ps.setArray(2, ps.getConnection().createArrayOf("integer", firstYears.toArray()));
+            }, (RowCallbackHandler) rs -> closings.put(rs.getString(1), toCents(rs.getBigDecimal(2))));
+            return closings;
+        }
+    }
+
+    /**
+     * Tabla hash y corridas en disco de una JobExecution. Los afterCommit de los hilos del step
+     * sincronizan sobre la instancia.
+     */
+    private final class Aggregation {
+        private final Map<AccountYear, long[]> table = new HashMap<>();
+        private final List<Path> runs = new ArrayList<>();
+
+        synchronized void merge(Map<AccountYear, long[]> chunkTotals) throws IOException {
+            chunkTotals.forEach((key, totals) -> {
+                long[] acc = table.computeIfAbsent(key, k -> new long[2]);
+                acc[0] += totals[0];
+                acc[1] += totals[1];
+            });
+            if (table.size() * BYTES_PER_ENTRY > props.getMemoryBudgetBytes()) {
+                spillRun();
+            }
+        }
+
+        // Vuelca la tabla ordenada por (cuenta, año) a un archivo temporal y la vacía
+        private void spillRun() throws IOException {
+            Path dir = StringUtils.hasText(props.getSpillDir())
+                ? Files.createDirectories(Path.of(props.getSpillDir()))
+                : Path.of(System.getProperty("java.io.tmpdir"));
+            Path run = Files.createTempFile(dir, "annual-run-", ".bin");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+                for (Map.Entry<AccountYear, long[]> entry : sortedEntries()) {
+                    out.writeUTF(entry.getKey().accountNumber());
+                    out.writeInt(entry.getKey().year());
+                    out.writeLong(entry.getValue()[0]);
+                    out.writeLong(entry.getValue()[1]);
+                }
+            }
+            runs.add(run);
+            logger.info("💽 Corrida parcial #{} volcada a disco: {} cuentas-año", runs.size(), table.size());
+            table.clear();
+        }
+
+        List<Map.Entry<AccountYear, long[]>> sortedEntries() {
+            List<Map.Entry<AccountYear, long[]>> entries = new ArrayList<>(table.entrySet());
+            entries.sort(Map.Entry.comparingByKey(KEY_ORDER));
+            return entries;
+        }
+
+        synchronized void discard() {
+            table.clear();
+            for (Path run : runs) {
+                try {
+                    Files.deleteIfExists(run);
+                } catch (IOException e) {
+                    logger.warn("⚠️ No se pudo borrar la corrida {}: {}", run, e.getMessage());
+                }
+            }
+            runs.clear();
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    private record AccountYear(String accountNumber, int year) {}
+
+    /* ---------------- Cursores de corridas ordenadas ---------------- */
+
+    private interface RunCursor extends Closeable {
+        boolean advance() throws IOException;
+        AccountYear key();
+        long deposits();
+        long withdrawals();
+    }
+
+    private static final class FileRunCursor implements RunCursor {
+        private final DataInputStream in;
+        private AccountYear key;
+        private long deposits;
+        private long withdrawals;
+
+        FileRunCursor(Path run) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+        }
+
+        @Override
+        public boolean advance() throws IOException {
+            try {
+                key = new AccountYear(in.readUTF(), in.readInt());
+                deposits = in.readLong();
+                withdrawals = in.readLong();
+                return true;
+            } catch (EOFException end) {
+                return false;
+            }
+        }
+
+        @Override public AccountYear key() { return key; }
+        @Override public long deposits() { return deposits; }
+        @Override public long withdrawals() { return withdrawals; }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static final class MemoryRunCursor implements RunCursor {
+        private final Iterator<Map.Entry<AccountYear, long[]>> entries;
+        private Map.Entry<AccountYear, long[]> current;
+
+        MemoryRunCursor(Iterator<Map.Entry<AccountYear, long[]>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean advance() {
+            current = entries.hasNext() ? entries.next() : null;
+            return current != null;
+        }
+
+        @Override public AccountYear key() { return current.getKey(); }
+        @Override public long deposits() { return current.getValue()[0]; }
+        @Override public long withdrawals() { return current.getValue()[1]; }
+
+        @Override
+        public void close() {
+            // Nada que liberar
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.bankxyz.batch.aggregation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Agregación en vuelo del reporte diario de transacciones.
+ * REQUERIMIENTO: "Poblar daily_transaction_report sin escaneos completos posteriores"
+ *
+ * TransactionDedupWriter registra cada transacción escrita. Los totales del chunk quedan ligados
+ * a su transacción y solo pasan a los acumuladores al confirmarse el commit: un rollback, un
+ * reintento o un ítem saltado no suman. Los acumuladores por fecha son LongAdder (striped) para
+ * no contender entre los hilos del step. Al terminar el step se suman al reporte con un único
+ * UPSERT por lotes.
+ *
+ * En modo particionado los workers no escriben: registrada como stream del step guarda los
+ * totales parciales en el contexto de cada partición y el manager los combina con {@link #mergePartial}.
+ * Un step con parciales en el contexto solo vuelca si completa (al reiniciar se restauran); los
+ * demás vuelcan lo confirmado aunque fallen, porque el reinicio no vuelve a leer esas filas.
+ *
+ * Una instancia por step: dailyReportJob y dailyReportBackfillJob pueden correr en paralelo.
+ */
+@Component
+@StepScope
+public class DailyReportAggregator implements StepExecutionListener, ItemStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(DailyReportAggregator.class);
+
+    private static final String PARTIAL_KEY = "dailyReportPartial";
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO daily_transaction_report (report_date, account_number, tx_count, total_amount, anomalies)
+        VALUES (?, NULL, ?, ?, ?)
+        ON CONFLICT (report_date, (COALESCE(account_number, '')))
+        DO UPDATE SET tx_count = daily_transaction_report.tx_count + EXCLUDED.tx_count,
+                      total_amount = daily_transaction_report.total_amount + EXCLUDED.total_amount,
+                      anomalies = daily_transaction_report.anomalies + EXCLUDED.anomalies
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<LocalDate, DailyAccumulator> accumulators = new ConcurrentHashMap<>();
+
+    public DailyReportAggregator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Registra una transacción escrita. Dentro de una transacción se suma al confirmarse el commit.
+     */
+    public void record(LocalDate txDate, BigDecimal amount, boolean anomaly) {
+        long cents = amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+        int anomalies = anomaly ? 1 : 0;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accumulate(txDate, 1, cents, anomalies);
+            return;
+        }
+        long[] totals = pendingTotals().computeIfAbsent(txDate, d -> new long[3]);
+        totals[0]++;
+        totals[1] += cents;
+        totals[2] += anomalies;
+    }
+
+    // Totales del chunk en curso (uno por transacción, es decir por hilo)
+    @SuppressWarnings("unchecked")
+    private Map<LocalDate, long[]> pendingTotals() {
+        Map<LocalDate, long[]> pending = (Map<LocalDate, long[]>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        Map<LocalDate, long[]> created = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(DailyReportAggregator.this);
+                if (status == STATUS_COMMITTED) {
+                    created.forEach((date, totals) -> accumulate(date, totals[0], totals[1], totals[2]));
+                }
+            }
+        });
+        return created;
+    }
+
+    private void accumulate(LocalDate date, long count, long sumCents, long anomalies) {
+        DailyAccumulator acc = accumulators.computeIfAbsent(date, d -> new DailyAccumulator());
+        acc.count.add(count);
+        acc.sumCents.add(sumCents);
+        acc.anomalies.add(anomalies);
+    }
+
+    // Persistencia de los parciales de una partición: se restauran si otro worker la retoma
+    @Override
+    public void open(ExecutionContext executionContext) {
+        accumulators.clear();
+        if (executionContext.containsKey(PARTIAL_KEY)) {
+            mergePartial(executionContext);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        executionContext.putString(PARTIAL_KEY, encodePartial());
+    }
+
+    /**
+     * Suma a los acumuladores los totales parciales guardados en el contexto de una partición.
+     */
+    public void mergePartial(ExecutionContext executionContext) {
+        String partial = executionContext.getString(PARTIAL_KEY, "");
+        for (String entry : partial.split(";")) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int eq = entry.indexOf('=');
+            String[] totals = entry.substring(eq + 1).split(":");
+            accumulate(LocalDate.parse(entry.substring(0, eq)),
+                Long.parseLong(totals[0]), Long.parseLong(totals[1]), Long.parseLong(totals[2]));
+        }
+    }
+
+    // fecha=conteo:centavos:anomalías;...
+    // update() corre dentro de la transacción del chunk, antes del commit: el contexto que se guarda
+    // con ese commit debe incluir los totales del chunk en curso
+    @SuppressWarnings("unchecked")
+    private String encodePartial() {
+        Map<LocalDate, long[]> totals = new TreeMap<>();
+        accumulators.forEach((date, acc) -> totals.put(date,
+            new long[] { acc.count.sum(), acc.sumCents.sum(), acc.anomalies.sum() }));
+        Map<LocalDate, long[]> pending = (Map<LocalDate, long[]>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            pending.forEach((date, chunk) -> {
+                long[] t = totals.computeIfAbsent(date, d -> new long[3]);
+                t[0] += chunk[0];
+                t[1] += chunk[1];
+                t[2] += chunk[2];
+            });
+        }
+        StringBuilder sb = new StringBuilder();
+        totals.forEach((date, t) -> sb.append(date).append('=')
+            .append(t[0]).append(':').append(t[1]).append(':').append(t[2]).append(';'));
+        return sb.toString();
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        accumulators.clear();
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        // Con parciales en el contexto, el reinicio los restaura: volcarlos ahora los sumaría dos veces
+        if (stepExecution.getStatus() != BatchStatus.COMPLETED
+                && stepExecution.getExecutionContext().containsKey(PARTIAL_KEY)) {
+            logger.warn("⚠️ Step {} no completado, totales parciales conservados para el reinicio",
+                stepExecution.getStepName());
+            accumulators.clear();
+            return stepExecution.getExitStatus();
+        }
+
+        int days = flush();
+        stepExecution.getExecutionContext().putInt("dailyReportDays", days);
+        return stepExecution.getExitStatus();
+    }
+
+    /**
+     * Suma los acumuladores al reporte con un único UPSERT por lotes.
+     * @return cantidad de fechas escritas
+     */
+    public int flush() {
+        List<Object[]> rows = new ArrayList<>(accumulators.size());
+        accumulators.forEach((date, acc) -> rows.add(new Object[] {
+            Date.valueOf(date),
+            (int) acc.count.sum(),
+            BigDecimal.valueOf(acc.sumCents.sum(), 2),
+            (int) acc.anomalies.sum()
+        }));
+        accumulators.clear();
+
+        if (!rows.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL, rows));
+        }
+        logger.info("📅 Reporte diario actualizado: {} fechas", rows.size());
+        return rows.size();
+    }
+
+    private static final class DailyAccumulator {
+        final LongAdder count = new LongAdder();
+        final LongAdder sumCents = new LongAdder();
+        final LongAdder anomalies = new LongAdder();
+    }
+}
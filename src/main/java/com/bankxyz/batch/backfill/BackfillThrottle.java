@@ -0,0 +1,187 @@
+package com.bankxyz.batch.backfill;
+
+import com.bankxyz.batch.config.BackfillProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.RepeatListener;
+import org.springframework.batch.repeat.RepeatOperations;
+import org.springframework.batch.repeat.support.RepeatTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Presupuesto de I/O del reproceso histórico: filas/s y MB/s con token bucket, y freno
+ * automático cuando sube la latencia de escritura en la base.
+ * REQUERIMIENTO: "Reprocesar un año de archivos en horario hábil sin aplastar PostgreSQL"
+ *
+ * El reader carga cada línea al presupuesto antes de mapearla ({@link #throttled(LineMapper)}) sin
+ * esperar: la deuda se paga entre chunks ({@link #betweenChunks()}), fuera de la transacción, para
+ * no retener una conexión del pool batch "idle in transaction" durante la espera. El writer mide
+ * cada chunk ({@link #timed(ItemWriter)}). Si el promedio móvil de la escritura supera el umbral,
+ * la tasa se multiplica por backoffFactor (hasta minRateFraction); mientras esté por debajo se
+ * recupera de a recoveryStep por chunk.
+ */
+@Component
+public class BackfillThrottle implements StepExecutionListener, RepeatListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackfillThrottle.class);
+
+    // Peso de cada chunk en el promedio móvil de latencia
+    private static final double EWMA_ALPHA = 0.3;
+
+    private final BackfillProperties props;
+    private final AtomicLong throttledNanos = new AtomicLong();
+
+    // Sin deuda pendiente (System.nanoTime puede ser negativo: 0 no sirve de marca)
+    private static final long NO_DEBT = Long.MIN_VALUE;
+
+    // Instante (System.nanoTime) hasta el que el próximo chunk debe esperar por lo ya leído
+    private final AtomicLong debtUntilNanos = new AtomicLong(NO_DEBT);
+
+    private volatile TokenBucket rows;
+    private volatile TokenBucket bytes;
+    private volatile double rateFraction = 1.0;
+    private volatile double minRateFractionSeen = 1.0;
+    private volatile double latencyEwmaMs;
+    private int backoffs;
+
+    public BackfillThrottle(BackfillProperties props, MeterRegistry meterRegistry) {
+        this.props = props;
+        reset();
+        Gauge.builder("batch.backfill.rate.fraction", this, t -> t.rateFraction)
+            .description("Fracción del presupuesto de filas/MB por segundo en uso").register(meterRegistry);
+        Gauge.builder("batch.backfill.write.latency", this, t -> t.latencyEwmaMs)
+            .description("Latencia de escritura por chunk (promedio móvil, ms)").register(meterRegistry);
+        FunctionCounter.builder("batch.backfill.throttled", throttledNanos, n -> n.get() / 1e9)
+            .description("Segundos de espera impuestos por el presupuesto").baseUnit("seconds").register(meterRegistry);
+    }
+
+    /** Envuelve el LineMapper para cargar una fila y sus bytes al presupuesto antes de mapear cada línea. */
+    public <T> LineMapper<T> throttled(LineMapper<T> delegate) {
+        return (line, lineNumber) -> {
+            // +1 por el salto de línea
+            charge(line.getBytes(StandardCharsets.UTF_8).length + 1);
+            return delegate.mapLine(line, lineNumber);
+        };
+    }
+
+    /**
+     * Operaciones de repetición del step: antes de abrir la transacción de cada chunk se espera
+     * la deuda que dejó el chunk anterior.
+     */
+    public RepeatOperations betweenChunks() {
+        RepeatTemplate template = new RepeatTemplate();
+        template.registerListener(this);
+        return template;
+    }
+
+    @Override
+    public void before(RepeatContext context) {
+        long until = debtUntilNanos.getAndSet(NO_DEBT);
+        if (until == NO_DEBT) {
+            return;
+        }
+        long waitNanos = until - System.nanoTime();
+        if (waitNanos > 0) {
+            throttledNanos.addAndGet(waitNanos);
+        }
+        // parkNanos puede volver antes de tiempo
+        for (long remaining = waitNanos; remaining > 0 && !Thread.currentThread().isInterrupted();
+                remaining = until - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /** Envuelve el writer para medir la latencia de escritura de cada chunk. */
+    public <T> ItemWriter<T> timed(ItemWriter<T> delegate) {
+        return chunk -> {
+            long start = System.nanoTime();
+            delegate.write(chunk);
+            recordWrite(chunk, System.nanoTime() - start);
+        };
+    }
+
+    // La espera que devuelve el bucket ya incluye la deuda anterior: basta con el instante más lejano
+    private void charge(int lineBytes) {
+        long waitNanos = Math.max(rows.reserve(1), bytes.reserve(lineBytes));
+        if (waitNanos > 0) {
+            long until = System.nanoTime() + waitNanos;
+            debtUntilNanos.accumulateAndGet(until, Math::max);
+        }
+    }
+
+    private synchronized void recordWrite(Chunk<?> chunk, long elapsedNanos) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        double elapsedMs = elapsedNanos / 1e6;
+        latencyEwmaMs = latencyEwmaMs == 0 ? elapsedMs : EWMA_ALPHA * elapsedMs + (1 - EWMA_ALPHA) * latencyEwmaMs;
+
+        double next;
+        if (latencyEwmaMs > props.getLatencyThreshold().toMillis()) {
+            next = Math.max(props.getMinRateFraction(), rateFraction * props.getBackoffFactor());
+            if (next < rateFraction) {
+                backoffs++;
+                logger.warn("🐢 Backfill: escritura en {} ms (umbral {} ms), tasa al {}%",
+                    Math.round(latencyEwmaMs), props.getLatencyThreshold().toMillis(), Math.round(next * 100));
+            }
+        } else {
+            next = Math.min(1.0, rateFraction + props.getRecoveryStep());
+        }
+        if (next != rateFraction) {
+            rateFraction = next;
+            minRateFractionSeen = Math.min(minRateFractionSeen, next);
+            rows.scale(next);
+            bytes.scale(next);
+        }
+    }
+
+    private synchronized void reset() {
+        rows = new TokenBucket(props.getRowsPerSecond());
+        bytes = new TokenBucket(props.getMegabytesPerSecond() * 1024 * 1024);
+        rateFraction = 1.0;
+        minRateFractionSeen = 1.0;
+        latencyEwmaMs = 0;
+        backoffs = 0;
+        throttledNanos.set(0);
+        debtUntilNanos.set(NO_DEBT);
+    }
+
+    double getRateFraction() {
+        return rateFraction;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        reset();
+        logger.info("🐢 Backfill con presupuesto: {} filas/s, {} MB/s, umbral de latencia {} ms",
+            props.getRowsPerSecond() > 0 ? props.getRowsPerSecond() : "∞",
+            props.getMegabytesPerSecond() > 0 ? props.getMegabytesPerSecond() : "∞",
+            props.getLatencyThreshold().toMillis());
+    }
+
+    @Override
+    public synchronized ExitStatus afterStep(StepExecution stepExecution) {
+        long throttledMs = TimeUnit.NANOSECONDS.toMillis(throttledNanos.get());
+        stepExecution.getExecutionContext().putLong("backfillThrottledMillis", throttledMs);
+        stepExecution.getExecutionContext().putInt("backfillBackoffs", backoffs);
+        stepExecution.getExecutionContext().putDouble("backfillMinRateFraction", minRateFractionSeen);
+        logger.info("🐢 Backfill: {} ms de espera por presupuesto, {} frenadas por latencia (tasa mínima {}%)",
+            throttledMs, backoffs, Math.round(minRateFractionSeen * 100));
+        return stepExecution.getExitStatus();
+    }
+}
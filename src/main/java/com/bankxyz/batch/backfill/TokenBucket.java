@@ -0,0 +1,48 @@
+package com.bankxyz.batch.backfill;
+
+/**
+ * Token bucket con capacidad de un segundo de tasa. Admite deuda: una solicitud mayor que la
+ * capacidad (una línea muy larga) se concede y se paga con la espera correspondiente.
+ */
+final class TokenBucket {
+
+    private final double baseRate;
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(double ratePerSecond) {
+        this.baseRate = ratePerSecond;
+        this.rate = ratePerSecond;
+        this.tokens = ratePerSecond;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    boolean isUnlimited() {
+        return baseRate <= 0;
+    }
+
+    /** Ajusta la tasa a una fracción de la configurada. */
+    synchronized void scale(double fraction) {
+        refill();
+        rate = baseRate * fraction;
+    }
+
+    /**
+     * Descuenta los tokens y devuelve cuántos nanosegundos debe esperar el llamador.
+     */
+    synchronized long reserve(double amount) {
+        if (isUnlimited()) {
+            return 0;
+        }
+        refill();
+        tokens -= amount;
+        return tokens >= 0 ? 0 : (long) (-tokens / rate * 1_000_000_000L);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(rate, tokens + (now - lastRefillNanos) / 1_000_000_000.0 * rate);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,248 @@
+package com.bankxyz.batch.cache;
+
+import com.bankxyz.batch.config.AccountCacheProperties;
+import com.bankxyz.batch.model.Account;
+import com.bankxyz.batch.repository.AccountCursorReader;
+import com.bankxyz.batch.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Caché acotada (LRU + TTL) de la consulta de cuenta por número para los BFF.
+ * REQUERIMIENTO: "Los BFF consultan las mismas cuentas miles de veces por segundo"
+ *
+ * Carga single-flight: los misses concurrentes de una clave esperan la misma consulta.
+ * AccountUpsertWriter invalida las cuentas de cada chunk tras el commit; una carga en vuelo
+ * de una clave invalidada entrega su resultado a quienes la esperaban pero no se guarda,
+ * así un valor leído antes del commit nunca queda en la caché. También se guardan las
+ * cuentas inexistentes: el INSERT de la cuenta las invalida igual que un UPDATE.
+ *
+ * La invalidación es local a la instancia; en otras instancias rige el TTL.
+ */
+@Component
+public class AccountLookupCache {
+
+    private final AccountCacheProperties props;
+    private final AccountRepository accountRepository;
+    private final AccountCursorReader accountCursorReader;
+
+    // Un único lock para el LRU y las cargas en vuelo: el camino de hit es un get sobre el mapa
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, CachedAccount> entries;
+    private final Map<String, CompletableFuture<Optional<Account>>> loading = new HashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter invalidations;
+    private final Timer loadTimer;
+
+    public AccountLookupCache(AccountCacheProperties props, AccountRepository accountRepository,
+                              AccountCursorReader accountCursorReader, MeterRegistry meterRegistry) {
+        this.props = props;
+        this.accountRepository = accountRepository;
+        this.accountCursorReader = accountCursorReader;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedAccount> eldest) {
+                if (size() > props.getMaximumSize()) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hits = Counter.builder("cache.gets").tag("cache", "accounts").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "accounts").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "accounts").register(meterRegistry);
+        this.invalidations = Counter.builder("cache.invalidations").tag("cache", "accounts")
+            .description("Entradas invalidadas por commits de AccountUpsertWriter").register(meterRegistry);
+        this.loadTimer = Timer.builder("cache.load").tag("cache", "accounts")
+            .description("Consulta a la base en un miss").register(meterRegistry);
+        Gauge.builder("cache.size", this, AccountLookupCache::size).tag("cache", "accounts").register(meterRegistry);
+    }
+
+    public Optional<Account> findByAccountNumber(String accountNumber) {
+        if (!props.isEnabled()) {
+            return accountRepository.findByAccountNumber(accountNumber);
+        }
+
+        CompletableFuture<Optional<Account>> pending;
+        boolean loader = false;
+        synchronized (lock) {
+            CachedAccount cached = entries.get(accountNumber);
+            if (cached != null) {
+                if (cached.expiresAtNanos - System.nanoTime() > 0) {
+                    hits.increment();
+                    return cached.account;
+                }
+                entries.remove(accountNumber);
+            }
+            pending = loading.get(accountNumber);
+            if (pending == null) {
+                pending = new CompletableFuture<>();
+                loading.put(accountNumber, pending);
+                loader = true;
+            }
+        }
+        misses.increment();
+
+        if (!loader) {
+            return await(pending);
+        }
+        try {
+            Optional<Account> account = loadTimer.record(() -> accountRepository.findByAccountNumber(accountNumber));
+            synchronized (lock) {
+                // Si se invalidó durante la carga, el resultado puede ser anterior al commit: no se guarda
+                if (loading.remove(accountNumber, pending)) {
+                    entries.put(accountNumber, new CachedAccount(account, System.nanoTime() + props.getTtl().toNanos()));
+                }
+            }
+            pending.complete(account);
+            return account;
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                loading.remove(accountNumber, pending);
+            }
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Resuelve un lote de cuentas: los hits salen de la caché, las claves que otro hilo ya está
+     * cargando se esperan y el resto se consulta con una sola query. Mismas reglas single-flight
+     * e invalidación que {@link #findByAccountNumber}.
+     * @return una entrada por número distinto, en el orden recibido (vacía si la cuenta no existe)
+     */
+    public Map<String, Optional<Account>> findAllByAccountNumber(Collection<String> accountNumbers) {
+        Map<String, Optional<Account>> result = new LinkedHashMap<>();
+        for (String accountNumber : new LinkedHashSet<>(accountNumbers)) {
+            result.put(accountNumber, Optional.empty());
+        }
+        if (!props.isEnabled()) {
+            for (Account account : accountCursorReader.findByAccountNumbers(result.keySet())) {
+                result.put(account.getAccountNumber(), Optional.of(account));
+            }
+            return result;
+        }
+
+        Map<String, CompletableFuture<Optional<Account>>> toLoad = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Optional<Account>>> toAwait = new LinkedHashMap<>();
+        int hitCount = 0;
+        synchronized (lock) {
+            long now = System.nanoTime();
+            for (String accountNumber : result.keySet()) {
+                CachedAccount cached = entries.get(accountNumber);
+                if (cached != null) {
+                    if (cached.expiresAtNanos - now > 0) {
+                        result.put(accountNumber, cached.account);
+                        hitCount++;
+                        continue;
+                    }
+                    entries.remove(accountNumber);
+                }
+                CompletableFuture<Optional<Account>> pending = loading.get(accountNumber);
+                if (pending != null) {
+                    toAwait.put(accountNumber, pending);
+                } else {
+                    pending = new CompletableFuture<>();
+                    loading.put(accountNumber, pending);
+                    toLoad.put(accountNumber, pending);
+                }
+            }
+        }
+        hits.increment(hitCount);
+        misses.increment(toLoad.size() + toAwait.size());
+
+        if (!toLoad.isEmpty()) {
+            Map<String, Optional<Account>> loaded = new HashMap<>();
+            try {
+                List<Account> found = loadTimer.record(() -> accountCursorReader.findByAccountNumbers(toLoad.keySet()));
+                for (Account account : found) {
+                    loaded.put(account.getAccountNumber(), Optional.of(account));
+                }
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    toLoad.forEach(loading::remove);
+                }
+                toLoad.values().forEach(pending -> pending.completeExceptionally(e));
+                throw e;
+            }
+
+            long expiresAtNanos = System.nanoTime() + props.getTtl().toNanos();
+            synchronized (lock) {
+                toLoad.forEach((accountNumber, pending) -> {
+                    // Igual que en la carga individual: una clave invalidada durante la consulta no se guarda
+                    if (loading.remove(accountNumber, pending)) {
+                        entries.put(accountNumber, new CachedAccount(
+                            loaded.getOrDefault(accountNumber, Optional.empty()), expiresAtNanos));
+                    }
+                });
+            }
+            toLoad.forEach((accountNumber, pending) -> {
+                Optional<Account> account = loaded.getOrDefault(accountNumber, Optional.empty());
+                pending.complete(account);
+                result.put(accountNumber, account);
+            });
+        }
+
+        toAwait.forEach((accountNumber, pending) -> result.put(accountNumber, await(pending)));
+        return result;
+    }
+
+    /**
+     * Descarta las cuentas indicadas y las cargas en vuelo de esas claves.
+     * Se llama después del commit del chunk que las modificó.
+     */
+    public void invalidate(Collection<String> accountNumbers) {
+        synchronized (lock) {
+            for (String accountNumber : accountNumbers) {
+                entries.remove(accountNumber);
+                loading.remove(accountNumber);
+            }
+        }
+        invalidations.increment(accountNumbers.size());
+    }
+
+    public void invalidateAll() {
+        synchronized (lock) {
+            invalidations.increment(entries.size());
+            entries.clear();
+            loading.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    private static Optional<Account> await(CompletableFuture<Optional<Account>> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record CachedAccount(Optional<Account> account, long expiresAtNanos) {}
+}
@@ -0,0 +1,184 @@
+package com.bankxyz.batch.cache;
+
+import com.bankxyz.batch.model.Account;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Copia inmutable de la tabla account en arreglos primitivos, ordenada por id.
+ *
+ * Saldos en centavos (NUMERIC(19,2)), tipos codificados contra un diccionario y un índice
+ * por número de cuenta con direccionamiento abierto sobre int[]: sin objetos por fila
+ * salvo los Strings. Se construye con {@link Builder} y no cambia después de publicada.
+ */
+public final class AccountSnapshot {
+
+    private static final short NO_AGE = -1;
+
+    private final long version;
+    private final Instant builtAt;
+    private final int size;
+    private final long[] ids;
+    private final String[] accountNumbers;
+    private final String[] ownerNames;
+    private final byte[] typeCodes;
+    private final String[] typeDictionary;
+    private final long[] balanceCents;
+    private final short[] ages;
+    // Posición + 1 de cada cuenta (0 = vacío); capacidad potencia de 2, factor de carga <= 0.5
+    private final int[] index;
+
+    private AccountSnapshot(long version, Builder builder) {
+        this.version = version;
+        this.builtAt = Instant.now();
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, size);
+        this.accountNumbers = Arrays.copyOf(builder.accountNumbers, size);
+        this.ownerNames = Arrays.copyOf(builder.ownerNames, size);
+        this.typeCodes = Arrays.copyOf(builder.typeCodes, size);
+        this.typeDictionary = builder.typeDictionary.toArray(String[]::new);
+        this.balanceCents = Arrays.copyOf(builder.balanceCents, size);
+        this.ages = Arrays.copyOf(builder.ages, size);
+
+        this.index = new int[Math.max(2, Integer.highestOneBit(Math.max(1, size) * 2 - 1) << 1)];
+        int mask = index.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = mix(accountNumbers[i].hashCode()) & mask;
+            while (index[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = i + 1;
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Optional<Account> findByAccountNumber(String accountNumber) {
+        int position = positionOf(accountNumber);
+        return position < 0 ? Optional.empty() : Optional.of(toAccount(position));
+    }
+
+    /** Posición de la primera cuenta con id mayor que {@code id} (búsqueda binaria; size() si no hay). */
+    public int positionAfterId(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    public List<Account> toAccounts() {
+        List<Account> accounts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            accounts.add(toAccount(i));
+        }
+        return accounts;
+    }
+
+    // Cada lectura materializa un Account nuevo: nadie puede mutar el snapshot publicado
+    public Account toAccount(int position) {
+        Account account = new Account(
+            accountNumbers[position],
+            ownerNames[position],
+            typeCodes[position] < 0 ? null : typeDictionary[typeCodes[position]],
+            BigDecimal.valueOf(balanceCents[position], 2),
+            ages[position] == NO_AGE ? null : (int) ages[position]);
+        account.setId(ids[position]);
+        return account;
+    }
+
+    private int positionOf(String accountNumber) {
+        if (accountNumber == null) {
+            return -1;
+        }
+        int mask = index.length - 1;
+        for (int slot = mix(accountNumber.hashCode()) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            int position = index[slot] - 1;
+            if (accountNumbers[position].equals(accountNumber)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Acumula filas en orden de id y publica el snapshot con {@link #build(long)}.
+     */
+    public static final class Builder {
+        private int size;
+        private long[] ids = new long[1024];
+        private String[] accountNumbers = new String[1024];
+        private String[] ownerNames = new String[1024];
+        private byte[] typeCodes = new byte[1024];
+        private long[] balanceCents = new long[1024];
+        private short[] ages = new short[1024];
+        private final List<String> typeDictionary = new ArrayList<>();
+        private final Map<String, Byte> typeCodesByName = new HashMap<>();
+
+        public Builder add(long id, String accountNumber, String ownerName, String type, BigDecimal balance, Integer age) {
+            if (size > 0 && id <= ids[size - 1]) {
+                throw new IllegalArgumentException("Las filas del snapshot deben venir ordenadas por id: " + id);
+            }
+            if (size == ids.length) {
+                grow();
+            }
+            ids[size] = id;
+            accountNumbers[size] = accountNumber;
+            ownerNames[size] = ownerName;
+            typeCodes[size] = typeCode(type);
+            balanceCents[size] = balance == null ? 0 : balance.movePointRight(2).longValueExact();
+            ages[size] = age == null ? NO_AGE : age.shortValue();
+            size++;
+            return this;
+        }
+
+        public AccountSnapshot build(long version) {
+            return new AccountSnapshot(version, this);
+        }
+
+        private byte typeCode(String type) {
+            if (type == null) {
+                return -1;
+            }
+            Byte code = typeCodesByName.get(type);
+            if (code == null) {
+                if (typeDictionary.size() > Byte.MAX_VALUE) {
+                    throw new IllegalStateException("Demasiados tipos de cuenta distintos para el snapshot");
+                }
+                code = (byte) typeDictionary.size();
+                typeDictionary.add(type);
+                typeCodesByName.put(type, code);
+            }
+            return code;
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            accountNumbers = Arrays.copyOf(accountNumbers, capacity);
+            ownerNames = Arrays.copyOf(ownerNames, capacity);
+            typeCodes = Arrays.copyOf(typeCodes, capacity);
+            balanceCents = Arrays.copyOf(balanceCents, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.bankxyz.batch.cache;
+
+import com.bankxyz.batch.feed.BalanceChangeFeed;
+import com.bankxyz.batch.repository.AccountCursorReader;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Modelo de lectura de cuentas para /api/accounts: un {@link AccountSnapshot} inmutable que se
+ * reconstruye tras cada job exitoso y se publica con un único swap atómico.
+ * REQUERIMIENTO: "Durante monthlyInterestJob la API mezcla saldos viejos y nuevos"
+ *
+ * Entre ejecuciones las lecturas no tocan la base ni toman locks; durante un job se sigue
+ * sirviendo la versión anterior completa hasta que el job termina bien.
+ *
+ * No se construye al arrancar: hasta el primer job exitoso de esta instancia (y si una
+ * reconstrucción falla antes de eso) la API lee de la base con AccountLookupCache, la consulta
+ * por lotes con = ANY(?) y las columnas proyectadas por ?fields. Una instancia que no corre
+ * jobs nunca retiene la tabla en memoria ni sirve una copia que otro nodo dejó vieja.
+ */
+@Component
+public class AccountSnapshotStore implements JobExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountSnapshotStore.class);
+
+    private final AccountCursorReader accountCursorReader;
+    private final BalanceChangeFeed balanceChangeFeed;
+    private final AtomicReference<AccountSnapshot> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final Timer buildTimer;
+
+    public AccountSnapshotStore(AccountCursorReader accountCursorReader, BalanceChangeFeed balanceChangeFeed,
+                                MeterRegistry meterRegistry) {
+        this.accountCursorReader = accountCursorReader;
+        this.balanceChangeFeed = balanceChangeFeed;
+        this.buildTimer = Timer.builder("account.snapshot.build")
+            .description("Reconstrucción del snapshot de cuentas").register(meterRegistry);
+        Gauge.builder("account.snapshot.version", current, ref -> ref.get() == null ? 0 : ref.get().getVersion())
+            .register(meterRegistry);
+        Gauge.builder("account.snapshot.accounts", current, ref -> ref.get() == null ? 0 : ref.get().size())
+            .register(meterRegistry);
+    }
+
+    /** Snapshot vigente; vacío hasta el primer job exitoso (la API consulta la base mientras tanto). */
+    public Optional<AccountSnapshot> current() {
+        return Optional.ofNullable(current.get());
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        if (jobExecution.getStatus() == BatchStatus.COMPLETED) {
+            refreshQuietly(jobExecution.getJobInstance().getJobName());
+        }
+    }
+
+    /**
+     * Lee la tabla account completa y publica el nuevo snapshot.
+     * Las reconstrucciones concurrentes se serializan para que la versión publicada nunca retroceda.
+     */
+    public synchronized AccountSnapshot refresh() {
+        long start = System.nanoTime();
+        AccountSnapshot.Builder builder = new AccountSnapshot.Builder();
+        // Por cursor: la tabla completa nunca está dos veces en memoria
+        accountCursorReader.forEach(account -> builder.add(account.getId(), account.getAccountNumber(),
+            account.getOwnerName(), account.getType(), account.getBalance(), account.getAge()));
+        AccountSnapshot snapshot = builder.build(versions.incrementAndGet());
+        current.set(snapshot);
+        // Los BFF del feed saben desde cuándo la API sirve los saldos que ya recibieron
+        balanceChangeFeed.snapshotPublished(snapshot.getVersion());
+        buildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.info("📸 Snapshot de cuentas v{} publicado: {} cuentas en {} ms",
+            snapshot.getVersion(), snapshot.size(), (System.nanoTime() - start) / 1_000_000);
+        return snapshot;
+    }
+
+    // Un fallo al reconstruir no debe tumbar el job: se sigue sirviendo la versión anterior
+    private void refreshQuietly(String trigger) {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("⚠️ No se pudo reconstruir el snapshot de cuentas ({}): {}", trigger, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Caché en proceso de la consulta de cuenta por número (AccountLookupCache).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.account-cache")
+public class AccountCacheProperties {
+
+    // false: cada consulta va a la base
+    private boolean enabled = true;
+
+    // Entradas como máximo; al superarlo se descarta la menos usada
+    private int maximumSize = 10_000;
+
+    // Vigencia desde la carga: acota lo desactualizado si el cambio no pasó por AccountUpsertWriter
+    private Duration ttl = Duration.ofSeconds(60);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public int getMaximumSize() { return maximumSize; }
+    public void setMaximumSize(int maximumSize) { this.maximumSize = maximumSize; }
+    public Duration getTtl() { return ttl; }
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+}
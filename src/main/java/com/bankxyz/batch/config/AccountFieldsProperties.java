@@ -0,0 +1,25 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Campos por defecto de las respuestas de cuentas según el rol del canal (AccountFieldSelector).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.account-fields")
+public class AccountFieldsProperties {
+
+    // Rol (sin prefijo ROLE_) → campos JSON; los roles sin entrada reciben la cuenta completa
+    private Map<String, List<String>> roleDefaults = new HashMap<>(Map.of(
+        "ATM", List.of("accountNumber", "balance"),
+        "MOBILE", List.of("accountNumber", "ownerName", "type", "balance")
+    ));
+
+    public Map<String, List<String>> getRoleDefaults() { return roleDefaults; }
+    public void setRoleDefaults(Map<String, List<String>> roleDefaults) { this.roleDefaults = roleDefaults; }
+}
@@ -0,0 +1,29 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Particionado de monthlyInterestStep por hash de cuenta_id: cada partición es dueña de un
+ * subconjunto disjunto de cuentas y la procesa un solo hilo.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.account-partition")
+public class AccountPartitionProperties {
+
+    private boolean enabled = false;
+
+    // Cantidad de particiones (archivos por hash de cuenta_id)
+    private int partitions = 4;
+
+    // Directorio de los archivos por partición: debe sobrevivir a un reinicio del proceso, porque el
+    // reinicio del step reutiliza las particiones pendientes sin volver a repartir
+    private String workDir = "./state/partitions";
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public int getPartitions() { return partitions; }
+    public void setPartitions(int partitions) { this.partitions = partitions; }
+    public String getWorkDir() { return workDir; }
+    public void setWorkDir(String workDir) { this.workDir = workDir; }
+}
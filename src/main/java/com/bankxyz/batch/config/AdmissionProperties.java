@@ -0,0 +1,52 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuración de la cola de admisión de jobs lanzados por HTTP (/jobs/**).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.admission")
+public class AdmissionProperties {
+
+    // Solicitudes en espera como máximo; con la cola llena se responde 429 con Retry-After
+    private int queueCapacity = 20;
+
+    // Ejecuciones simultáneas por job (si no hay valor explícito en maxConcurrency)
+    private int defaultMaxConcurrency = 1;
+    private Map<String, Integer> maxConcurrency = new HashMap<>();
+
+    // Prioridad por job cuando la solicitud no trae una (mayor = antes)
+    private Map<String, Integer> priority = new HashMap<>();
+
+    private Duration retryAfter = Duration.ofSeconds(30);
+
+    // Revisión periódica de ejecuciones terminadas para liberar cupos
+    private Duration dispatchInterval = Duration.ofMillis(500);
+
+    public int maxConcurrencyFor(String jobName) {
+        return Math.max(1, maxConcurrency.getOrDefault(jobName, defaultMaxConcurrency));
+    }
+
+    public int priorityFor(String jobName) {
+        return priority.getOrDefault(jobName, 0);
+    }
+
+    public int getQueueCapacity() { return queueCapacity; }
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+    public int getDefaultMaxConcurrency() { return defaultMaxConcurrency; }
+    public void setDefaultMaxConcurrency(int defaultMaxConcurrency) { this.defaultMaxConcurrency = defaultMaxConcurrency; }
+    public Map<String, Integer> getMaxConcurrency() { return maxConcurrency; }
+    public void setMaxConcurrency(Map<String, Integer> maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+    public Map<String, Integer> getPriority() { return priority; }
+    public void setPriority(Map<String, Integer> priority) { this.priority = priority; }
+    public Duration getRetryAfter() { return retryAfter; }
+    public void setRetryAfter(Duration retryAfter) { this.retryAfter = retryAfter; }
+    public Duration getDispatchInterval() { return dispatchInterval; }
+    public void setDispatchInterval(Duration dispatchInterval) { this.dispatchInterval = dispatchInterval; }
+}
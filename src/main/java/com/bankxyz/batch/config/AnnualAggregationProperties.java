@@ -0,0 +1,35 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración del modo de agregación de annualAccountsJob.
+ * ROWS: una fila de annual_account_data por línea del CSV (comportamiento original).
+ * AGGREGATE: un AnnualStatement por (cuenta, año) agregado en memoria con spill a disco.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.annual")
+public class AnnualAggregationProperties {
+
+    public enum Mode { ROWS, AGGREGATE }
+
+    private Mode mode = Mode.ROWS;
+
+    // Presupuesto de memoria de la tabla hash antes de volcar una corrida ordenada a disco
+    private long memoryBudgetBytes = 64L * 1024 * 1024;
+
+    // Directorio para las corridas parciales (vacío = java.io.tmpdir)
+    private String spillDir = "";
+
+    private int writeBatchSize = 1000;
+
+    public Mode getMode() { return mode; }
+    public void setMode(Mode mode) { this.mode = mode; }
+    public long getMemoryBudgetBytes() { return memoryBudgetBytes; }
+    public void setMemoryBudgetBytes(long memoryBudgetBytes) { this.memoryBudgetBytes = memoryBudgetBytes; }
+    public String getSpillDir() { return spillDir; }
+    public void setSpillDir(String spillDir) { this.spillDir = spillDir; }
+    public int getWriteBatchSize() { return writeBatchSize; }
+    public void setWriteBatchSize(int writeBatchSize) { this.writeBatchSize = writeBatchSize; }
+}
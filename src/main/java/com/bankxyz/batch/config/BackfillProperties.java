@@ -0,0 +1,57 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuración del reproceso histórico de transacciones (dailyReportBackfillJob).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.backfill")
+public class BackfillProperties {
+
+    // Directorio de archivos archivados (vacío: <dataDir>/archive)
+    private String archiveDir = "";
+
+    // Nombre de cada archivo diario; {date} se reemplaza con la fecha en formato dateFormat
+    private String filePattern = "transacciones_{date}.csv";
+    private String dateFormat = "yyyy-MM-dd";
+
+    // Presupuesto de lectura/escritura (0 = sin límite)
+    private double rowsPerSecond = 2000;
+    private double megabytesPerSecond = 1.0;
+
+    // Tamaño de chunk fijo: el adaptativo competiría con el throttle
+    private int chunkSize = 100;
+
+    // Latencia de escritura por chunk (promedio móvil) por encima de la cual se frena
+    private Duration latencyThreshold = Duration.ofMillis(250);
+
+    // Factor multiplicativo de la tasa al superar el umbral, piso de la tasa y recuperación por chunk
+    private double backoffFactor = 0.5;
+    private double minRateFraction = 0.1;
+    private double recoveryStep = 0.05;
+
+    public String getArchiveDir() { return archiveDir; }
+    public void setArchiveDir(String archiveDir) { this.archiveDir = archiveDir; }
+    public String getFilePattern() { return filePattern; }
+    public void setFilePattern(String filePattern) { this.filePattern = filePattern; }
+    public String getDateFormat() { return dateFormat; }
+    public void setDateFormat(String dateFormat) { this.dateFormat = dateFormat; }
+    public double getRowsPerSecond() { return rowsPerSecond; }
+    public void setRowsPerSecond(double rowsPerSecond) { this.rowsPerSecond = rowsPerSecond; }
+    public double getMegabytesPerSecond() { return megabytesPerSecond; }
+    public void setMegabytesPerSecond(double megabytesPerSecond) { this.megabytesPerSecond = megabytesPerSecond; }
+    public int getChunkSize() { return chunkSize; }
+    public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+    public Duration getLatencyThreshold() { return latencyThreshold; }
+    public void setLatencyThreshold(Duration latencyThreshold) { this.latencyThreshold = latencyThreshold; }
+    public double getBackoffFactor() { return backoffFactor; }
+    public void setBackoffFactor(double backoffFactor) { this.backoffFactor = backoffFactor; }
+    public double getMinRateFraction() { return minRateFraction; }
+    public void setMinRateFraction(double minRateFraction) { this.minRateFraction = minRateFraction; }
+    public double getRecoveryStep() { return recoveryStep; }
+    public void setRecoveryStep(double recoveryStep) { this.recoveryStep = recoveryStep; }
+}
@@ -0,0 +1,55 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Feed SSE de cambios de saldo para los BFF (BalanceChangeFeed).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.balance-feed")
+public class BalanceFeedProperties {
+
+    private boolean enabled = true;
+
+    // Cambios de una misma cuenta dentro de la ventana se envían una sola vez (el último saldo)
+    private Duration coalesceWindow = Duration.ofMillis(200);
+
+    // Eventos retenidos para reanudar con Last-Event-ID; más atrás el cliente recibe "reset"
+    private int bufferSize = 65_536;
+
+    // Eventos por suscriptor en cada tick: un cliente que reanuda muy atrás se pone al día en varios ticks
+    private int maxEventsPerTick = 1_000;
+
+    // Eventos encolados por suscriptor a la espera del socket; si sigue llena en el tick siguiente
+    // el suscriptor se desconecta y reanuda con Last-Event-ID
+    private int outboundQueueSize = 2_000;
+
+    // Comentario SSE en conexiones inactivas para que proxies y balanceadores no las corten
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    // Vida de cada conexión; EventSource reconecta solo y reanuda desde el último id
+    private Duration connectionTimeout = Duration.ofMinutes(30);
+
+    // Conexiones simultáneas (los consumidores son los BFF, no los usuarios finales)
+    private int maxSubscribers = 32;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Duration getCoalesceWindow() { return coalesceWindow; }
+    public void setCoalesceWindow(Duration coalesceWindow) { this.coalesceWindow = coalesceWindow; }
+    public int getBufferSize() { return bufferSize; }
+    public void setBufferSize(int bufferSize) { this.bufferSize = bufferSize; }
+    public int getMaxEventsPerTick() { return maxEventsPerTick; }
+    public void setMaxEventsPerTick(int maxEventsPerTick) { this.maxEventsPerTick = maxEventsPerTick; }
+    public int getOutboundQueueSize() { return outboundQueueSize; }
+    public void setOutboundQueueSize(int outboundQueueSize) { this.outboundQueueSize = outboundQueueSize; }
+    public Duration getHeartbeatInterval() { return heartbeatInterval; }
+    public void setHeartbeatInterval(Duration heartbeatInterval) { this.heartbeatInterval = heartbeatInterval; }
+    public Duration getConnectionTimeout() { return connectionTimeout; }
+    public void setConnectionTimeout(Duration connectionTimeout) { this.connectionTimeout = connectionTimeout; }
+    public int getMaxSubscribers() { return maxSubscribers; }
+    public void setMaxSubscribers(int maxSubscribers) { this.maxSubscribers = maxSubscribers; }
+}
@@ -0,0 +1,60 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Admisión por canal de /api/** (ChannelAdmissionFilter): tasa y concurrencia por rol.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.channel-admission")
+public class ChannelAdmissionProperties {
+
+    private boolean enabled = true;
+
+    // Rol (sin prefijo ROLE_) → límites; el orden decide el canal de un usuario con varios roles
+    private Map<String, Limits> channels = new LinkedHashMap<>(Map.of(
+        "ADMIN", new Limits(100, 200, 8),
+        "USER", new Limits(200, 400, 16),
+        "MOBILE", new Limits(500, 1000, 24),
+        "ATM", new Limits(300, 300, 24)
+    ));
+
+    // Peticiones sin rol configurado (incluye /api/auth/login anónimo)
+    private Limits defaultLimits = new Limits(50, 100, 8);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Map<String, Limits> getChannels() { return channels; }
+    public void setChannels(Map<String, Limits> channels) { this.channels = channels; }
+    public Limits getDefaultLimits() { return defaultLimits; }
+    public void setDefaultLimits(Limits defaultLimits) { this.defaultLimits = defaultLimits; }
+
+    public static class Limits {
+        // Peticiones por segundo sostenidas (0 = sin límite de tasa)
+        private double ratePerSecond;
+        // Ráfaga admitida por encima de la tasa
+        private int burst;
+        // Peticiones en curso a la vez (0 = sin límite)
+        private int maxConcurrent;
+
+        public Limits() {
+        }
+
+        public Limits(double ratePerSecond, int burst, int maxConcurrent) {
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public double getRatePerSecond() { return ratePerSecond; }
+        public void setRatePerSecond(double ratePerSecond) { this.ratePerSecond = ratePerSecond; }
+        public int getBurst() { return burst; }
+        public void setBurst(int burst) { this.burst = burst; }
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+    }
+}
@@ -0,0 +1,78 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuración del tamaño de chunk adaptativo (AdaptiveCompletionPolicy).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.chunk")
+public class ChunkProperties {
+
+    // false: cada step usa el tamaño inicial de su job sin ajustarlo
+    private boolean adaptive = true;
+
+    // Chunks confirmados que se promedian antes de decidir un ajuste
+    private int samplesPerAdjustment = 3;
+
+    private double growthFactor = 1.5;
+    private double shrinkFactor = 0.5;
+
+    // Mejora mínima de la latencia por ítem (fracción) para seguir creciendo
+    private double improvementThreshold = 0.05;
+
+    // Cambios de tamaño conservados en el contexto del step
+    private int historySize = 64;
+
+    // Límites por nombre de job
+    private Map<String, Bounds> jobs = new HashMap<>(Map.of(
+        "dailyReportJob", new Bounds(10, 10, 1000),
+        "monthlyInterestJob", new Bounds(5, 5, 500),
+        "annualAccountsJob", new Bounds(8, 8, 1000)
+    ));
+
+    public Bounds boundsFor(String jobName) {
+        return jobs.getOrDefault(jobName, new Bounds(5, 5, 500));
+    }
+
+    public boolean isAdaptive() { return adaptive; }
+    public void setAdaptive(boolean adaptive) { this.adaptive = adaptive; }
+    public int getSamplesPerAdjustment() { return samplesPerAdjustment; }
+    public void setSamplesPerAdjustment(int samplesPerAdjustment) { this.samplesPerAdjustment = samplesPerAdjustment; }
+    public double getGrowthFactor() { return growthFactor; }
+    public void setGrowthFactor(double growthFactor) { this.growthFactor = growthFactor; }
+    public double getShrinkFactor() { return shrinkFactor; }
+    public void setShrinkFactor(double shrinkFactor) { this.shrinkFactor = shrinkFactor; }
+    public double getImprovementThreshold() { return improvementThreshold; }
+    public void setImprovementThreshold(double improvementThreshold) { this.improvementThreshold = improvementThreshold; }
+    public int getHistorySize() { return historySize; }
+    public void setHistorySize(int historySize) { this.historySize = historySize; }
+    public Map<String, Bounds> getJobs() { return jobs; }
+    public void setJobs(Map<String, Bounds> jobs) { this.jobs = jobs; }
+
+    public static class Bounds {
+        private int initial;
+        private int min;
+        private int max;
+
+        public Bounds() {
+        }
+
+        public Bounds(int initial, int min, int max) {
+            this.initial = initial;
+            this.min = min;
+            this.max = max;
+        }
+
+        public int getInitial() { return initial; }
+        public void setInitial(int initial) { this.initial = initial; }
+        public int getMin() { return min; }
+        public void setMin(int min) { this.min = min; }
+        public int getMax() { return max; }
+        public void setMax(int max) { this.max = max; }
+    }
+}
@@ -0,0 +1,37 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de la detección de tx_id duplicados (Bloom filter persistente) en dailyReportJob.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.dedup")
+public class DedupProperties {
+
+    // false: sin Bloom filter; los duplicados solo se detectan cuando el índice único rechaza el insert
+    private boolean enabled = true;
+
+    // Directorio donde se persisten las capas del Bloom filter entre ejecuciones
+    private String bloomDir = "./state/bloom";
+
+    // Capacidad y tasa de falsos positivos de la primera capa; las siguientes crecen y se ajustan
+    private long initialCapacity = 1_000_000;
+    private double falsePositiveRate = 0.001;
+    private int growthFactor = 2;
+    private double tighteningRatio = 0.5;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public String getBloomDir() { return bloomDir; }
+    public void setBloomDir(String bloomDir) { this.bloomDir = bloomDir; }
+    public long getInitialCapacity() { return initialCapacity; }
+    public void setInitialCapacity(long initialCapacity) { this.initialCapacity = initialCapacity; }
+    public double getFalsePositiveRate() { return falsePositiveRate; }
+    public void setFalsePositiveRate(double falsePositiveRate) { this.falsePositiveRate = falsePositiveRate; }
+    public int getGrowthFactor() { return growthFactor; }
+    public void setGrowthFactor(int growthFactor) { this.growthFactor = growthFactor; }
+    public double getTighteningRatio() { return tighteningRatio; }
+    public void setTighteningRatio(double tighteningRatio) { this.tighteningRatio = tighteningRatio; }
+}
@@ -0,0 +1,43 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuración del TaskExecutor de los steps batch y del cupo de chunks concurrentes por step.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.executor")
+public class ExecutorProperties {
+
+    public enum Mode { PLATFORM, VIRTUAL }
+
+    // PLATFORM: pool fijo de hilos; VIRTUAL: un hilo virtual por chunk (requiere Java 21+)
+    private Mode mode = Mode.PLATFORM;
+
+    private int corePoolSize = 3;
+    private int maxPoolSize = 5;
+    private int queueCapacity = 100;
+
+    // Conexiones del pool batch que no se asignan a chunks (JobRepository, lanzadores)
+    private int reservedConnections = 2;
+
+    // Cupo explícito de chunks concurrentes por nombre de step (si no, se deriva del pool batch)
+    private Map<String, Integer> stepConcurrency = new HashMap<>();
+
+    public Mode getMode() { return mode; }
+    public void setMode(Mode mode) { this.mode = mode; }
+    public int getCorePoolSize() { return corePoolSize; }
+    public void setCorePoolSize(int corePoolSize) { this.corePoolSize = corePoolSize; }
+    public int getMaxPoolSize() { return maxPoolSize; }
+    public void setMaxPoolSize(int maxPoolSize) { this.maxPoolSize = maxPoolSize; }
+    public int getQueueCapacity() { return queueCapacity; }
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+    public int getReservedConnections() { return reservedConnections; }
+    public void setReservedConnections(int reservedConnections) { this.reservedConnections = reservedConnections; }
+    public Map<String, Integer> getStepConcurrency() { return stepConcurrency; }
+    public void setStepConcurrency(Map<String, Integer> stepConcurrency) { this.stepConcurrency = stepConcurrency; }
+}
@@ -0,0 +1,53 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuración del particionado remoto de dailyReportJob entre varias instancias
+ * que comparten la misma base PostgreSQL (cola de trabajo batch_partition_work).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.partition")
+public class PartitionProperties {
+
+    // NONE: step local; MANAGER: publica particiones y espera; WORKER: reclama y ejecuta particiones
+    public enum Role { NONE, MANAGER, WORKER }
+
+    private Role role = Role.NONE;
+
+    // Cantidad de rangos de bytes en que se divide transacciones.csv
+    private int gridSize = 4;
+
+    // Identificador del worker en la cola (vacío = host:pid)
+    private String workerId = "";
+
+    private Duration pollInterval = Duration.ofSeconds(1);
+    private Duration heartbeatInterval = Duration.ofSeconds(5);
+
+    // Sin heartbeat durante este lapso la partición vuelve a PENDING para otro worker
+    private Duration leaseTimeout = Duration.ofSeconds(30);
+    private int maxAttempts = 3;
+
+    // Espera máxima del manager por el total de particiones
+    private Duration managerTimeout = Duration.ofHours(6);
+
+    public Role getRole() { return role; }
+    public void setRole(Role role) { this.role = role; }
+    public int getGridSize() { return gridSize; }
+    public void setGridSize(int gridSize) { this.gridSize = gridSize; }
+    public String getWorkerId() { return workerId; }
+    public void setWorkerId(String workerId) { this.workerId = workerId; }
+    public Duration getPollInterval() { return pollInterval; }
+    public void setPollInterval(Duration pollInterval) { this.pollInterval = pollInterval; }
+    public Duration getHeartbeatInterval() { return heartbeatInterval; }
+    public void setHeartbeatInterval(Duration heartbeatInterval) { this.heartbeatInterval = heartbeatInterval; }
+    public Duration getLeaseTimeout() { return leaseTimeout; }
+    public void setLeaseTimeout(Duration leaseTimeout) { this.leaseTimeout = leaseTimeout; }
+    public int getMaxAttempts() { return maxAttempts; }
+    public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+    public Duration getManagerTimeout() { return managerTimeout; }
+    public void setManagerTimeout(Duration managerTimeout) { this.managerTimeout = managerTimeout; }
+}
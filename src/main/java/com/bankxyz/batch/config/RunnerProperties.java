@@ -0,0 +1,28 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuración de BatchJobRunner: concurrencia entre jobs y dependencias declaradas.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.runner")
+public class RunnerProperties {
+
+    // Jobs ejecutándose a la vez como máximo; sus chunks comparten el presupuesto de conexiones del
+    // pool batch (ver StepConcurrencyLimiter) y no se lanzan más jobs que conexiones en el presupuesto
+    private int maxConcurrentJobs = 3;
+
+    // Dependencias por nombre de job, p. ej. annualAccountsJob: [monthlyInterestJob]
+    private Map<String, List<String>> dependsOn = new HashMap<>();
+
+    public int getMaxConcurrentJobs() { return maxConcurrentJobs; }
+    public void setMaxConcurrentJobs(int maxConcurrentJobs) { this.maxConcurrentJobs = maxConcurrentJobs; }
+    public Map<String, List<String>> getDependsOn() { return dependsOn; }
+    public void setDependsOn(Map<String, List<String>> dependsOn) { this.dependsOn = dependsOn; }
+}
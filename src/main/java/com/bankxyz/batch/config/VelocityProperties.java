@@ -0,0 +1,50 @@
+package com.bankxyz.batch.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Configuración de la detección de velocidad (ráfagas de transacciones por clave)
+ * usada por dailyReportJob.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "bankxyz.velocity")
+public class VelocityProperties {
+
+    private boolean enabled = true;
+
+    // Ventana deslizante en días (un bucket del ring buffer por día)
+    private int windowDays = 7;
+
+    // Umbrales de la ventana: cantidad de transacciones y suma absoluta de montos
+    private int maxCount = 50;
+    private BigDecimal maxAmount = new BigDecimal("250000");
+
+    // Tope de memoria del state store y TTL de claves inactivas
+    private long maxMemoryBytes = 16L * 1024 * 1024;
+    private Duration ttl = Duration.ofHours(1);
+
+    // Spill opcional a archivo mapeado en memoria (vacío = deshabilitado)
+    private String spillFile = "";
+    private int spillSlots = 1 << 16;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public int getWindowDays() { return windowDays; }
+    public void setWindowDays(int windowDays) { this.windowDays = windowDays; }
+    public int getMaxCount() { return maxCount; }
+    public void setMaxCount(int maxCount) { this.maxCount = maxCount; }
+    public BigDecimal getMaxAmount() { return maxAmount; }
+    public void setMaxAmount(BigDecimal maxAmount) { this.maxAmount = maxAmount; }
+    public long getMaxMemoryBytes() { return maxMemoryBytes; }
+    public void setMaxMemoryBytes(long maxMemoryBytes) { this.maxMemoryBytes = maxMemoryBytes; }
+    public Duration getTtl() { return ttl; }
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+    public String getSpillFile() { return spillFile; }
+    public void setSpillFile(String spillFile) { this.spillFile = spillFile; }
+    public int getSpillSlots() { return spillSlots; }
+    public void setSpillSlots(int spillSlots) { this.spillSlots = spillSlots; }
+}
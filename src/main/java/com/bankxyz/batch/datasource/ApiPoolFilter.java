@@ -0,0 +1,37 @@
+package com.bankxyz.batch.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Marca las peticiones de los BFF (/api/**) para que tomen conexiones del pool API.
+ * Va antes que la cadena de seguridad para cubrir cualquier acceso a datos de la petición.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ApiPoolFilter extends OncePerRequestFilter {
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        PoolRoutingDataSource.use(PoolRoutingDataSource.Pool.API);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            PoolRoutingDataSource.clear();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.bankxyz.batch.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Pools de conexiones separados (bulkheads) para el tráfico batch y el de la API.
+ *
+ * Ambos pools usan la URL y credenciales de spring.datasource; tamaño y timeouts se
+ * configuran por separado en bankxyz.datasource.batch y bankxyz.datasource.api. Al ser beans
+ * HikariDataSource, actuator publica hikaricp.connections.* por pool (tag pool=batch-pool/api-pool).
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    @Bean
+    @ConfigurationProperties(prefix = "bankxyz.datasource.batch")
+    public HikariDataSource batchDataSource(DataSourceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return pool("batch-pool", properties, meterRegistry);
+    }
+
+    @Bean
+    @ConfigurationProperties(prefix = "bankxyz.datasource.api")
+    public HikariDataSource apiDataSource(DataSourceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return pool("api-pool", properties, meterRegistry);
+    }
+
+    /**
+     * DataSource por defecto (JPA, JdbcTemplate, JobRepository, Flyway): enruta al pool batch
+     * salvo en las peticiones marcadas por {@link ApiPoolFilter}.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("batchDataSource") HikariDataSource batchDataSource,
+                                 @Qualifier("apiDataSource") HikariDataSource apiDataSource) {
+        PoolRoutingDataSource routing = new PoolRoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+            PoolRoutingDataSource.Pool.BATCH, batchDataSource,
+            PoolRoutingDataSource.Pool.API, apiDataSource));
+        routing.setDefaultTargetDataSource(batchDataSource);
+        routing.afterPropertiesSet();
+        logger.info("🔌 Pools de conexiones: batch max {} (timeout {} ms), api max {} (timeout {} ms)",
+            batchDataSource.getMaximumPoolSize(), batchDataSource.getConnectionTimeout(),
+            apiDataSource.getMaximumPoolSize(), apiDataSource.getConnectionTimeout());
+        return routing;
+    }
+
+    // Las métricas se enlazan antes de que Flyway o JPA abran el pool (luego Hikari no lo permite)
+    private static HikariDataSource pool(String name, DataSourceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(name);
+        meterRegistry.ifAvailable(registry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return dataSource;
+    }
+}
@@ -0,0 +1,34 @@
+package com.bankxyz.batch.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * DataSource único para JPA, JdbcTemplate y el JobRepository que entrega conexiones del pool
+ * batch o del pool API según el hilo que las pide.
+ * REQUERIMIENTO: "Que los writers de dailyReportJob no se lleven las conexiones de la API"
+ *
+ * Un solo EntityManagerFactory y un solo PlatformTransactionManager siguen cubriendo ambos
+ * tráficos: la conexión se elige al abrirse la transacción, así que el commit del chunk y la
+ * actualización del JobRepository quedan en la misma conexión del pool batch.
+ */
+public class PoolRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Pool { BATCH, API }
+
+    // Sin marca (steps, lanzadores, /jobs/**) se usa el pool batch
+    private static final ThreadLocal<Pool> CURRENT = new ThreadLocal<>();
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Pool pool = CURRENT.get();
+        return pool != null ? pool : Pool.BATCH;
+    }
+
+    public static void use(Pool pool) {
+        CURRENT.set(pool);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,175 @@
+package com.bankxyz.batch.dedup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Capa de Bloom filter bloqueado (blocked Bloom filter) persistida en un archivo mapeado en memoria.
+ *
+ * Todos los bits de una clave caen en un mismo bloque de 512 bits (una línea de caché), así cada
+ * consulta cuesta un solo acceso a memoria aun con cientos de millones de claves. Los bits se
+ * fijan con operaciones atómicas sobre el buffer mapeado, sin locks.
+ */
+final class MappedBloomFilter implements Closeable {
+
+    // v02: bits dentro del bloque con un mezclador por hash (v01 usaba doble hashing sobre 9 bits)
+    private static final long MAGIC = 0x424C4F4F4D463032L; // "BLOOMF02"
+    private static final int HEADER_BYTES = 64;
+    private static final int BLOCK_BITS = 512;
+    private static final int BLOCK_BYTES = BLOCK_BITS / 8;
+    private static final long MAX_DATA_BYTES = 1L << 30;
+
+    private static final VarHandle LONGS =
+        MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long numBlocks;
+    private final int numHashes;
+    private final long capacity;
+    private final AtomicLong count;
+
+    private MappedBloomFilter(FileChannel channel, MappedByteBuffer buffer, long numBlocks,
+                              int numHashes, long capacity, long count) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.numBlocks = numBlocks;
+        this.numHashes = numHashes;
+        this.capacity = capacity;
+        this.count = new AtomicLong(count);
+    }
+
+    /**
+     * Crea una capa nueva dimensionada para {@code capacity} claves con la tasa de falsos positivos dada.
+     */
+    static MappedBloomFilter create(Path file, long capacity, double fpp) throws IOException {
+        double bits = -capacity * Math.log(fpp) / (Math.log(2) * Math.log(2));
+        int numHashes = (int) Math.max(1, Math.min(16, Math.round(bits / capacity * Math.log(2))));
+        long numBlocks = Math.max(1, (long) Math.ceil(bits / BLOCK_BITS));
+        // Con bloques de una línea de caché la carga por bloque varía (Poisson) y la tasa real supera a la
+        // teórica, más cuanto más estricta: se agregan bloques hasta que la tasa esperada baje de la pedida
+        while (numBlocks < MAX_DATA_BYTES / BLOCK_BYTES
+            && blockedFpp((double) capacity / numBlocks, numHashes) > fpp) {
+            numBlocks = (long) Math.ceil(numBlocks * 1.05);
+        }
+        numBlocks = Math.min(numBlocks, MAX_DATA_BYTES / BLOCK_BYTES);
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+            HEADER_BYTES + numBlocks * BLOCK_BYTES);
+        buffer.putLong(0, MAGIC);
+        buffer.putLong(8, numBlocks);
+        buffer.putInt(16, numHashes);
+        buffer.putLong(24, capacity);
+        buffer.putLong(32, 0L);
+        return new MappedBloomFilter(channel, buffer, numBlocks, numHashes, capacity, 0L);
+    }
+
+    /**
+     * Abre una capa existente conservando sus bits y su contador.
+     */
+    static MappedBloomFilter open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Files.size(file));
+        if (buffer.getLong(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Archivo de Bloom filter inválido: " + file);
+        }
+        return new MappedBloomFilter(channel, buffer, buffer.getLong(8), buffer.getInt(16),
+            buffer.getLong(24), buffer.getLong(32));
+    }
+
+    /** Indica si el archivo es una capa del formato actual (las de formatos anteriores se descartan). */
+    static boolean isCurrentFormat(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            return channel.read(header, 0) == 8 && header.getLong(0) == MAGIC;
+        }
+    }
+
+    boolean mightContain(long h1, long h2) {
+        long base = blockOffset(h1);
+        for (int i = 0; i < numHashes; i++) {
+            int bit = bitInBlock(h2, i);
+            long word = (long) LONGS.getOpaque(buffer, (int) (base + ((bit >>> 6) << 3)));
+            if ((word & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void put(long h1, long h2) {
+        long base = blockOffset(h1);
+        boolean changed = false;
+        for (int i = 0; i < numHashes; i++) {
+            int bit = bitInBlock(h2, i);
+            long mask = 1L << (bit & 63);
+            long previous = (long) LONGS.getAndBitwiseOr(buffer, (int) (base + ((bit >>> 6) << 3)), mask);
+            changed |= (previous & mask) == 0;
+        }
+        if (changed) {
+            count.incrementAndGet();
+        }
+    }
+
+    boolean isFull() {
+        return count.get() >= capacity;
+    }
+
+    long getCapacity() { return capacity; }
+    long getCount() { return count.get(); }
+
+    /**
+     * Tasa de falsos positivos esperada de un filtro bloqueado con {@code keysPerBlock} claves por bloque
+     * en promedio: suma sobre la carga de cada bloque (Poisson) la tasa de un Bloom filter de 512 bits.
+     */
+    static double blockedFpp(double keysPerBlock, int numHashes) {
+        double total = 0;
+        double poisson = Math.exp(-keysPerBlock);
+        int limit = (int) Math.ceil(keysPerBlock + 10 * Math.sqrt(keysPerBlock) + 10);
+        for (int load = 0; load <= limit; load++) {
+            if (load > 0) {
+                poisson *= keysPerBlock / load;
+            }
+            double setBit = 1 - Math.pow(1 - 1.0 / BLOCK_BITS, (double) numHashes * load);
+            total += poisson * Math.pow(setBit, numHashes);
+        }
+        return total;
+    }
+
+    /** Persiste el contador en la cabecera y fuerza las páginas sucias a disco. */
+    void flush() {
+        buffer.putLong(32, count.get());
+        buffer.force();
+    }
+
+    private long blockOffset(long h1) {
+        return HEADER_BYTES + Math.floorMod(h1, numBlocks) * BLOCK_BYTES;
+    }
+
+    // Un mezclador por hash sobre h2: el doble hashing sobre 9 bits daba posiciones correlacionadas y
+    // la tasa real no bajaba de ~0.07% aunque se pidiera menos
+    private static int bitInBlock(long h2, int i) {
+        long x = h2 + i * 0x9E3779B97F4A7C15L;
+        x = (x ^ (x >>> 32)) * 0xD6E8FEB86659FD93L;
+        return (int) (x >>> 55);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
@@ -0,0 +1,150 @@
+package com.bankxyz.batch.dedup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Bloom filter escalable y persistente: una secuencia de capas mapeadas en memoria.
+ *
+ * Cuando la última capa alcanza su capacidad se agrega otra con más capacidad y una tasa de
+ * falsos positivos más estricta, de modo que la tasa total queda acotada aunque el volumen de
+ * claves crezca sin límite conocido. Las capas sobreviven entre ejecuciones en {@code dir}.
+ */
+public final class ScalableBloomFilter implements Closeable {
+
+    private static final String LAYER_PREFIX = "bloom-";
+    private static final String LAYER_SUFFIX = ".bin";
+
+    private final Path dir;
+    private final long initialCapacity;
+    private final double initialFpp;
+    private final int growthFactor;
+    private final double tighteningRatio;
+    private final List<MappedBloomFilter> layers = new CopyOnWriteArrayList<>();
+
+    public ScalableBloomFilter(Path dir, long initialCapacity, double fpp,
+                               int growthFactor, double tighteningRatio) throws IOException {
+        this.dir = dir;
+        this.initialCapacity = initialCapacity;
+        this.initialFpp = fpp;
+        this.growthFactor = Math.max(1, growthFactor);
+        this.tighteningRatio = tighteningRatio;
+
+        Files.createDirectories(dir);
+        discardObsoleteLayers();
+        for (int i = 0; Files.exists(layerPath(i)); i++) {
+            layers.add(MappedBloomFilter.open(layerPath(i)));
+        }
+        if (layers.isEmpty()) {
+            addLayer();
+        }
+    }
+
+    public boolean mightContain(String key) {
+        long h1 = hash(key, 0x2545F4914F6CDD1DL);
+        long h2 = hash(key, 0x9E3779B97F4A7C15L);
+        // Las capas recientes reciben las claves nuevas: se consultan primero
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            if (layers.get(i).mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(String key) {
+        long h1 = hash(key, 0x2545F4914F6CDD1DL);
+        long h2 = hash(key, 0x9E3779B97F4A7C15L);
+        MappedBloomFilter last = layers.get(layers.size() - 1);
+        if (last.isFull()) {
+            last = growIfNeeded(last);
+        }
+        last.put(h1, h2);
+    }
+
+    public int getLayerCount() {
+        return layers.size();
+    }
+
+    public long getApproximateCount() {
+        long total = 0;
+        for (MappedBloomFilter layer : layers) {
+            total += layer.getCount();
+        }
+        return total;
+    }
+
+    public void flush() {
+        layers.forEach(MappedBloomFilter::flush);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (MappedBloomFilter layer : layers) {
+            layer.close();
+        }
+    }
+
+    private synchronized MappedBloomFilter growIfNeeded(MappedBloomFilter full) {
+        MappedBloomFilter last = layers.get(layers.size() - 1);
+        if (last != full || !last.isFull()) {
+            return last;
+        }
+        try {
+            return addLayer();
+        } catch (IOException e) {
+            // Sin espacio para una nueva capa se sigue usando la última (aumenta la tasa de falsos positivos)
+            return last;
+        }
+    }
+
+    private MappedBloomFilter addLayer() throws IOException {
+        int index = layers.size();
+        long capacity = initialCapacity;
+        double fpp = initialFpp;
+        for (int i = 0; i < index; i++) {
+            capacity *= growthFactor;
+            fpp *= tighteningRatio;
+        }
+        MappedBloomFilter layer = MappedBloomFilter.create(layerPath(index), capacity, fpp);
+        layers.add(layer);
+        return layer;
+    }
+
+    // Capas de un formato anterior no sirven con el cálculo de bits actual: se borran y el filtro
+    // queda vacío, así quien lo abre lo reconstruye desde la tabla
+    private void discardObsoleteLayers() throws IOException {
+        if (!Files.exists(layerPath(0)) || MappedBloomFilter.isCurrentFormat(layerPath(0))) {
+            return;
+        }
+        for (int i = 0; Files.exists(layerPath(i)); i++) {
+            Files.delete(layerPath(i));
+        }
+    }
+
+    private Path layerPath(int index) {
+        return dir.resolve(LAYER_PREFIX + index + LAYER_SUFFIX);
+    }
+
+    // Hash de 64 bits sobre los bytes UTF-8 con finalizador de MurmurHash3
+    static long hash(String key, long seed) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long h = seed ^ (bytes.length * 0xC6A4A7935BD1E995L);
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0xC6A4A7935BD1E995L;
+            h = Long.rotateLeft(h, 31);
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,98 @@
+package com.bankxyz.batch.dedup;
+
+import com.bankxyz.batch.config.DedupProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+
+/**
+ * Bloom filter de tx_id compartido por todos los steps que escriben transaction_legacy.
+ *
+ * Se abre una sola vez por proceso (las capas mapeadas no deben abrirse dos veces). Si al abrirlo
+ * está vacío (primera ejecución o ./state/bloom borrado) se reconstruye desde la tabla, así los
+ * tx_id cargados antes de que existiera el filtro también se detectan.
+ */
+@Component
+public class TxIdBloomFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TxIdBloomFilter.class);
+
+    private static final String TX_IDS_SQL = "SELECT tx_id FROM transaction_legacy WHERE tx_id IS NOT NULL";
+    private static final int FETCH_SIZE = 10_000;
+
+    private final DedupProperties props;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private volatile ScalableBloomFilter filter;
+
+    public TxIdBloomFilter(DedupProperties props, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.props = props;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public ScalableBloomFilter get() {
+        ScalableBloomFilter current = filter;
+        if (current == null) {
+            synchronized (this) {
+                current = filter;
+                if (current == null) {
+                    current = open();
+                    filter = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (filter != null) {
+            filter.close();
+            filter = null;
+        }
+    }
+
+    private ScalableBloomFilter open() {
+        ScalableBloomFilter bloom;
+        try {
+            bloom = new ScalableBloomFilter(Path.of(props.getBloomDir()),
+                props.getInitialCapacity(), props.getFalsePositiveRate(),
+                props.getGrowthFactor(), props.getTighteningRatio());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el Bloom filter en " + props.getBloomDir(), e);
+        }
+        if (bloom.getApproximateCount() == 0) {
+            rebuild(bloom);
+        }
+        return bloom;
+    }
+
+    // PostgreSQL solo usa cursor (fetch size) dentro de una transacción
+    private void rebuild(ScalableBloomFilter bloom) {
+        long start = System.nanoTime();
+        long[] keys = new long[1];
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(TX_IDS_SQL);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            bloom.put(rs.getString(1));
+            keys[0]++;
+        }));
+        bloom.flush();
+        logger.info("🔁 Bloom filter reconstruido desde transaction_legacy: {} tx_id en {} ms ({} capas)",
+            keys[0], (System.nanoTime() - start) / 1_000_000, bloom.getLayerCount());
+    }
+}
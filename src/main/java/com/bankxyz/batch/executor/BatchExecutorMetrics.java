@@ -0,0 +1,70 @@
+package com.bankxyz.batch.executor;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Métricas del pool de los steps y de los cupos de concurrencia por step, para dimensionar
+ * con datos: utilización, profundidad de cola y rechazos ejecutados por CallerRunsPolicy.
+ */
+@Component
+public class BatchExecutorMetrics implements MeterBinder {
+
+    private final TaskExecutor batchTaskExecutor;
+    private final StepConcurrencyLimiter stepConcurrencyLimiter;
+    private final Set<String> boundSteps = ConcurrentHashMap.newKeySet();
+
+    private volatile MeterRegistry registry;
+
+    public BatchExecutorMetrics(@Qualifier("batchTaskExecutor") TaskExecutor batchTaskExecutor,
+                                StepConcurrencyLimiter stepConcurrencyLimiter) {
+        this.batchTaskExecutor = batchTaskExecutor;
+        this.stepConcurrencyLimiter = stepConcurrencyLimiter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        if (batchTaskExecutor instanceof ResizableThreadPoolTaskExecutor pool) {
+            Gauge.builder("batch.executor.pool.size", pool, ResizableThreadPoolTaskExecutor::getPoolSize)
+                .description("Hilos vivos del pool batch").register(registry);
+            Gauge.builder("batch.executor.pool.max", pool, ResizableThreadPoolTaskExecutor::getMaxPoolSize)
+                .description("Máximo de hilos del pool batch").register(registry);
+            Gauge.builder("batch.executor.active", pool, ResizableThreadPoolTaskExecutor::getActiveCount)
+                .description("Hilos ejecutando chunks").register(registry);
+            Gauge.builder("batch.executor.utilization", pool, ResizableThreadPoolTaskExecutor::getUtilization)
+                .description("Hilos activos / máximo del pool").register(registry);
+            Gauge.builder("batch.executor.queue.depth", pool, ResizableThreadPoolTaskExecutor::getQueueDepth)
+                .description("Chunks esperando hilo").register(registry);
+            Gauge.builder("batch.executor.queue.capacity", pool, ResizableThreadPoolTaskExecutor::getCurrentQueueCapacity)
+                .register(registry);
+            FunctionCounter.builder("batch.executor.rejections", pool, ResizableThreadPoolTaskExecutor::getRejections)
+                .description("Tareas rechazadas por el pool y ejecutadas en el hilo llamador (CallerRunsPolicy)")
+                .register(registry);
+        }
+        Gauge.builder("batch.step.connections.available", stepConcurrencyLimiter, StepConcurrencyLimiter::getAvailableConnections)
+            .description("Conexiones del presupuesto de chunks sin usar (pool batch - reservadas)").register(registry);
+        stepConcurrencyLimiter.getExecutors().forEach(this::bindStep);
+        stepConcurrencyLimiter.onNewStep(this::bindStep);
+    }
+
+    // Los steps registran su cupo al construirse el job: se enlazan a medida que aparecen
+    private void bindStep(ConcurrencyLimitedTaskExecutor step) {
+        MeterRegistry current = registry;
+        if (current == null || !boundSteps.add(step.getName())) {
+            return;
+        }
+        Gauge.builder("batch.step.concurrency.limit", step, ConcurrencyLimitedTaskExecutor::getLimit)
+            .tag("step", step.getName()).register(current);
+        Gauge.builder("batch.step.concurrency.inflight", step, ConcurrencyLimitedTaskExecutor::getInFlight)
+            .tag("step", step.getName()).register(current);
+    }
+}
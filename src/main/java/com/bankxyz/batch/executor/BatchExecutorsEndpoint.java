@@ -0,0 +1,108 @@
+package com.bankxyz.batch.executor;
+
+import com.bankxyz.batch.config.ExecutorProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endpoint de actuator para redimensionar en caliente el pool de los steps y el cupo de
+ * chunks concurrentes de cada step (/actuator/batchexecutors).
+ * REQUERIMIENTO: "Más hilos de noche que en horario hábil, sin redeploy"
+ *
+ * Los cambios se escriben en ExecutorProperties (bankxyz.executor.*) y luego se aplican, así
+ * la configuración vigente y la ejecución nunca divergen. Las escrituras requieren rol ADMIN.
+ */
+@Component
+@Endpoint(id = "batchexecutors")
+public class BatchExecutorsEndpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchExecutorsEndpoint.class);
+
+    private final ExecutorProperties props;
+    private final TaskExecutor batchTaskExecutor;
+    private final StepConcurrencyLimiter stepConcurrencyLimiter;
+
+    public BatchExecutorsEndpoint(ExecutorProperties props,
+                                  @Qualifier("batchTaskExecutor") TaskExecutor batchTaskExecutor,
+                                  StepConcurrencyLimiter stepConcurrencyLimiter) {
+        this.props = props;
+        this.batchTaskExecutor = batchTaskExecutor;
+        this.stepConcurrencyLimiter = stepConcurrencyLimiter;
+    }
+
+    @ReadOperation
+    public Map<String, Object> executors() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("mode", props.getMode());
+        if (batchTaskExecutor instanceof ResizableThreadPoolTaskExecutor pool) {
+            Map<String, Object> poolState = new LinkedHashMap<>();
+            poolState.put("corePoolSize", pool.getCorePoolSize());
+            poolState.put("maxPoolSize", pool.getMaxPoolSize());
+            poolState.put("queueCapacity", pool.getCurrentQueueCapacity());
+            poolState.put("poolSize", pool.getPoolSize());
+            poolState.put("activeCount", pool.getActiveCount());
+            poolState.put("queueDepth", pool.getQueueDepth());
+            poolState.put("utilization", pool.getUtilization());
+            poolState.put("callerRunsRejections", pool.getRejections());
+            response.put("pool", poolState);
+        }
+
+        Map<String, Object> steps = new LinkedHashMap<>();
+        for (ConcurrencyLimitedTaskExecutor step : stepConcurrencyLimiter.getExecutors()) {
+            steps.put(step.getName(), Map.of("limit", step.getLimit(), "inFlight", step.getInFlight(),
+                "connectionsPerChunk", step.getConnectionsPerTask()));
+        }
+        response.put("stepConcurrencyCeiling", stepConcurrencyLimiter.ceiling());
+        response.put("availableConnections", stepConcurrencyLimiter.getAvailableConnections());
+        response.put("steps", steps);
+        return response;
+    }
+
+    /**
+     * Redimensiona el pool de los steps; los parámetros omitidos conservan su valor.
+     */
+    @WriteOperation
+    public Map<String, Object> resizePool(@Nullable Integer corePoolSize,
+                                          @Nullable Integer maxPoolSize,
+                                          @Nullable Integer queueCapacity) {
+        if (!(batchTaskExecutor instanceof ResizableThreadPoolTaskExecutor pool)) {
+            throw new IllegalStateException("El executor en modo " + props.getMode() + " no tiene pool redimensionable");
+        }
+        synchronized (props) {
+            if (corePoolSize != null) {
+                props.setCorePoolSize(corePoolSize);
+            }
+            if (maxPoolSize != null) {
+                props.setMaxPoolSize(maxPoolSize);
+            }
+            if (queueCapacity != null) {
+                props.setQueueCapacity(queueCapacity);
+            }
+            pool.resize(props.getCorePoolSize(), props.getMaxPoolSize(), props.getQueueCapacity());
+        }
+        logger.info("🔧 Pool batch redimensionado: Core={}, Max={}, Queue={}",
+            pool.getCorePoolSize(), pool.getMaxPoolSize(), pool.getCurrentQueueCapacity());
+        return executors();
+    }
+
+    /**
+     * Cambia el cupo de chunks concurrentes de un step (también los que están corriendo).
+     */
+    @WriteOperation
+    public Map<String, Object> resizeStep(@Selector String step, int limit) {
+        int applied = stepConcurrencyLimiter.resize(step, limit);
+        logger.info("🔧 Cupo de concurrencia del step {}: {} chunks", step, applied);
+        return executors();
+    }
+}
@@ -0,0 +1,121 @@
+package com.bankxyz.batch.executor;
+
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * TaskExecutor que limita con un semáforo la cantidad de tareas en vuelo sobre un executor compartido.
+ * El hilo que envía la tarea (el que reparte chunks del step) espera hasta que haya cupo.
+ *
+ * Con un presupuesto de conexiones compartido, cada tarea además toma del presupuesto las
+ * conexiones que retiene su chunk; así el total entre steps nunca supera el pool.
+ */
+public class ConcurrencyLimitedTaskExecutor implements TaskExecutor {
+
+    private final String name;
+    private final TaskExecutor delegate;
+    private final ResizableSemaphore permits;
+    private final Semaphore connections;
+    private final int connectionsPerTask;
+    private int limit;
+
+    public ConcurrencyLimitedTaskExecutor(String name, TaskExecutor delegate, int limit) {
+        this(name, delegate, limit, null, 0);
+    }
+
+    /**
+     * @param connections presupuesto de conexiones compartido entre steps (null: sin presupuesto)
+     * @param connectionsPerTask conexiones que retiene cada chunk en vuelo
+     */
+    public ConcurrencyLimitedTaskExecutor(String name, TaskExecutor delegate, int limit,
+                                          Semaphore connections, int connectionsPerTask) {
+        this.name = name;
+        this.delegate = delegate;
+        this.limit = Math.max(1, limit);
+        this.permits = new ResizableSemaphore(this.limit);
+        this.connections = connections;
+        this.connectionsPerTask = connections != null ? Math.max(1, connectionsPerTask) : 0;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TaskRejectedException("Interrumpido esperando cupo de concurrencia en " + name, e);
+        }
+        // Primero el cupo del step: solo pide conexiones una tarea que el step ya puede ejecutar
+        try {
+            if (connections != null) {
+                connections.acquire(connectionsPerTask);
+            }
+        } catch (InterruptedException e) {
+            permits.release();
+            Thread.currentThread().interrupt();
+            throw new TaskRejectedException("Interrumpido esperando conexiones del pool batch en " + name, e);
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    releaseSlot();
+                }
+            });
+        } catch (RuntimeException e) {
+            releaseSlot();
+            throw e;
+        }
+    }
+
+    private void releaseSlot() {
+        if (connections != null) {
+            connections.release(connectionsPerTask);
+        }
+        permits.release();
+    }
+
+    /**
+     * Cambia el cupo en caliente; al reducirlo las tareas en vuelo terminan normalmente.
+     */
+    public synchronized void setLimit(int newLimit) {
+        newLimit = Math.max(1, newLimit);
+        int delta = newLimit - limit;
+        if (delta > 0) {
+            permits.release(delta);
+        } else if (delta < 0) {
+            permits.reducePermits(-delta);
+        }
+        limit = newLimit;
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return Math.max(0, limit - permits.availablePermits());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getConnectionsPerTask() {
+        return connectionsPerTask;
+    }
+
+    private static final class ResizableSemaphore extends Semaphore {
+        ResizableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.bankxyz.batch.executor;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ThreadPoolTaskExecutor redimensionable en caliente: core, max y también la capacidad de la
+ * cola (LinkedBlockingQueue fija su capacidad al crearse, por eso se usa una cola con tope propio).
+ * Cuenta las tareas que la política de rechazo devolvió al hilo llamador.
+ */
+public class ResizableThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
+
+    private final AtomicLong rejections = new AtomicLong();
+    private volatile ResizableCapacityQueue<Runnable> queue;
+
+    @Override
+    protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+        queue = new ResizableCapacityQueue<>(queueCapacity);
+        return queue;
+    }
+
+    @Override
+    public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+        RejectedExecutionHandler delegate = handler != null ? handler : new ThreadPoolExecutor.AbortPolicy();
+        super.setRejectedExecutionHandler((task, executor) -> {
+            rejections.incrementAndGet();
+            delegate.rejectedExecution(task, executor);
+        });
+    }
+
+    /**
+     * Aplica los nuevos tamaños en el orden que exige ThreadPoolExecutor (core <= max en todo momento).
+     */
+    public synchronized void resize(int corePoolSize, int maxPoolSize, int queueCapacity) {
+        int core = Math.max(1, corePoolSize);
+        int max = Math.max(core, maxPoolSize);
+        if (max >= getMaxPoolSize()) {
+            setMaxPoolSize(max);
+            setCorePoolSize(core);
+        } else {
+            setCorePoolSize(core);
+            setMaxPoolSize(max);
+        }
+        setQueueCapacity(queueCapacity);
+        if (queue != null) {
+            queue.setCapacity(queueCapacity);
+        }
+    }
+
+    public int getQueueDepth() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    public int getCurrentQueueCapacity() {
+        return queue != null ? queue.getCapacity() : getQueueCapacity();
+    }
+
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    /** Fracción de hilos ocupados sobre el máximo del pool. */
+    public double getUtilization() {
+        int max = getMaxPoolSize();
+        return max > 0 ? (double) getActiveCount() / max : 0;
+    }
+
+    /**
+     * Cola sin tope interno cuyo límite efectivo se puede cambiar; al reducirlo las tareas ya
+     * encoladas se conservan y solo se rechazan las nuevas hasta bajar del límite.
+     */
+    static final class ResizableCapacityQueue<E> extends LinkedBlockingQueue<E> {
+        private volatile int capacity;
+
+        ResizableCapacityQueue(int capacity) {
+            this.capacity = Math.max(0, capacity);
+        }
+
+        void setCapacity(int capacity) {
+            this.capacity = Math.max(0, capacity);
+        }
+
+        int getCapacity() {
+            return capacity;
+        }
+
+        @Override
+        public boolean offer(E e) {
+            // ThreadPoolExecutor solo usa offer(): false = crear hilo hasta max o rechazar
+            return size() < capacity && super.offer(e);
+        }
+
+        @Override
+        public int remainingCapacity() {
+            return Math.max(0, capacity - size());
+        }
+    }
+}
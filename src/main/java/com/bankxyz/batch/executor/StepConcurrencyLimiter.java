@@ -0,0 +1,126 @@
+package com.bankxyz.batch.executor;
+
+import com.bankxyz.batch.config.ExecutorProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Registro de cupos de chunks concurrentes por step.
+ * REQUERIMIENTO: "No agotar las conexiones del pool aunque los chunks corran en hilos virtuales"
+ *
+ * Todos los steps (de todos los jobs en curso) toman de un único presupuesto de conexiones:
+ * el tamaño máximo del pool batch menos las conexiones reservadas para el JobRepository y los
+ * lanzadores. Cada chunk en vuelo toma las conexiones que retiene durante su transacción
+ * (más de una si el writer abre la suya, ver monthlyInterestStep). El cupo de un step solo
+ * reparte ese presupuesto; nunca lo amplía.
+ */
+@Component
+public class StepConcurrencyLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StepConcurrencyLimiter.class);
+
+    private static final int FALLBACK_POOL_SIZE = 10;
+
+    private final ExecutorProperties props;
+    private final int poolSize;
+    private final int connectionBudget;
+    private final Semaphore connections;
+    private final Map<String, ConcurrencyLimitedTaskExecutor> executors = new ConcurrentHashMap<>();
+    private final List<Consumer<ConcurrencyLimitedTaskExecutor>> newStepListeners = new CopyOnWriteArrayList<>();
+
+    public StepConcurrencyLimiter(ExecutorProperties props, @Qualifier("batchDataSource") DataSource dataSource) {
+        this.props = props;
+        this.poolSize = dataSource instanceof HikariDataSource hikari
+            ? hikari.getMaximumPoolSize()
+            : FALLBACK_POOL_SIZE;
+        this.connectionBudget = Math.max(1, poolSize - props.getReservedConnections());
+        this.connections = new Semaphore(connectionBudget, true);
+    }
+
+    /**
+     * Devuelve el executor con cupo para el step (uno por nombre de step, compartido entre ejecuciones);
+     * cada chunk retiene una conexión.
+     */
+    public TaskExecutor forStep(String stepName, TaskExecutor delegate) {
+        return forStep(stepName, delegate, 1);
+    }
+
+    /**
+     * Igual que {@link #forStep(String, TaskExecutor)} para steps cuyo chunk retiene más de una conexión.
+     */
+    public TaskExecutor forStep(String stepName, TaskExecutor delegate, int connectionsPerChunk) {
+        return executors.computeIfAbsent(stepName, name -> {
+            int perChunk = Math.min(Math.max(1, connectionsPerChunk), connectionBudget);
+            int max = maxChunks(perChunk);
+            int limit = Math.min(props.getStepConcurrency().getOrDefault(name, max), max);
+            logger.info("🚦 Cupo de concurrencia para step {}: {} chunks x {} conexiones (presupuesto: {} de {})",
+                name, limit, perChunk, connectionBudget, poolSize);
+            ConcurrencyLimitedTaskExecutor executor =
+                new ConcurrencyLimitedTaskExecutor(name, delegate, limit, connections, perChunk);
+            newStepListeners.forEach(listener -> listener.accept(executor));
+            return executor;
+        });
+    }
+
+    /**
+     * Cambia el cupo de un step en caliente (acotado a lo que el presupuesto permite para ese step)
+     * y lo deja en la configuración para cuando el step se construya, si todavía no existe.
+     * @return cupo aplicado
+     */
+    public int resize(String stepName, int limit) {
+        ConcurrencyLimitedTaskExecutor executor = executors.get(stepName);
+        int max = maxChunks(executor != null ? executor.getConnectionsPerTask() : 1);
+        int applied = Math.max(1, Math.min(limit, max));
+        props.getStepConcurrency().put(stepName, applied);
+        if (executor != null) {
+            executor.setLimit(applied);
+        }
+        return applied;
+    }
+
+    public void onNewStep(Consumer<ConcurrencyLimitedTaskExecutor> listener) {
+        newStepListeners.add(listener);
+    }
+
+    /**
+     * Techo de conexiones para chunks, compartido por todos los steps: pool batch menos reservadas.
+     */
+    public int ceiling() {
+        return connectionBudget;
+    }
+
+    /**
+     * Cupo por defecto de un step cuyo chunk retiene una conexión: todo el presupuesto.
+     */
+    public int defaultLimit() {
+        return connectionBudget;
+    }
+
+    /**
+     * Conexiones del presupuesto que ningún chunk está usando en este momento.
+     */
+    public int getAvailableConnections() {
+        return connections.availablePermits();
+    }
+
+    public Collection<ConcurrencyLimitedTaskExecutor> getExecutors() {
+        return executors.values();
+    }
+
+    private int maxChunks(int connectionsPerChunk) {
+        return Math.max(1, connectionBudget / connectionsPerChunk);
+    }
+}
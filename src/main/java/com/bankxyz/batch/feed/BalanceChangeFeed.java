@@ -0,0 +1,312 @@
+package com.bankxyz.batch.feed;
+
+import com.bankxyz.batch.config.BalanceFeedProperties;
+import com.bankxyz.batch.launch.AdmissionRejectedException;
+import com.bankxyz.batch.model.Account;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Feed de cambios de saldo publicado por AccountUpsertWriter tras cada commit.
+ * REQUERIMIENTO: "Los BFF consultan cada cuenta para saber si cambió después de monthlyInterestJob"
+ *
+ * Los cambios se acumulan por cuenta (gana el último saldo) y cada {@code coalesceWindow} se
+ * numeran y se agregan a un ring buffer acotado. El mismo hilo entrega a cada suscriptor los
+ * eventos posteriores a su cursor, así la reanudación con Last-Event-ID y el envío en vivo son
+ * el mismo camino y ningún suscriptor recibe eventos fuera de orden. Si el cursor quedó fuera
+ * del buffer el suscriptor recibe "reset" y debe volver a leer las cuentas que le interesen.
+ *
+ * Las versiones arrancan en el reloj del proceso (ms × 1000): un Last-Event-ID de un proceso
+ * anterior siempre queda antes del buffer y provoca "reset". El feed es local a la instancia.
+ *
+ * Los saldos salen al confirmarse cada chunk, antes de que /api/accounts los sirva: la API responde
+ * desde el snapshot del último job exitoso. Cada swap de snapshot agrega al mismo buffer un evento
+ * "snapshot" con la versión que la API informa en X-Snapshot-Version; todo "balance" anterior a
+ * ese evento ya está incluido en esa versión. Un BFF que relee cuentas tras un "balance" debe
+ * esperar el "snapshot" siguiente (o aceptar una respuesta con una versión anterior).
+ *
+ * Cada tick entrega a lo sumo {@code maxEventsPerTick} eventos por suscriptor: un cliente que
+ * reanuda muy atrás no retiene el hilo del feed con todo el buffer; el resto sale en los ticks
+ * siguientes.
+ *
+ * El hilo del feed no escribe en los sockets: encola en la {@link SseOutbox} de cada suscriptor y
+ * los envíos corren en {@code balance-feed-send-*}. Un BFF con la ventana TCP llena no frena al
+ * resto; si su cola de salida sigue llena en el tick siguiente se lo desconecta y reanuda con
+ * Last-Event-ID (o recibe "reset" si ya quedó fuera del buffer).
+ */
+@Component
+public class BalanceChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceChangeFeed.class);
+
+    private static final AtomicInteger SENDER_IDS = new AtomicInteger();
+
+    public record BalanceChange(String accountNumber, BigDecimal balance, long version) {}
+
+    public record SnapshotPublished(long snapshotVersion, long version) {}
+
+    private record FeedEvent(String name, long version, Object data) {}
+
+    private final BalanceFeedProperties props;
+    private final ScheduledExecutorService publisher;
+    private final Executor sender;
+
+    private final Object lock = new Object();
+    private Map<String, BigDecimal> pending = new LinkedHashMap<>();
+    private final FeedEvent[] ring;
+    // Versión que recibirá el próximo evento; el buffer contiene [nextVersion - retained, nextVersion)
+    private long nextVersion;
+    private int retained;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final Counter published;
+    private final Counter coalesced;
+    private final Counter resets;
+    private final Counter dropped;
+
+    public BalanceChangeFeed(BalanceFeedProperties props, MeterRegistry meterRegistry) {
+        this.props = props;
+        this.ring = new FeedEvent[Math.max(1, props.getBufferSize())];
+        this.nextVersion = System.currentTimeMillis() * 1000;
+
+        this.published = Counter.builder("balance.feed.events")
+            .description("Cambios de saldo numerados y agregados al buffer").register(meterRegistry);
+        this.coalesced = Counter.builder("balance.feed.coalesced")
+            .description("Cambios absorbidos por uno posterior de la misma cuenta").register(meterRegistry);
+        this.resets = Counter.builder("balance.feed.resets")
+            .description("Suscriptores que pidieron eventos fuera del buffer").register(meterRegistry);
+        this.dropped = Counter.builder("balance.feed.dropped")
+            .description("Suscriptores desconectados por no vaciar su cola de salida").register(meterRegistry);
+        Gauge.builder("balance.feed.subscribers", subscribers, List::size).register(meterRegistry);
+
+        this.publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "balance-feed");
+            t.setDaemon(true);
+            return t;
+        });
+        this.sender = newSender();
+        long interval = props.getCoalesceWindow().toMillis();
+        publisher.scheduleWithFixedDelay(this::tick, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registra los saldos confirmados; se envían al cerrar la ventana de coalescencia en curso.
+     */
+    public void publish(Collection<? extends Account> accounts) {
+        if (!props.isEnabled() || accounts.isEmpty()) {
+            return;
+        }
+        int replaced = 0;
+        synchronized (lock) {
+            for (Account account : accounts) {
+                if (pending.put(account.getAccountNumber(), account.getBalance()) != null) {
+                    replaced++;
+                }
+            }
+        }
+        coalesced.increment(replaced);
+    }
+
+    /**
+     * El snapshot de cuentas {@code snapshotVersion} empezó a servirse. Va después de los saldos
+     * pendientes: todos los cambios confirmados antes del swap quedan antes del evento.
+     */
+    public void snapshotPublished(long snapshotVersion) {
+        if (!props.isEnabled()) {
+            return;
+        }
+        synchronized (lock) {
+            drainPending();
+            long version = nextVersion++;
+            append(new FeedEvent("snapshot", version, new SnapshotPublished(snapshotVersion, version)));
+        }
+    }
+
+    /**
+     * Nueva conexión SSE. Sin {@code lastVersion} recibe solo los cambios futuros; con él, también
+     * los retenidos posteriores a esa versión.
+     * @throws AdmissionRejectedException si ya hay {@code maxSubscribers} conexiones
+     */
+    public SseEmitter subscribe(Long lastVersion) {
+        if (!props.isEnabled()) {
+            throw new IllegalStateException("Balance feed disabled");
+        }
+        if (subscribers.size() >= props.getMaxSubscribers()) {
+            throw new AdmissionRejectedException("Demasiadas conexiones al feed de saldos", props.getHeartbeatInterval());
+        }
+        SseEmitter emitter = newEmitter(props.getConnectionTimeout().toMillis());
+        long cursor;
+        synchronized (lock) {
+            cursor = lastVersion != null ? lastVersion : nextVersion - 1;
+        }
+        Subscriber subscriber = new Subscriber(new SseOutbox(emitter, props.getOutboundQueueSize(), sender), cursor);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        // La reanudación (o el reset) sale en el próximo tick, en orden con el resto
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.outbox.complete();
+        }
+        subscribers.clear();
+        if (sender instanceof ExecutorService executor) {
+            executor.shutdown();
+        }
+    }
+
+    /* ---------------- Hilo del feed ---------------- */
+
+    // Paquete: las pruebas avanzan el feed sin esperar al scheduler
+    void tick() {
+        try {
+            drainPending();
+            long now = System.nanoTime();
+            for (Subscriber subscriber : subscribers) {
+                deliver(subscriber, now);
+            }
+        } catch (RuntimeException e) {
+            // Un error no debe cancelar la tarea periódica
+            logger.warn("⚠️ Error en el feed de saldos: {}", e.getMessage());
+        }
+    }
+
+    // Cierra la ventana: numera los cambios acumulados y los agrega al ring buffer
+    private void drainPending() {
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Map<String, BigDecimal> window = pending;
+            pending = new LinkedHashMap<>();
+            window.forEach((accountNumber, balance) -> {
+                long version = nextVersion++;
+                append(new FeedEvent("balance", version, new BalanceChange(accountNumber, balance, version)));
+            });
+            published.increment(window.size());
+        }
+    }
+
+    private void append(FeedEvent event) {
+        ring[(int) (event.version() % ring.length)] = event;
+        retained = Math.min(retained + 1, ring.length);
+    }
+
+    private void deliver(Subscriber subscriber, long now) {
+        SseOutbox outbox = subscriber.outbox;
+        if (outbox.isClosed()) {
+            // Falló un envío: el cliente reconecta con Last-Event-ID
+            subscribers.remove(subscriber);
+            return;
+        }
+        int room = outbox.remainingCapacity();
+
+        List<FeedEvent> batch;
+        boolean reset = false;
+        synchronized (lock) {
+            long oldest = nextVersion - retained;
+            if (subscriber.cursor < oldest - 1 || subscriber.cursor >= nextVersion) {
+                // Fuera del buffer (muy atrás, o de un proceso anterior): se reinicia en el presente
+                reset = true;
+                subscriber.cursor = nextVersion - 1;
+            }
+            boolean heartbeatDue = now - subscriber.lastSendNanos >= props.getHeartbeatInterval().toNanos();
+            if (room == 0 && (reset || heartbeatDue || subscriber.cursor < nextVersion - 1)) {
+                batch = null;
+            } else {
+                int count = (int) Math.min(Math.min(nextVersion - 1 - subscriber.cursor, props.getMaxEventsPerTick()),
+                    room - (reset ? 1 : 0));
+                batch = new ArrayList<>(count);
+                for (long version = subscriber.cursor + 1; version <= subscriber.cursor + count; version++) {
+                    batch.add(ring[(int) (version % ring.length)]);
+                }
+            }
+        }
+        if (batch == null) {
+            // La cola no se vació desde el tick anterior: el cliente no lee o su socket está bloqueado
+            drop(subscriber);
+            return;
+        }
+
+        if (reset) {
+            resets.increment();
+            enqueue(subscriber, SseEmitter.event().name("reset").id(Long.toString(subscriber.cursor))
+                .data(Map.of("version", subscriber.cursor)), now);
+        }
+        for (FeedEvent event : batch) {
+            enqueue(subscriber, SseEmitter.event().name(event.name()).id(Long.toString(event.version())).data(event.data()), now);
+            subscriber.cursor = event.version();
+        }
+        if (now - subscriber.lastSendNanos >= props.getHeartbeatInterval().toNanos()) {
+            enqueue(subscriber, SseEmitter.event().comment("heartbeat"), now);
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event, long now) {
+        // Solo el hilo del feed encola: la capacidad medida antes del lote sigue disponible
+        subscriber.outbox.offer(event);
+        subscriber.lastSendNanos = now;
+    }
+
+    private void drop(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        dropped.increment();
+        logger.warn("⚠️ Suscriptor del feed desconectado: su cola de salida sigue llena (versión {})", subscriber.cursor);
+        subscriber.outbox.abort(new IllegalStateException("Balance feed subscriber fell behind"));
+    }
+
+    // Paquete: las pruebas envían en el mismo hilo
+    Executor newSender() {
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "balance-feed-send-" + SENDER_IDS.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private static final class Subscriber {
+        final SseOutbox outbox;
+        // Última versión encolada (solo la modifica el hilo del feed)
+        long cursor;
+        long lastSendNanos = System.nanoTime();
+
+        Subscriber(SseOutbox outbox, long cursor) {
+            this.outbox = outbox;
+            this.cursor = cursor;
+        }
+    }
+}
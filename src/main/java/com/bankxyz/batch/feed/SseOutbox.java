@@ -0,0 +1,126 @@
+package com.bankxyz.batch.feed;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cola de salida acotada de una conexión SSE.
+ *
+ * Quien produce los eventos (el hilo del feed, el de avance de jobs) solo encola y nunca escribe
+ * en el socket: un cliente con la ventana TCP llena bloquea su propio envío en {@code sender}, no
+ * al resto de las conexiones. Si la cola se llena, {@link #offer} devuelve false y el productor
+ * decide descartar la conexión; el cliente reconecta y reanuda.
+ *
+ * A lo sumo una tarea de envío por conexión está activa a la vez, así los eventos salen en orden.
+ */
+public class SseOutbox {
+
+    private final SseEmitter emitter;
+    private final Executor sender;
+    private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    // No acepta más eventos; la conexión se cierra al vaciar la cola (o de inmediato si hay causa)
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    public SseOutbox(SseEmitter emitter, int capacity, Executor sender) {
+        this.emitter = emitter;
+        this.sender = sender;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    /**
+     * Encola el evento sin bloquear.
+     * @return false si la cola está llena o la conexión ya se cerró
+     */
+    public boolean offer(SseEmitter.SseEventBuilder event) {
+        if (closed || !queue.offer(event)) {
+            return false;
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    public int remainingCapacity() {
+        return closed ? 0 : queue.remainingCapacity();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Envía lo encolado y completa la conexión.
+     */
+    public void complete() {
+        closed = true;
+        scheduleDrain();
+    }
+
+    /**
+     * Descarta lo encolado y cierra la conexión con error. El cierre corre en {@code sender}:
+     * si hay un envío bloqueado, espera a que el socket lo libere sin retener al productor.
+     */
+    public void abort(Throwable cause) {
+        failure = cause;
+        closed = true;
+        queue.clear();
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sender.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Apagando: no queda quién envíe
+            draining.set(false);
+            closed = true;
+            queue.clear();
+        }
+    }
+
+    private void drain() {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (failure == null && (event = queue.poll()) != null) {
+                emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado
+            failure = e;
+            closed = true;
+            queue.clear();
+        } finally {
+            draining.set(false);
+        }
+
+        if (closed && (failure != null || queue.isEmpty())) {
+            finish();
+        } else if (!queue.isEmpty()) {
+            // Eventos encolados mientras terminaba esta pasada
+            scheduleDrain();
+        }
+    }
+
+    private void finish() {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        if (failure != null) {
+            emitter.completeWithError(failure);
+        } else {
+            emitter.complete();
+        }
+    }
+}
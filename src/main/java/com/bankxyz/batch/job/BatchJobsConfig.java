@@ -1,44 +1,85 @@
 package com.bankxyz.batch.job;
 
+import com.bankxyz.batch.aggregation.AnnualStatementAggregator;
+import com.bankxyz.batch.aggregation.DailyReportAggregator;
+import com.bankxyz.batch.backfill.BackfillThrottle;
+import com.bankxyz.batch.cache.AccountSnapshotStore;
+import com.bankxyz.batch.config.AccountPartitionProperties;
+import com.bankxyz.batch.config.AnnualAggregationProperties;
 import com.bankxyz.batch.config.AppProperties;
+import com.bankxyz.batch.config.BackfillProperties;
+import com.bankxyz.batch.config.ChunkProperties;
+import com.bankxyz.batch.config.ExecutorProperties;
+import com.bankxyz.batch.config.PartitionProperties;
 import com.bankxyz.batch.dto.AccountCsv;
 import com.bankxyz.batch.dto.CuentaAnualCsv;
 import com.bankxyz.batch.dto.TransactionCsv;
+import com.bankxyz.batch.executor.ResizableThreadPoolTaskExecutor;
+import com.bankxyz.batch.executor.StepConcurrencyLimiter;
+import com.bankxyz.batch.launch.InputFileTracker;
 import com.bankxyz.batch.listener.BatchJobListener;
 import com.bankxyz.batch.listener.BatchStepListener;
 import com.bankxyz.batch.model.Account;
 import com.bankxyz.batch.model.AnnualAccountData;
 import com.bankxyz.batch.model.LegacyTransaction;
+import com.bankxyz.batch.partition.AccountKeyPartitioner;
+import com.bankxyz.batch.partition.ByteRangeLineReader;
+import com.bankxyz.batch.partition.ByteRangePartitioner;
+import com.bankxyz.batch.partition.DatabaseQueuePartitionHandler;
+import com.bankxyz.batch.partition.PartitionLeaseFence;
+import com.bankxyz.batch.policy.AdaptiveCompletionPolicy;
 import com.bankxyz.batch.policy.CustomSkipPolicy;
 import com.bankxyz.batch.processor.AccountProcessor;
 import com.bankxyz.batch.processor.CuentaAnualProcessor;
 import com.bankxyz.batch.processor.TransactionProcessor;
 import com.bankxyz.batch.writer.AccountUpsertWriter;
+import com.bankxyz.batch.writer.TransactionDedupWriter;
 import jakarta.persistence.EntityManagerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.core.*;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.DefaultJobParametersValidator;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.partition.support.DefaultStepExecutionAggregator;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.JpaItemWriter;
 import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.item.file.MultiResourceItemReader;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
 import org.springframework.batch.item.file.mapping.BeanWrapperFieldSetMapper;
+import org.springframework.batch.item.file.mapping.DefaultLineMapper;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
 
 @Configuration
 public class BatchJobsConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(BatchJobsConfig.class);
+
+    // Cada chunk de intereses retiene la conexión de la transacción del step y la de la transacción
+    // propia de AccountUpsertWriter
+    private static final int MONTHLY_INTEREST_CONNECTIONS_PER_CHUNK = 2;
     
     private final AppProperties props;
     private final BatchJobListener jobListener;
@@ -48,6 +89,22 @@ public class BatchJobsConfig {
     private final TransactionProcessor transactionProcessor;
     private final CuentaAnualProcessor cuentaAnualProcessor;
     private final AccountUpsertWriter accountUpsertWriter;
+    private final TransactionDedupWriter transactionDedupWriter;
+    private final DailyReportAggregator dailyReportAggregator;
+    private final AnnualStatementAggregator annualStatementAggregator;
+    private final AnnualAggregationProperties annualProps;
+    private final ExecutorProperties executorProps;
+    private final StepConcurrencyLimiter stepConcurrencyLimiter;
+    private final ChunkProperties chunkProps;
+    private final PartitionProperties partitionProps;
+    private final DatabaseQueuePartitionHandler databaseQueuePartitionHandler;
+    private final PartitionLeaseFence partitionLeaseFence;
+    private final InputFileTracker inputFileTracker;
+    private final AccountPartitionProperties accountPartitionProps;
+    private final AccountKeyPartitioner accountKeyPartitioner;
+    private final BackfillProperties backfillProps;
+    private final BackfillThrottle backfillThrottle;
+    private final AccountSnapshotStore accountSnapshotStore;
 
     public BatchJobsConfig(AppProperties props, 
                           BatchJobListener jobListener,
@@ -56,7 +113,23 @@ public class BatchJobsConfig {
                           AccountProcessor accountProcessor,
                           TransactionProcessor transactionProcessor,
                           CuentaAnualProcessor cuentaAnualProcessor,
-                          AccountUpsertWriter accountUpsertWriter) {
+                          AccountUpsertWriter accountUpsertWriter,
+                          TransactionDedupWriter transactionDedupWriter,
+                          DailyReportAggregator dailyReportAggregator,
+                          AnnualStatementAggregator annualStatementAggregator,
+                          AnnualAggregationProperties annualProps,
+                          ExecutorProperties executorProps,
+                          StepConcurrencyLimiter stepConcurrencyLimiter,
+                          ChunkProperties chunkProps,
+                          PartitionProperties partitionProps,
+                          DatabaseQueuePartitionHandler databaseQueuePartitionHandler,
+                          PartitionLeaseFence partitionLeaseFence,
+                          InputFileTracker inputFileTracker,
+                          AccountPartitionProperties accountPartitionProps,
+                          AccountKeyPartitioner accountKeyPartitioner,
+                          BackfillProperties backfillProps,
+                          BackfillThrottle backfillThrottle,
+                          AccountSnapshotStore accountSnapshotStore) {
         this.props = props;
         this.jobListener = jobListener;
         this.stepListener = stepListener;
@@ -65,18 +138,52 @@ public class BatchJobsConfig {
         this.transactionProcessor = transactionProcessor;
         this.cuentaAnualProcessor = cuentaAnualProcessor;
         this.accountUpsertWriter = accountUpsertWriter;
+        this.transactionDedupWriter = transactionDedupWriter;
+        this.dailyReportAggregator = dailyReportAggregator;
+        this.annualStatementAggregator = annualStatementAggregator;
+        this.annualProps = annualProps;
+        this.executorProps = executorProps;
+        this.stepConcurrencyLimiter = stepConcurrencyLimiter;
+        this.chunkProps = chunkProps;
+        this.partitionProps = partitionProps;
+        this.databaseQueuePartitionHandler = databaseQueuePartitionHandler;
+        this.partitionLeaseFence = partitionLeaseFence;
+        this.inputFileTracker = inputFileTracker;
+        this.accountPartitionProps = accountPartitionProps;
+        this.accountKeyPartitioner = accountKeyPartitioner;
+        this.backfillProps = backfillProps;
+        this.backfillThrottle = backfillThrottle;
+        this.accountSnapshotStore = accountSnapshotStore;
     }
 
     /* ---------------- TaskExecutor para Procesamiento Paralelo Optimizado ---------------- */
     
+    // Cupo de chunks concurrentes por step: StepConcurrencyLimiter fija el cupo real (ajustable) dentro
+    // de un presupuesto de conexiones compartido por todos los steps, y throttleLimit se sube a ese
+    // presupuesto porque Spring Batch 5 lo deja en 4 por defecto.
+
     @Bean
     public TaskExecutor batchTaskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        if (executorProps.getMode() == ExecutorProperties.Mode.VIRTUAL) {
+            if (Runtime.version().feature() >= 21) {
+                // Un hilo virtual por chunk: el límite real lo pone el cupo por step (pool de conexiones)
+                SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("batch-vt-");
+                executor.setVirtualThreads(true);
+                logger.info("✅ TaskExecutor configurado con hilos virtuales (cupo por step: {} chunks)",
+                           stepConcurrencyLimiter.defaultLimit());
+                return executor;
+            }
+            logger.warn("⚠️ Hilos virtuales requieren Java 21+ (runtime: {}), usando pool de hilos de plataforma",
+                       Runtime.version().feature());
+        }
+
+        // Redimensionable en caliente desde /actuator/batchexecutors
+        ResizableThreadPoolTaskExecutor executor = new ResizableThreadPoolTaskExecutor();
         
         // Configuración optimizada para procesamiento de archivos CSV
-        executor.setCorePoolSize(3);        // 3 hilos core como requisito
-        executor.setMaxPoolSize(5);         // Máximo 5 hilos para picos de carga
-        executor.setQueueCapacity(100);     // Cola más grande para mejor throughput
+        executor.setCorePoolSize(executorProps.getCorePoolSize());     // 3 hilos core como requisito
+        executor.setMaxPoolSize(executorProps.getMaxPoolSize());       // Máximo 5 hilos para picos de carga
+        executor.setQueueCapacity(executorProps.getQueueCapacity());   // Cola más grande para mejor throughput
         executor.setThreadNamePrefix("batch-csv-");
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(60); // Más tiempo para finalización limpia
@@ -93,14 +200,9 @@ public class BatchJobsConfig {
     
     /* ---------------- Configuraciones de Chunk Size Dinámico ---------------- */
     
-    private int calculateOptimalChunkSize(String jobType) {
-        // Ajustar chunk size según el tipo de job y complejidad de procesamiento
-        return switch (jobType) {
-            case "transactions" -> 10; // Transacciones son más ligeras
-            case "accounts" -> 5;      // Cuentas tienen más validaciones
-            case "annual" -> 8;        // Estados anuales son medianamente complejos
-            default -> 5;
-        };
+    // El tamaño de chunk se ajusta en ejecución por la latencia de commit, dentro de los límites del job
+    private AdaptiveCompletionPolicy chunkPolicy(String jobName, String stepName) {
+        return new AdaptiveCompletionPolicy(stepName, chunkProps.boundsFor(jobName), chunkProps);
     }
 
     /* ---------------- Readers ---------------- */
@@ -109,7 +211,7 @@ public class BatchJobsConfig {
     public FlatFileItemReader<AccountCsv> accountReader() {
         return new FlatFileItemReaderBuilder<AccountCsv>()
                 .name("accountReader")
-                .resource(new FileSystemResource(props.getDataDir() + "/intereses.csv"))
+                .resource(inputFileTracker.track("monthlyInterestJob", props.getDataDir() + "/intereses.csv"))
                 .linesToSkip(1)
                 .delimited()
                 // ✅ CORREGIDO: Nombres de campos actualizados para coincidir con CSV real
@@ -124,7 +226,7 @@ public class BatchJobsConfig {
     public FlatFileItemReader<TransactionCsv> transactionReader() {
         return new FlatFileItemReaderBuilder<TransactionCsv>()
                 .name("transactionReader")
-                .resource(new FileSystemResource(props.getDataDir() + "/transacciones.csv"))
+                .resource(inputFileTracker.track("dailyReportJob", transactionsFile().toString()))
                 .linesToSkip(1)
                 .delimited()
                 // ✅ CORREGIDO: Nombres de campos actualizados para coincidir con CSV real
@@ -135,6 +237,92 @@ public class BatchJobsConfig {
                 .build();
     }
 
+    // Rango de bytes de transacciones.csv asignado a una partición remota (ver DatabaseQueuePartitionHandler)
+    @Bean
+    @StepScope
+    public ByteRangeLineReader<TransactionCsv> transactionRangeReader(
+            @Value("#{stepExecutionContext['startOffset']}") Long startOffset,
+            @Value("#{stepExecutionContext['endOffset']}") Long endOffset) {
+        ByteRangeLineReader<TransactionCsv> reader =
+            new ByteRangeLineReader<>(transactionsFile(), startOffset, endOffset, transactionLineMapper());
+        // Avance por bytes de la partición, en la cuenta de su JobExecution
+        reader.setBytesReadCounter(inputFileTracker.track("dailyReportJob", transactionsFile().toString())::counter);
+        return reader;
+    }
+
+    // Archivos diarios archivados entre from y to (parámetros de dailyReportBackfillJob), en orden de fecha.
+    // MultiResourceItemReader guarda archivo y línea en cada commit: un reinicio retoma donde quedó.
+    @Bean
+    @StepScope
+    public MultiResourceItemReader<TransactionCsv> backfillReader(
+            @Value("#{jobParameters['from']}") String from,
+            @Value("#{jobParameters['to']}") String to) {
+        Resource[] files = backfillFiles(LocalDate.parse(from), LocalDate.parse(to));
+
+        FlatFileItemReader<TransactionCsv> fileReader = new FlatFileItemReaderBuilder<TransactionCsv>()
+                .name("backfillFileReader")
+                .linesToSkip(1)
+                .lineMapper(backfillThrottle.throttled(transactionLineMapper()))
+                .build();
+
+        MultiResourceItemReader<TransactionCsv> reader = new MultiResourceItemReader<>() {
+            @Override
+            public void update(ExecutionContext executionContext) {
+                super.update(executionContext);
+                // Avance por archivo visible en BATCH_STEP_EXECUTION_CONTEXT
+                int index = executionContext.getInt("backfillReader.resourceIndex", -1);
+                if (index >= 0 && index < files.length) {
+                    executionContext.putString("backfillCurrentFile", files[index].getFilename());
+                    executionContext.putString("backfillProgress", (index + 1) + "/" + files.length);
+                }
+            }
+        };
+        reader.setName("backfillReader");
+        reader.setResources(files);
+        reader.setDelegate(fileReader);
+        // Ya vienen ordenados por fecha (el orden por nombre depende de dateFormat)
+        reader.setComparator((a, b) -> 0);
+        return reader;
+    }
+
+    private Resource[] backfillFiles(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Rango de backfill inválido: " + from + " > " + to);
+        }
+        Path dir = backfillProps.getArchiveDir().isBlank()
+                ? Path.of(props.getDataDir(), "archive")
+                : Path.of(backfillProps.getArchiveDir());
+        DateTimeFormatter format = DateTimeFormatter.ofPattern(backfillProps.getDateFormat());
+
+        List<Resource> files = new ArrayList<>();
+        int missing = 0;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            Path file = dir.resolve(backfillProps.getFilePattern().replace("{date}", date.format(format)));
+            if (Files.isRegularFile(file)) {
+                files.add(new FileSystemResource(file));
+            } else {
+                missing++;
+            }
+        }
+        logger.info("🗄️ Backfill {} → {}: {} archivos en {} ({} fechas sin archivo)", from, to, files.size(), dir, missing);
+        return files.toArray(Resource[]::new);
+    }
+
+    private LineMapper<TransactionCsv> transactionLineMapper() {
+        DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
+        tokenizer.setNames("id","fecha","monto","tipo");
+        BeanWrapperFieldSetMapper<TransactionCsv> mapper = new BeanWrapperFieldSetMapper<>();
+        mapper.setTargetType(TransactionCsv.class);
+        DefaultLineMapper<TransactionCsv> lineMapper = new DefaultLineMapper<>();
+        lineMapper.setLineTokenizer(tokenizer);
+        lineMapper.setFieldSetMapper(mapper);
+        return lineMapper;
+    }
+
+    private Path transactionsFile() {
+        return Path.of(props.getDataDir(), "transacciones.csv");
+    }
+
     /* ---------------- Writers ---------------- */
 
     @Bean
@@ -165,40 +353,139 @@ public class BatchJobsConfig {
 
     // Job 1: Reporte de Transacciones Independientes - SIMPLIFICADO
     @Bean
+    @SuppressWarnings("removal") // throttleLimit: ver stepConcurrencyLimiter
     public Job dailyReportJob(JobRepository jobRepository, 
                              PlatformTransactionManager txManager,
                              TaskExecutor batchTaskExecutor,
                              FlatFileItemReader<TransactionCsv> transactionReader,
                              EntityManagerFactory emf) {
 
-        // WRITER SIMPLIFICADO - guarda transacciones en transaction_legacy
-        JpaItemWriter<LegacyTransaction> writer = new JpaItemWriter<>();
-        writer.setEntityManagerFactory(emf);
+        // WRITER CON DEDUPLICACIÓN - guarda transacciones en transaction_legacy omitiendo tx_id ya cargados
+        ItemWriter<LegacyTransaction> writer = transactionDedupWriter;
 
         // PROCESSOR SIMPLIFICADO - usa directamente el procesador (detecta anomalías internamente)
         ItemProcessor<TransactionCsv, LegacyTransaction> processor = transactionProcessor;
 
+        // MANAGER: el step se reparte entre instancias worker a través de batch_partition_work
+        if (partitionProps.getRole() == PartitionProperties.Role.MANAGER) {
+            return new JobBuilder("dailyReportJob", jobRepository)
+                    .start(dailyReportManagerStep(jobRepository))
+                    .listener(jobListener)
+                    .listener(inputFileTracker)
+                    .listener(accountSnapshotStore)
+                    .build();
+        }
+
+        AdaptiveCompletionPolicy chunkPolicy = chunkPolicy("dailyReportJob", "dailyReportStep");
+
         Step step = new StepBuilder("dailyReportStep", jobRepository)
-                .<TransactionCsv, LegacyTransaction>chunk(calculateOptimalChunkSize("transactions"), txManager)  
+                .<TransactionCsv, LegacyTransaction>chunk(chunkPolicy, txManager)  
                 .reader(transactionReader)
                 .processor(processor)
                 .writer(writer)
-                .taskExecutor(batchTaskExecutor)           
+                .taskExecutor(stepConcurrencyLimiter.forStep("dailyReportStep", batchTaskExecutor))
+                .throttleLimit(stepConcurrencyLimiter.ceiling())
                 .faultTolerant()
                 .skipPolicy(customSkipPolicy)              
                 .retryLimit(3)
                 .retry(Exception.class)
                 .listener(stepListener)
+                .listener((StepExecutionListener) chunkPolicy)
+                .listener((ChunkListener) chunkPolicy)
+                .listener(transactionDedupWriter)
+                .listener(dailyReportAggregator)
                 .build();
 
         return new JobBuilder("dailyReportJob", jobRepository)
                 .start(step)
-                .listener(jobListener)                     
+                .listener(jobListener)
+                .listener(inputFileTracker)
+                .listener(accountSnapshotStore)
+                .build();
+    }
+
+    // Reproceso histórico de dailyReportJob con presupuesto de I/O (BackfillThrottle).
+    // Un solo hilo y chunk fijo: el objetivo es convivir con el tráfico en línea, no terminar rápido.
+    // Los parámetros from/to identifican la instancia: relanzar el mismo rango reanuda la ejecución fallida.
+    @Bean
+    public Job dailyReportBackfillJob(JobRepository jobRepository,
+                                      PlatformTransactionManager txManager,
+                                      MultiResourceItemReader<TransactionCsv> backfillReader) {
+        Step step = new StepBuilder("dailyReportBackfillStep", jobRepository)
+                .<TransactionCsv, LegacyTransaction>chunk(backfillProps.getChunkSize(), txManager)
+                .reader(backfillReader)
+                .processor(transactionProcessor)
+                .writer(backfillThrottle.timed(transactionDedupWriter))
+                // La espera del presupuesto se paga entre chunks, sin transacción ni conexión abiertas
+                .stepOperations(backfillThrottle.betweenChunks())
+                .faultTolerant()
+                .skipPolicy(customSkipPolicy)
+                .retryLimit(3)
+                .retry(Exception.class)
+                // Totales del reporte diario en el contexto del step: sobreviven al reinicio
+                .stream(dailyReportAggregator)
+                .listener(stepListener)
+                .listener(backfillThrottle)
+                .listener(transactionDedupWriter)
+                .listener(dailyReportAggregator)
+                .build();
+
+        return new JobBuilder("dailyReportBackfillJob", jobRepository)
+                .validator(new DefaultJobParametersValidator(new String[] { "from", "to" }, new String[0]))
+                .start(step)
+                .listener(jobListener)
+                .listener(accountSnapshotStore)
+                .build();
+    }
+
+    // Step manager: publica un rango de bytes por partición y combina los resultados de los workers
+    private Step dailyReportManagerStep(JobRepository jobRepository) {
+        return new StepBuilder("dailyReportStep", jobRepository)
+                .partitioner("dailyReportWorkerStep", new ByteRangePartitioner(transactionsFile(), 1))
+                .partitionHandler(databaseQueuePartitionHandler)
+                .aggregator((result, executions) -> {
+                    new DefaultStepExecutionAggregator().aggregate(result, executions);
+                    // Parciales del reporte diario de cada partición completada: el manager hace el único
+                    // UPSERT. Las fallidas conservan su parcial y se suman cuando completen al reiniciar
+                    executions.stream()
+                        .filter(execution -> execution.getStatus() == BatchStatus.COMPLETED)
+                        .forEach(execution -> dailyReportAggregator.mergePartial(execution.getExecutionContext()));
+                })
+                .listener(stepListener)
+                .listener(dailyReportAggregator)
+                .build();
+    }
+
+    // Step worker de dailyReportJob: lo ejecuta PartitionWorker en cada instancia WORKER.
+    // Un hilo por partición (el paralelismo son las particiones): el offset del reader y los parciales
+    // del reporte que se guardan con cada commit corresponden exactamente a los chunks confirmados
+    @Bean
+    public Step dailyReportWorkerStep(JobRepository jobRepository,
+                                      PlatformTransactionManager txManager,
+                                      ByteRangeLineReader<TransactionCsv> transactionRangeReader) {
+        AdaptiveCompletionPolicy chunkPolicy = chunkPolicy("dailyReportJob", "dailyReportWorkerStep");
+
+        return new StepBuilder("dailyReportWorkerStep", jobRepository)
+                .<TransactionCsv, LegacyTransaction>chunk(chunkPolicy, txManager)
+                .reader(transactionRangeReader)
+                .processor(transactionProcessor)
+                .writer(transactionDedupWriter)
+                .faultTolerant()
+                .skipPolicy(customSkipPolicy)
+                .retryLimit(3)
+                .retry(Exception.class)
+                .stream(dailyReportAggregator)   // Parciales en el contexto de la partición
+                .listener(stepListener)
+                .listener((StepExecutionListener) chunkPolicy)
+                .listener((ChunkListener) chunkPolicy)
+                .listener(transactionDedupWriter)
+                .listener(partitionLeaseFence)   // Ningún chunk confirma sin el lease de la partición
                 .build();
     }
 
     // Job 2: Cálculo de Intereses desde intereses.csv - SIMPLIFICADO
     @Bean
+    @SuppressWarnings("removal") // throttleLimit: ver stepConcurrencyLimiter
     public Job monthlyInterestJob(JobRepository jobRepository, 
                                  PlatformTransactionManager txManager,
                                  TaskExecutor batchTaskExecutor,
@@ -211,22 +498,91 @@ public class BatchJobsConfig {
         // PROCESSOR SIMPLIFICADO - usa directamente el procesador (calcula intereses internamente)  
         ItemProcessor<AccountCsv, Account> processor = accountProcessor;
 
+        // Particionado por hash de cuenta: cada partición (un hilo) es dueña de sus cuentas
+        if (accountPartitionProps.isEnabled()) {
+            return new JobBuilder("monthlyInterestJob", jobRepository)
+                    .start(monthlyInterestPartitionedStep(jobRepository, txManager, batchTaskExecutor))
+                    .listener(jobListener)
+                    .listener(inputFileTracker)
+                    .listener(accountSnapshotStore)
+                    .build();
+        }
+
+        AdaptiveCompletionPolicy chunkPolicy = chunkPolicy("monthlyInterestJob", "monthlyInterestStep");
+
         Step step = new StepBuilder("monthlyInterestStep", jobRepository)
-                .<AccountCsv, Account>chunk(calculateOptimalChunkSize("accounts"), txManager)  
+                .<AccountCsv, Account>chunk(chunkPolicy, txManager)  
                 .reader(accountReader)
                 .processor(processor)
                 .writer(writer)
-                .taskExecutor(batchTaskExecutor)           
+                .taskExecutor(stepConcurrencyLimiter.forStep("monthlyInterestStep", batchTaskExecutor,
+                        MONTHLY_INTEREST_CONNECTIONS_PER_CHUNK))
+                .throttleLimit(stepConcurrencyLimiter.ceiling())
                 .faultTolerant()
                 .skipPolicy(customSkipPolicy)              
                 .retryLimit(3)
                 .retry(Exception.class)
                 .listener(stepListener)
+                .listener((StepExecutionListener) chunkPolicy)
+                .listener((ChunkListener) chunkPolicy)
+                .listener(accountUpsertWriter)             // Toma el mes del job para el libro de intereses
                 .build();
 
         return new JobBuilder("monthlyInterestJob", jobRepository)
                 .start(step)
-                .listener(jobListener)                     
+                .listener(jobListener)
+                .listener(inputFileTracker)
+                .listener(accountSnapshotStore)
+                .build();
+    }
+
+    // Step manager: reparte intereses.csv por hash de cuenta_id y ejecuta una partición por hilo
+    private Step monthlyInterestPartitionedStep(JobRepository jobRepository,
+                                                PlatformTransactionManager txManager,
+                                                TaskExecutor batchTaskExecutor) {
+        AdaptiveCompletionPolicy chunkPolicy = chunkPolicy("monthlyInterestJob", "monthlyInterestWorkerStep");
+
+        // Sin taskExecutor: dentro de una partición los chunks son secuenciales
+        Step workerStep = new StepBuilder("monthlyInterestWorkerStep", jobRepository)
+                .<AccountCsv, Account>chunk(chunkPolicy, txManager)
+                .reader(accountPartitionReader(null))
+                .processor(accountProcessor)
+                .writer(accountUpsertWriter)
+                .faultTolerant()
+                .skipPolicy(customSkipPolicy)
+                .retryLimit(3)
+                .retry(Exception.class)
+                .listener(stepListener)
+                .listener((StepExecutionListener) chunkPolicy)
+                .listener((ChunkListener) chunkPolicy)
+                .listener(accountUpsertWriter)
+                .build();
+
+        return new StepBuilder("monthlyInterestStep", jobRepository)
+                .partitioner("monthlyInterestWorkerStep", accountKeyPartitioner)
+                .step(workerStep)
+                .gridSize(accountPartitionProps.getPartitions())
+                .taskExecutor(stepConcurrencyLimiter.forStep("monthlyInterestStep", batchTaskExecutor,
+                        MONTHLY_INTEREST_CONNECTIONS_PER_CHUNK))
+                .listener(stepListener)
+                .listener(accountKeyPartitioner)           // Skew entre particiones y limpieza de archivos
+                .build();
+    }
+
+    // Archivo de la partición asignada (ver AccountKeyPartitioner)
+    @Bean
+    @StepScope
+    public FlatFileItemReader<AccountCsv> accountPartitionReader(
+            @Value("#{stepExecutionContext['partitionFile']}") String partitionFile) {
+        return new FlatFileItemReaderBuilder<AccountCsv>()
+                .name("accountPartitionReader")
+                .resource(new FileSystemResource(partitionFile))
+                .linesToSkip(1)
+                .delimited()
+                .names("cuenta_id","nombre","saldo","edad","tipo")
+                .fieldSetMapper(new BeanWrapperFieldSetMapper<>() {{
+                    setTargetType(AccountCsv.class);
+                }})
                 .build();
     }
 
@@ -236,6 +592,7 @@ public class BatchJobsConfig {
     
     // Job 3: Procesamiento de Cuentas Anuales Independientes - SIMPLIFICADO
     @Bean
+    @SuppressWarnings("removal") // throttleLimit: ver stepConcurrencyLimiter
     public Job annualAccountsJob(JobRepository jobRepository, 
                                 PlatformTransactionManager txManager,
                                 TaskExecutor batchTaskExecutor,
@@ -244,7 +601,7 @@ public class BatchJobsConfig {
         // Reader para cuentas anuales independientes
         FlatFileItemReader<CuentaAnualCsv> reader = new FlatFileItemReaderBuilder<CuentaAnualCsv>()
                 .name("cuentaAnualCsvReader")
-                .resource(new FileSystemResource(props.getDataDir() + "/cuentas_anuales.csv"))
+                .resource(inputFileTracker.track("annualAccountsJob", props.getDataDir() + "/cuentas_anuales.csv"))
                 .delimited()
                 .names("cuenta_id", "fecha", "transaccion", "monto", "descripcion")
                 .linesToSkip(1)
@@ -253,29 +610,89 @@ public class BatchJobsConfig {
                 }})
                 .build();
 
+        // Processor SIMPLIFICADO - usa directamente el procesador sin servicios extra
+        ItemProcessor<CuentaAnualCsv, AnnualAccountData> processor = cuentaAnualProcessor;
+
+        if (annualProps.getMode() == AnnualAggregationProperties.Mode.AGGREGATE) {
+            return annualAggregateJob(jobRepository, txManager, batchTaskExecutor, reader, processor);
+        }
+
         // Writer
         JpaItemWriter<AnnualAccountData> writer = new JpaItemWriter<>();
         writer.setEntityManagerFactory(emf);
 
-        // Processor SIMPLIFICADO - usa directamente el procesador sin servicios extra
-        ItemProcessor<CuentaAnualCsv, AnnualAccountData> processor = cuentaAnualProcessor;
+        AdaptiveCompletionPolicy chunkPolicy = chunkPolicy("annualAccountsJob", "annualAccountsStep");
 
         Step step = new StepBuilder("annualAccountsStep", jobRepository)
-                .<CuentaAnualCsv, AnnualAccountData>chunk(calculateOptimalChunkSize("annual"), txManager)  
+                .<CuentaAnualCsv, AnnualAccountData>chunk(chunkPolicy, txManager)  
                 .reader(reader)
                 .processor(processor)
                 .writer(writer)
-                .taskExecutor(batchTaskExecutor)           
+                .taskExecutor(stepConcurrencyLimiter.forStep("annualAccountsStep", batchTaskExecutor))
+                .throttleLimit(stepConcurrencyLimiter.ceiling())
                 .faultTolerant()
                 .skipPolicy(customSkipPolicy)              
                 .retryLimit(3)
                 .retry(Exception.class)
                 .listener(stepListener)
+                .listener((StepExecutionListener) chunkPolicy)
+                .listener((ChunkListener) chunkPolicy)
                 .build();
 
         return new JobBuilder("annualAccountsJob", jobRepository)
                 .start(step)
-                .listener(jobListener)                     
+                .listener(jobListener)
+                .listener(inputFileTracker)
+                .listener(accountSnapshotStore)
+                .build();
+    }
+
+    // Modo AGGREGATE: agrega por (cuenta, año) con spill a disco y escribe annual_statement por lotes
+    @SuppressWarnings("removal")
+    private Job annualAggregateJob(JobRepository jobRepository,
+                                   PlatformTransactionManager txManager,
+                                   TaskExecutor batchTaskExecutor,
+                                   FlatFileItemReader<CuentaAnualCsv> reader,
+                                   ItemProcessor<CuentaAnualCsv, AnnualAccountData> processor) {
+
+        // La tabla agregada no sobrevive a un reinicio: el reader tampoco guarda posición y el step
+        // vuelve a leer el archivo completo (reanudar a mitad perdería las filas ya agregadas)
+        reader.setSaveState(false);
+
+        AdaptiveCompletionPolicy chunkPolicy = chunkPolicy("annualAccountsJob", "annualAccountsStep");
+
+        Step aggregateStep = new StepBuilder("annualAccountsStep", jobRepository)
+                .<CuentaAnualCsv, AnnualAccountData>chunk(chunkPolicy, txManager)
+                .reader(reader)
+                .processor(processor)
+                .writer(annualStatementAggregator)
+                .taskExecutor(stepConcurrencyLimiter.forStep("annualAccountsStep", batchTaskExecutor))
+                .throttleLimit(stepConcurrencyLimiter.ceiling())
+                .faultTolerant()
+                .skipPolicy(customSkipPolicy)
+                .retryLimit(3)
+                .retry(Exception.class)
+                .listener(stepListener)
+                .listener((StepExecutionListener) chunkPolicy)
+                .listener((ChunkListener) chunkPolicy)
+                .listener(annualStatementAggregator)       // Reinicia la agregación de esta ejecución
+                // El estado agregado vive en memoria/disco local: al reiniciar se vuelve a agregar
+                // aunque el step haya completado (si falló el merge)
+                .allowStartIfComplete(true)
+                .build();
+
+        Step mergeStep = new StepBuilder("annualStatementMergeStep", jobRepository)
+                .tasklet(annualStatementAggregator, txManager)
+                .listener(stepListener)
+                .build();
+
+        return new JobBuilder("annualAccountsJob", jobRepository)
+                .start(aggregateStep)
+                .next(mergeStep)
+                .listener(jobListener)
+                .listener(inputFileTracker)
+                .listener(accountSnapshotStore)
+                .listener(annualStatementAggregator)   // Libera la agregación si el job falla antes del merge
                 .build();
     }
 }
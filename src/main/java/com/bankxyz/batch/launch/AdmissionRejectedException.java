@@ -0,0 +1,20 @@
+package com.bankxyz.batch.launch;
+
+import java.time.Duration;
+
+/**
+ * La cola de admisión está llena: el cliente debe reintentar después de {@link #getRetryAfter()}.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
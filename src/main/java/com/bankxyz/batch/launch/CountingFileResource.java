@@ -0,0 +1,91 @@
+package com.bankxyz.batch.launch;
+
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FileSystemResource que cuenta los bytes leídos por cada JobExecution.
+ * El reader lee con buffer, así que el conteo va unos KB por delante del ítem en curso.
+ *
+ * La ejecución se toma del step en curso al abrir el stream: dos ejecuciones concurrentes del
+ * mismo job llevan cuentas separadas. Fuera de un step (pruebas, herramientas) no se cuenta.
+ */
+public class CountingFileResource extends FileSystemResource {
+
+    private final Map<Long, AtomicLong> bytesRead = new ConcurrentHashMap<>();
+
+    public CountingFileResource(String path) {
+        super(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        // FlatFileItemReader relee desde el inicio al abrir (también al reiniciar): la cuenta vuelve a cero
+        AtomicLong counter = counter();
+        counter.set(0);
+        return new FilterInputStream(super.getInputStream()) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    counter.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int off, int len) throws IOException {
+                int n = super.read(buffer, off, len);
+                if (n > 0) {
+                    counter.addAndGet(n);
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                counter.addAndGet(skipped);
+                return skipped;
+            }
+        };
+    }
+
+    /**
+     * Contador de la JobExecution del step en curso. Los readers que no pasan por
+     * {@link #getInputStream()} (rangos de bytes) suman aquí lo que consumen.
+     */
+    public AtomicLong counter() {
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context == null) {
+            return new AtomicLong();
+        }
+        return bytesRead.computeIfAbsent(context.getStepExecution().getJobExecutionId(), id -> new AtomicLong());
+    }
+
+    public long getBytesRead(long jobExecutionId) {
+        AtomicLong counter = bytesRead.get(jobExecutionId);
+        return counter != null ? counter.get() : 0;
+    }
+
+    void release(long jobExecutionId) {
+        bytesRead.remove(jobExecutionId);
+    }
+
+    /** Tamaño del archivo en bytes, o -1 si no existe. */
+    public long getTotalBytes() {
+        try {
+            return contentLength();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
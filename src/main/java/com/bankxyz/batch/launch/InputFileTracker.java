@@ -0,0 +1,49 @@
+package com.bankxyz.batch.launch;
+
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de los archivos de entrada por job, para estimar el avance por bytes consumidos.
+ *
+ * El archivo se registra por nombre de job; los bytes leídos se cuentan por JobExecution (ver
+ * {@link CountingFileResource}) y se descartan al terminar el job.
+ */
+@Component
+public class InputFileTracker implements JobExecutionListener {
+
+    private final Map<String, CountingFileResource> resources = new ConcurrentHashMap<>();
+
+    /**
+     * Devuelve el recurso de entrada del job, creándolo la primera vez (un archivo por job).
+     * Los readers step-scoped lo piden en cada ejecución y comparten el mismo recurso.
+     */
+    public CountingFileResource track(String jobName, String path) {
+        return resources.compute(jobName, (name, current) ->
+            current != null && current.getPath().equals(StringUtils.cleanPath(path))
+                ? current
+                : new CountingFileResource(path));
+    }
+
+    public Optional<CountingFileResource> forJob(String jobName) {
+        return Optional.ofNullable(resources.get(jobName));
+    }
+
+    /**
+     * Descarta las cuentas de una ejecución terminada.
+     */
+    public void release(long jobExecutionId) {
+        resources.values().forEach(resource -> resource.release(jobExecutionId));
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        release(jobExecution.getId());
+    }
+}
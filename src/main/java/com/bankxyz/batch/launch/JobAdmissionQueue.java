@@ -0,0 +1,244 @@
+package com.bankxyz.batch.launch;
+
+import com.bankxyz.batch.config.AdmissionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cola de admisión delante del lanzamiento de jobs por HTTP.
+ * REQUERIMIENTO: "Que /jobs/run no lance ejecuciones superpuestas del mismo job"
+ *
+ * Las solicitudes esperan en una cola acotada ordenada por prioridad (y orden de llegada).
+ * Una solicitud idéntica a otra que todavía espera se une a ella y comparte su ejecución.
+ * Cada job tiene un cupo de ejecuciones simultáneas; con la cola llena se rechaza con
+ * AdmissionRejectedException (429 + Retry-After).
+ */
+@Component
+public class JobAdmissionQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobAdmissionQueue.class);
+
+    private static final int MAX_TRACKED_TICKETS = 1000;
+
+    public enum State { QUEUED, RUNNING, FINISHED, FAILED }
+
+    private static final Comparator<Ticket> DISPATCH_ORDER =
+        Comparator.comparingInt((Ticket t) -> -t.priority).thenComparingLong(t -> t.id);
+
+    private final JobLaunchService jobLaunchService;
+    private final AdmissionProperties props;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService dispatcher;
+
+    private final Object lock = new Object();
+    private final List<Ticket> pending = new ArrayList<>();
+    private final Map<String, Ticket> pendingByKey = new HashMap<>();
+    private final Map<String, List<Ticket>> running = new HashMap<>();
+    private final AtomicLong ticketIds = new AtomicLong();
+    private final Map<Long, Ticket> tickets = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Ticket> eldest) {
+            return size() > MAX_TRACKED_TICKETS;
+        }
+    };
+
+    public JobAdmissionQueue(JobLaunchService jobLaunchService, AdmissionProperties props, MeterRegistry meterRegistry) {
+        this.jobLaunchService = jobLaunchService;
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("batch.admission.queue.depth", this, JobAdmissionQueue::queueDepth)
+            .description("Solicitudes de jobs esperando cupo")
+            .register(meterRegistry);
+        Gauge.builder("batch.admission.running", this, JobAdmissionQueue::runningCount)
+            .description("Ejecuciones admitidas en curso")
+            .register(meterRegistry);
+
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "job-admission");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = props.getDispatchInterval().toMillis();
+        dispatcher.scheduleWithFixedDelay(this::dispatch, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Encola una solicitud del job, o la une a una idéntica que aún espera.
+     * @throws AdmissionRejectedException si la cola está llena
+     */
+    public Ticket submit(String jobName, Integer priority) {
+        if (!jobLaunchService.hasJob(jobName)) {
+            throw new IllegalArgumentException("Unknown job: " + jobName);
+        }
+        int effectivePriority = priority != null ? priority : props.priorityFor(jobName);
+        Ticket ticket;
+        synchronized (lock) {
+            // Las solicitudes solo difieren por el timestamp que se agrega al despachar: la clave es el job
+            Ticket existing = pendingByKey.get(jobName);
+            if (existing != null) {
+                existing.requests.incrementAndGet();
+                existing.priority = Math.max(existing.priority, effectivePriority);
+                counter("batch.admission.coalesced", jobName).increment();
+                logger.info("🔗 Solicitud de {} unida al ticket {} en espera", jobName, existing.id);
+                return existing;
+            }
+            if (pending.size() >= props.getQueueCapacity()) {
+                counter("batch.admission.rejected", jobName).increment();
+                throw new AdmissionRejectedException("Cola de admisión llena (" + pending.size() + " solicitudes)",
+                    props.getRetryAfter());
+            }
+            ticket = new Ticket(ticketIds.incrementAndGet(), jobName, effectivePriority);
+            pending.add(ticket);
+            pendingByKey.put(jobName, ticket);
+            tickets.put(ticket.id, ticket);
+        }
+        dispatch();
+        return ticket;
+    }
+
+    public Optional<Ticket> ticket(long ticketId) {
+        synchronized (lock) {
+            return Optional.ofNullable(tickets.get(ticketId));
+        }
+    }
+
+    /**
+     * Posición (1 = siguiente) de un ticket en espera, o 0 si ya no espera.
+     */
+    public int position(Ticket ticket) {
+        synchronized (lock) {
+            List<Ticket> ordered = new ArrayList<>(pending);
+            ordered.sort(DISPATCH_ORDER);
+            return ordered.indexOf(ticket) + 1;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    // Libera cupos de ejecuciones terminadas y lanza las solicitudes en espera que tengan cupo
+    private void dispatch() {
+        List<Ticket> toLaunch = new ArrayList<>();
+        synchronized (lock) {
+            running.values().forEach(list -> list.removeIf(this::releaseIfFinished));
+
+            pending.sort(DISPATCH_ORDER);
+            for (Ticket ticket : new ArrayList<>(pending)) {
+                List<Ticket> slots = running.computeIfAbsent(ticket.jobName, k -> new ArrayList<>());
+                if (slots.size() < props.maxConcurrencyFor(ticket.jobName)) {
+                    pending.remove(ticket);
+                    pendingByKey.remove(ticket.jobName);
+                    slots.add(ticket);
+                    ticket.state = State.RUNNING;
+                    toLaunch.add(ticket);
+                }
+            }
+        }
+
+        // Lanzar fuera del lock: crear la ejecución escribe en el JobRepository
+        for (Ticket ticket : toLaunch) {
+            Timer.builder("batch.admission.wait")
+                .description("Espera en la cola de admisión hasta el lanzamiento")
+                .tag("job", ticket.jobName)
+                .register(meterRegistry)
+                .record(System.nanoTime() - ticket.enqueuedNanos, TimeUnit.NANOSECONDS);
+            try {
+                JobParameters params = new JobParametersBuilder()
+                        .addLong("timestamp", System.currentTimeMillis())
+                        .toJobParameters();
+                ticket.execution = jobLaunchService.launch(ticket.jobName, params);
+                ticket.started.complete(ticket.execution);
+            } catch (Exception e) {
+                logger.error("❌ No se pudo lanzar {} (ticket {}): {}", ticket.jobName, ticket.id, e.getMessage());
+                ticket.state = State.FAILED;
+                ticket.started.completeExceptionally(e);
+                ticket.finished.completeExceptionally(e);
+            }
+        }
+    }
+
+    private boolean releaseIfFinished(Ticket ticket) {
+        if (ticket.state == State.FAILED) {
+            return true;
+        }
+        JobExecution execution = ticket.execution;
+        if (execution == null || execution.isRunning()) {
+            return false;
+        }
+        ticket.state = State.FINISHED;
+        ticket.finished.complete(execution);
+        return true;
+    }
+
+    private Counter counter(String name, String jobName) {
+        return Counter.builder(name).tag("job", jobName).register(meterRegistry);
+    }
+
+    private double queueDepth() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    private double runningCount() {
+        synchronized (lock) {
+            return running.values().stream().mapToInt(List::size).sum();
+        }
+    }
+
+    /**
+     * Solicitud admitida. Varias solicitudes idénticas comparten el mismo ticket.
+     */
+    public static final class Ticket {
+        private final long id;
+        private final String jobName;
+        private final long enqueuedNanos = System.nanoTime();
+        private final AtomicInteger requests = new AtomicInteger(1);
+        private final CompletableFuture<JobExecution> started = new CompletableFuture<>();
+        private final CompletableFuture<JobExecution> finished = new CompletableFuture<>();
+        private volatile int priority;
+        private volatile State state = State.QUEUED;
+        private volatile JobExecution execution;
+
+        private Ticket(long id, String jobName, int priority) {
+            this.id = id;
+            this.jobName = jobName;
+            this.priority = priority;
+        }
+
+        public long getId() { return id; }
+        public String getJobName() { return jobName; }
+        public int getPriority() { return priority; }
+        public int getRequests() { return requests.get(); }
+        public State getState() { return state; }
+        public JobExecution getExecution() { return execution; }
+        public CompletableFuture<JobExecution> started() { return started; }
+        public CompletableFuture<JobExecution> finished() { return finished; }
+    }
+}
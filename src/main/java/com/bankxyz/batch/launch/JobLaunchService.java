@@ -0,0 +1,235 @@
+package com.bankxyz.batch.launch;
+
+import com.bankxyz.batch.feed.SseOutbox;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Lanzamiento asíncrono de jobs y consulta de su avance.
+ * REQUERIMIENTO: "No retener el hilo HTTP durante todo el job"
+ *
+ * Usa un TaskExecutorJobLauncher propio (el JobLauncher síncrono sigue atendiendo a
+ * BatchJobRunner y a /jobs/run). Las ejecuciones lanzadas aquí se consultan en memoria, con
+ * contadores en vivo; las demás se leen del JobRepository.
+ */
+@Component
+public class JobLaunchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLaunchService.class);
+
+    // Ventana mínima para medir el throughput actual entre dos consultas
+    private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // Eventos de avance pendientes por conexión SSE; si no hay lugar el cliente no está leyendo
+    private static final int PROGRESS_QUEUE_SIZE = 4;
+
+    private final Map<String, Job> jobs;
+    private final JobExplorer jobExplorer;
+    private final InputFileTracker inputFileTracker;
+    private final ThreadPoolTaskExecutor launchExecutor;
+    private final TaskExecutorJobLauncher launcher;
+    private final ScheduledExecutorService streams;
+    private final ExecutorService streamSenders;
+
+    private final Map<Long, JobExecution> active = new ConcurrentHashMap<>();
+    private final Map<Long, RateSample> rates = new ConcurrentHashMap<>();
+
+    public JobLaunchService(List<Job> jobs, JobRepository jobRepository, JobExplorer jobExplorer,
+                            InputFileTracker inputFileTracker) throws Exception {
+        this.jobs = jobs.stream().collect(Collectors.toMap(Job::getName, Function.identity()));
+        this.jobExplorer = jobExplorer;
+        this.inputFileTracker = inputFileTracker;
+
+        this.launchExecutor = new ThreadPoolTaskExecutor();
+        launchExecutor.setCorePoolSize(this.jobs.size());
+        launchExecutor.setMaxPoolSize(this.jobs.size());
+        launchExecutor.setQueueCapacity(20);
+        launchExecutor.setThreadNamePrefix("job-launch-");
+        launchExecutor.initialize();
+
+        this.launcher = new TaskExecutorJobLauncher();
+        launcher.setJobRepository(jobRepository);
+        launcher.setTaskExecutor(launchExecutor);
+        launcher.afterPropertiesSet();
+
+        this.streams = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "job-progress-sse");
+            t.setDaemon(true);
+            return t;
+        });
+        AtomicInteger senderIds = new AtomicInteger();
+        this.streamSenders = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "job-progress-send-" + senderIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public boolean hasJob(String jobName) {
+        return jobs.containsKey(jobName);
+    }
+
+    /**
+     * Lanza el job y devuelve de inmediato la ejecución creada (estado STARTING/STARTED).
+     */
+    public JobExecution launch(String jobName, JobParameters params) throws Exception {
+        Job job = jobs.get(jobName);
+        if (job == null) {
+            throw new IllegalArgumentException("Unknown job: " + jobName);
+        }
+        JobExecution execution = launcher.run(job, params);
+        active.put(execution.getId(), execution);
+        logger.info("🚀 Job {} lanzado en segundo plano (execution {})", jobName, execution.getId());
+        return execution;
+    }
+
+    public Optional<JobProgress> progress(long executionId) {
+        JobExecution execution = active.get(executionId);
+        if (execution != null && !execution.isRunning()) {
+            active.remove(executionId);
+            rates.remove(executionId);
+        }
+        if (execution == null) {
+            execution = jobExplorer.getJobExecution(executionId);
+        }
+        return Optional.ofNullable(execution).map(this::toProgress);
+    }
+
+    /**
+     * Emite el avance cada {@code interval} como evento SSE "progress" hasta que el job termina.
+     * El hilo {@code job-progress-sse} solo encola: los envíos corren en {@code job-progress-send-*}
+     * y un cliente que no lee se desconecta sin demorar los streams de los demás.
+     */
+    public SseEmitter stream(long executionId, Duration interval) {
+        SseEmitter emitter = new SseEmitter(0L);
+        SseOutbox outbox = new SseOutbox(emitter, PROGRESS_QUEUE_SIZE, streamSenders);
+        ScheduledFuture<?>[] task = new ScheduledFuture<?>[1];
+        task[0] = streams.scheduleAtFixedRate(() -> {
+            if (outbox.isClosed()) {
+                // Cliente desconectado
+                task[0].cancel(false);
+                return;
+            }
+            Optional<JobProgress> progress = progress(executionId);
+            if (progress.isEmpty()) {
+                outbox.abort(new IllegalArgumentException("Job execution not found: " + executionId));
+                task[0].cancel(false);
+                return;
+            }
+            if (!outbox.offer(SseEmitter.event().name("progress").id(Long.toString(System.currentTimeMillis())).data(progress.get()))) {
+                logger.warn("⚠️ Stream de avance de la ejecución {} desconectado: el cliente no lee", executionId);
+                outbox.abort(new IllegalStateException("Progress stream client fell behind"));
+                task[0].cancel(false);
+                return;
+            }
+            if (progress.get().isFinished()) {
+                outbox.complete();
+                task[0].cancel(false);
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+
+        emitter.onCompletion(() -> task[0].cancel(false));
+        emitter.onTimeout(() -> task[0].cancel(false));
+        emitter.onError(e -> task[0].cancel(false));
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streams.shutdownNow();
+        streamSenders.shutdownNow();
+        launchExecutor.shutdown();
+    }
+
+    private JobProgress toProgress(JobExecution execution) {
+        long read = 0;
+        long write = 0;
+        long skip = 0;
+        for (StepExecution step : execution.getStepExecutions()) {
+            read += step.getReadCount();
+            write += step.getWriteCount();
+            skip += step.getSkipCount();
+        }
+
+        String jobName = execution.getJobInstance().getJobName();
+        LocalDateTime start = execution.getStartTime();
+        long elapsedMs = start == null ? 0 : Duration.between(start,
+            execution.getEndTime() != null ? execution.getEndTime() : LocalDateTime.now()).toMillis();
+
+        double itemsPerSecond = execution.isRunning()
+            ? currentRate(execution.getId(), read, elapsedMs)
+            : (elapsedMs > 0 ? read * 1000.0 / elapsedMs : 0);
+
+        long bytesRead = 0;
+        long totalBytes = -1;
+        Double percent = null;
+        Long etaSeconds = null;
+        Optional<CountingFileResource> input = inputFileTracker.forJob(jobName);
+        if (input.isPresent() && input.get().getTotalBytes() > 0) {
+            totalBytes = input.get().getTotalBytes();
+            if (execution.isRunning()) {
+                bytesRead = Math.min(input.get().getBytesRead(execution.getId()), totalBytes);
+                double fraction = (double) bytesRead / totalBytes;
+                percent = Math.round(fraction * 1000) / 10.0;
+                if (fraction > 0) {
+                    etaSeconds = Math.round(elapsedMs * (1 - fraction) / fraction / 1000);
+                }
+            } else if (execution.getStatus() == BatchStatus.COMPLETED) {
+                bytesRead = totalBytes;
+                percent = 100.0;
+                etaSeconds = 0L;
+            }
+        }
+
+        return new JobProgress(execution.getId(), jobName, execution.getStatus().name(),
+            execution.getExitStatus().getExitCode(), start, execution.getEndTime(),
+            read, write, skip, Math.round(itemsPerSecond * 10) / 10.0,
+            bytesRead, totalBytes, percent, etaSeconds);
+    }
+
+    // Throughput de la última ventana (>= 1 s) entre consultas; promedio hasta tener una ventana
+    private double currentRate(long executionId, long readCount, long elapsedMs) {
+        long now = System.nanoTime();
+        double average = elapsedMs > 0 ? readCount * 1000.0 / elapsedMs : 0;
+        RateSample sample = rates.compute(executionId, (id, previous) -> {
+            if (previous == null) {
+                return new RateSample(now, readCount, average);
+            }
+            long dt = now - previous.nanos();
+            if (dt < RATE_WINDOW_NANOS) {
+                return previous;
+            }
+            return new RateSample(now, readCount, (readCount - previous.readCount()) * 1e9 / dt);
+        });
+        return sample.rate();
+    }
+
+    private record RateSample(long nanos, long readCount, double rate) {}
+}
@@ -0,0 +1,28 @@
+package com.bankxyz.batch.launch;
+
+import java.time.LocalDateTime;
+
+/**
+ * Avance de una ejecución de job: contadores de todos sus steps, throughput y ETA.
+ * percent y etaSeconds se basan en los bytes consumidos del archivo de entrada (null si no aplica).
+ */
+public record JobProgress(
+        long executionId,
+        String jobName,
+        String status,
+        String exitCode,
+        LocalDateTime startTime,
+        LocalDateTime endTime,
+        long readCount,
+        long writeCount,
+        long skipCount,
+        double itemsPerSecond,
+        long bytesRead,
+        long totalBytes,
+        Double percent,
+        Long etaSeconds) {
+
+    public boolean isFinished() {
+        return endTime != null;
+    }
+}
@@ -1,5 +1,6 @@
 package com.bankxyz.batch.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import java.math.BigDecimal;
@@ -32,6 +33,11 @@ public class Account {
     @Max(value = 150, message = "Age must be less than or equal to 150")
     private Integer age;
 
+    // Interés aplicado en la ejecución actual de monthlyInterestJob (no persistido en account)
+    @Transient
+    @JsonIgnore
+    private BigDecimal interestApplied;
+
     // Constructores
     public Account() {}
 
@@ -59,6 +65,9 @@ public class Account {
     public Integer getAge() { return age; }
     public void setAge(Integer age) { this.age = age; }
 
+    public BigDecimal getInterestApplied() { return interestApplied; }
+    public void setInterestApplied(BigDecimal interestApplied) { this.interestApplied = interestApplied; }
+
     @Override
     public String toString() {
         return String.format("Account{id=%d, accountNumber='%s', ownerName='%s', type='%s', balance=%s, age=%d}", 
@@ -0,0 +1,50 @@
+package com.bankxyz.batch.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Campos de {@link Account} seleccionables en las respuestas de la API: nombre JSON y columna
+ * de la tabla account, para que una selección se traduzca tanto en la serialización como en
+ * el SELECT.
+ */
+public enum AccountField {
+
+    ID("id", "id"),
+    ACCOUNT_NUMBER("accountNumber", "account_number"),
+    OWNER_NAME("ownerName", "owner_name"),
+    TYPE("type", "type"),
+    BALANCE("balance", "balance"),
+    AGE("age", "age");
+
+    public static final Set<AccountField> ALL = Collections.unmodifiableSet(EnumSet.allOf(AccountField.class));
+
+    private final String jsonName;
+    private final String column;
+
+    AccountField(String jsonName, String column) {
+        this.jsonName = jsonName;
+        this.column = column;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * @throws IllegalArgumentException si el nombre no corresponde a ningún campo
+     */
+    public static AccountField fromJsonName(String jsonName) {
+        for (AccountField field : values()) {
+            if (field.jsonName.equals(jsonName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown account field: " + jsonName);
+    }
+}
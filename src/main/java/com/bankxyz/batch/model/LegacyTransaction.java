@@ -28,6 +28,10 @@ public class LegacyTransaction {
     @NotNull(message = "Amount cannot be null")
     private BigDecimal amount;
 
+    // Resultado de la detección de anomalías: solo viaja del processor al writer (reporte diario)
+    @Transient
+    private boolean anomaly;
+
     // getters & setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -41,4 +45,6 @@ public class LegacyTransaction {
     public void setDescription(String description) { this.description = description; }
     public BigDecimal getAmount() { return amount; }
     public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public boolean isAnomaly() { return anomaly; }
+    public void setAnomaly(boolean anomaly) { this.anomaly = anomaly; }
 }
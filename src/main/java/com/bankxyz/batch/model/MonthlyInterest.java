@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "monthly_interest")
+@Table(name = "monthly_interest",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"month_year", "account_number"}))
 public class MonthlyInterest {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
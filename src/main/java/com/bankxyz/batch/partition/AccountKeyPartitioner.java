@@ -0,0 +1,221 @@
+package com.bankxyz.batch.partition;
+
+import com.bankxyz.batch.config.AccountPartitionProperties;
+import com.bankxyz.batch.config.AppProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Partitioner de intereses.csv por hash de cuenta_id.
+ * REQUERIMIENTO: "Que dos hilos nunca actualicen la misma cuenta a la vez"
+ *
+ * Reparte las líneas en un archivo por partición (con el encabezado original); todas las
+ * líneas de una cuenta caen en la misma partición, que procesa un solo hilo, así los UPSERT
+ * de distintas particiones nunca compiten por la misma fila. Al terminar el step manager
+ * publica el desbalance entre particiones (skew = máximo / promedio de ítems leídos).
+ *
+ * El directorio de trabajo de cada ejecución queda en el contexto del step manager: un reinicio
+ * (que reutiliza las particiones sin llamar a partition) lo encuentra ahí para limpiarlo, y dos
+ * jobs en la misma JVM no comparten estado en este singleton.
+ */
+@Component
+public class AccountKeyPartitioner implements Partitioner, StepExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountKeyPartitioner.class);
+
+    public static final String PARTITION_FILE = "partitionFile";
+    public static final String PARTITION_LINES = "partitionLines";
+    public static final String WORK_DIR = "partitionWorkDir";
+
+    private final AppProperties appProps;
+    private final AccountPartitionProperties props;
+    private final MeterRegistry meterRegistry;
+    private final JobRepository jobRepository;
+
+    // Últimos valores publicados como gauges: skew por step e ítems por partición
+    private final Map<String, AtomicLong> itemGauges = new ConcurrentHashMap<>();
+    private final AtomicLong skewPermille = new AtomicLong();
+
+    public AccountKeyPartitioner(AppProperties appProps, AccountPartitionProperties props,
+                                 MeterRegistry meterRegistry, JobRepository jobRepository) {
+        this.appProps = appProps;
+        this.props = props;
+        this.meterRegistry = meterRegistry;
+        this.jobRepository = jobRepository;
+        Gauge.builder("batch.partition.skew", skewPermille, v -> v.get() / 1000.0)
+            .description("Ítems de la partición más cargada / promedio por partición")
+            .tag("step", "monthlyInterestStep")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Path input = Path.of(appProps.getDataDir(), "intereses.csv");
+        try {
+            Path workDir = Files.createTempDirectory(
+                Files.createDirectories(Path.of(props.getWorkDir())), "account-partitions-");
+            rememberWorkDir(workDir);
+
+            List<BufferedWriter> writers = new ArrayList<>(gridSize);
+            long[] lines = new long[gridSize];
+            try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+                String header = reader.readLine();
+                for (int i = 0; i < gridSize; i++) {
+                    BufferedWriter writer = Files.newBufferedWriter(partitionFile(workDir, i), StandardCharsets.UTF_8);
+                    writers.add(writer);
+                    if (header != null) {
+                        writer.write(header);
+                        writer.newLine();
+                    }
+                }
+
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    int partition = partitionOf(keyOf(line), gridSize);
+                    writers.get(partition).write(line);
+                    writers.get(partition).newLine();
+                    lines[partition]++;
+                }
+            } finally {
+                for (BufferedWriter writer : writers) {
+                    writer.close();
+                }
+            }
+
+            Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+            for (int i = 0; i < gridSize; i++) {
+                ExecutionContext context = new ExecutionContext();
+                context.putString(PARTITION_FILE, partitionFile(workDir, i).toString());
+                context.putLong(PARTITION_LINES, lines[i]);
+                partitions.put("partition" + i, context);
+            }
+            logger.info("🔀 intereses.csv repartido por hash de cuenta en {} particiones: {}", gridSize, Arrays.toString(lines));
+            return partitions;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo particionar " + input, e);
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        List<StepExecution> partitions = stepExecution.getJobExecution().getStepExecutions().stream()
+            .filter(step -> step.getStepName().startsWith("monthlyInterestWorkerStep:"))
+            .toList();
+        if (!partitions.isEmpty()) {
+            publishSkew(stepExecution, partitions);
+        }
+
+        // Si el step falla se conservan los archivos: un reinicio reutiliza las particiones pendientes
+        String workDir = stepExecution.getExecutionContext().getString(WORK_DIR, null);
+        if (workDir != null && stepExecution.getStatus() == BatchStatus.COMPLETED) {
+            Path dir = Path.of(workDir);
+            try {
+                FileSystemUtils.deleteRecursively(dir);
+            } catch (IOException e) {
+                logger.warn("⚠️ No se pudieron borrar los archivos de partición en {}: {}", dir, e.getMessage());
+            }
+        }
+        return stepExecution.getExitStatus();
+    }
+
+    private void publishSkew(StepExecution manager, List<StepExecution> partitions) {
+        long max = 0;
+        long min = Long.MAX_VALUE;
+        long total = 0;
+        StringBuilder counts = new StringBuilder();
+        for (StepExecution partition : partitions) {
+            long items = partition.getReadCount();
+            max = Math.max(max, items);
+            min = Math.min(min, items);
+            total += items;
+            counts.append(counts.length() > 0 ? "," : "").append(items);
+
+            String name = partition.getStepName().substring(partition.getStepName().indexOf(':') + 1);
+            itemGauges.computeIfAbsent(name, n -> {
+                AtomicLong value = new AtomicLong();
+                Gauge.builder("batch.partition.items", value, AtomicLong::get)
+                    .description("Ítems leídos por la partición en la última ejecución")
+                    .tags("step", "monthlyInterestStep", "partition", n)
+                    .register(meterRegistry);
+                return value;
+            }).set(items);
+        }
+
+        double mean = (double) total / partitions.size();
+        double skew = mean > 0 ? max / mean : 1.0;
+        skewPermille.set(Math.round(skew * 1000));
+
+        ExecutionContext ctx = manager.getExecutionContext();
+        ctx.putString("partitionItemCounts", counts.toString());
+        ctx.putDouble("partitionSkew", skew);
+        ctx.putLong("partitionMaxItems", max);
+        ctx.putLong("partitionMinItems", min);
+
+        logger.info("📐 Skew de particiones en {}: {} (máx {}, mín {}, promedio {}) - ítems: [{}]",
+            manager.getStepName(), String.format("%.2f", skew), max, min, Math.round(mean), counts);
+    }
+
+    // partition() corre en el hilo del step manager: se guarda en su contexto en el acto, para que
+    // un reinicio tras una caída del proceso (sin contexto actualizado al final del step) lo encuentre
+    private void rememberWorkDir(Path workDir) {
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context == null) {
+            return;
+        }
+        StepExecution manager = context.getStepExecution();
+        manager.getExecutionContext().putString(WORK_DIR, workDir.toString());
+        jobRepository.updateExecutionContext(manager);
+    }
+
+    private static Path partitionFile(Path workDir, int index) {
+        return workDir.resolve("partition-" + index + ".csv");
+    }
+
+    // cuenta_id es la primera columna
+    private static String keyOf(String line) {
+        int comma = line.indexOf(',');
+        return (comma < 0 ? line : line.substring(0, comma)).trim();
+    }
+
+    // Hash estable entre ejecuciones (String.hashCode) con mezcla final para ids consecutivos
+    static int partitionOf(String key, int partitions) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, partitions);
+    }
+}
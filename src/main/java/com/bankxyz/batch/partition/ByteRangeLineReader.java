@@ -0,0 +1,149 @@
+package com.bankxyz.batch.partition;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.file.LineMapper;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Reader de las líneas que empiezan dentro de un rango de bytes [start, end) de un archivo.
+ *
+ * Si el rango no empieza en un inicio de línea, la línea partida pertenece a la partición anterior
+ * y se descarta. Guarda en el contexto el offset de la próxima línea, por lo que una partición
+ * reclamada tras la caída de su worker continúa desde el último commit.
+ *
+ * El offset es el de la última línea leída: solo coincide con el último chunk confirmado si el
+ * step lee y escribe en un único hilo. No usar en steps con taskExecutor.
+ *
+ * Con {@link #setBytesReadCounter} suma los bytes consumidos del rango al contador de avance del job.
+ */
+public class ByteRangeLineReader<T> extends ItemStreamSupport implements ItemStreamReader<T> {
+
+    private static final String POSITION = "position";
+
+    private final Path file;
+    private final long start;
+    private final long end;
+    private final LineMapper<T> lineMapper;
+
+    private FileChannel channel;
+    private InputStream in;
+    private long position;
+    private int lineNumber;
+    private Supplier<AtomicLong> bytesReadCounter = AtomicLong::new;
+    private AtomicLong bytesRead;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+
+    public ByteRangeLineReader(Path file, long start, long end, LineMapper<T> lineMapper) {
+        this.file = file;
+        this.start = start;
+        this.end = end;
+        this.lineMapper = lineMapper;
+        setName("byteRangeReader");
+    }
+
+    /**
+     * Contador de avance, resuelto al abrir el reader (ver InputFileTracker).
+     */
+    public void setBytesReadCounter(Supplier<AtomicLong> bytesReadCounter) {
+        this.bytesReadCounter = bytesReadCounter;
+    }
+
+    @Override
+    public synchronized void open(ExecutionContext executionContext) {
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            String key = getExecutionContextKey(POSITION);
+            if (executionContext.containsKey(key)) {
+                // Reinicio: el offset guardado siempre es un inicio de línea
+                seek(executionContext.getLong(key));
+            } else if (start > 0) {
+                // Alinear al primer inicio de línea >= start
+                seek(start - 1);
+                readLine();
+            } else {
+                seek(0);
+            }
+            // Lo ya procesado del rango (reinicio) cuenta como leído
+            bytesRead = bytesReadCounter.get();
+            bytesRead.addAndGet(Math.max(0, position - start));
+        } catch (IOException e) {
+            throw new ItemStreamException("No se pudo abrir " + file + " en el offset " + start, e);
+        }
+    }
+
+    @Override
+    public synchronized T read() throws Exception {
+        while (position < end) {
+            long lineStart = position;
+            String text = readLine();
+            bytesRead.addAndGet(position - lineStart);
+            if (text == null) {
+                return null;
+            }
+            lineNumber++;
+            if (!text.isBlank()) {
+                return lineMapper.mapLine(text, lineNumber);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void update(ExecutionContext executionContext) {
+        executionContext.putLong(getExecutionContextKey(POSITION), position);
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("No se pudo cerrar " + file, e);
+        } finally {
+            channel = null;
+            in = null;
+        }
+    }
+
+    private void seek(long offset) throws IOException {
+        channel.position(offset);
+        in = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+        position = offset;
+    }
+
+    // Lee hasta '\n' (incluido) avanzando position; null en fin de archivo
+    private String readLine() throws IOException {
+        line.reset();
+        int b;
+        boolean any = false;
+        while ((b = in.read()) != -1) {
+            position++;
+            any = true;
+            if (b == '\n') {
+                break;
+            }
+            line.write(b);
+        }
+        if (!any) {
+            return null;
+        }
+        String text = line.toString(StandardCharsets.UTF_8);
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+    }
+}
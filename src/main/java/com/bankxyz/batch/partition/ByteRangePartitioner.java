@@ -0,0 +1,72 @@
+package com.bankxyz.batch.partition;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Divide un CSV en rangos de bytes contiguos, uno por partición.
+ *
+ * Los cortes caen en cualquier byte: cada partición procesa las líneas que EMPIEZAN dentro de su
+ * rango (ver ByteRangeLineReader), así ninguna línea se pierde ni se duplica entre particiones.
+ * El primer rango empieza después del encabezado.
+ */
+public class ByteRangePartitioner implements Partitioner {
+
+    public static final String START_OFFSET = "startOffset";
+    public static final String END_OFFSET = "endOffset";
+
+    private final Path file;
+    private final int linesToSkip;
+
+    public ByteRangePartitioner(Path file, int linesToSkip) {
+        this.file = file;
+        this.linesToSkip = linesToSkip;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        try {
+            long size = Files.size(file);
+            long dataStart = headerEnd();
+            long span = Math.max(1, (size - dataStart + gridSize - 1) / gridSize);
+
+            Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+            for (int i = 0; i < gridSize; i++) {
+                long start = Math.min(size, dataStart + i * span);
+                long end = i == gridSize - 1 ? size : Math.min(size, start + span);
+                ExecutionContext context = new ExecutionContext();
+                context.putLong(START_OFFSET, start);
+                context.putLong(END_OFFSET, end);
+                partitions.put("partition" + i, context);
+            }
+            return partitions;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo particionar " + file, e);
+        }
+    }
+
+    // Offset del primer byte después de las líneas de encabezado
+    private long headerEnd() throws IOException {
+        long offset = 0;
+        int skipped = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            int b;
+            while (skipped < linesToSkip && (b = in.read()) != -1) {
+                offset++;
+                if (b == '\n') {
+                    skipped++;
+                }
+            }
+        }
+        return offset;
+    }
+}
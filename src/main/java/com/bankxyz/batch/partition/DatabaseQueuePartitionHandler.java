@@ -0,0 +1,99 @@
+package com.bankxyz.batch.partition;
+
+import com.bankxyz.batch.config.PartitionProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.partition.support.AbstractPartitionHandler;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PartitionHandler del manager: publica las StepExecutions de las particiones en
+ * batch_partition_work y espera a que los workers (otras instancias) las terminen.
+ *
+ * Mientras espera, devuelve a PENDING las particiones cuyo worker dejó de enviar heartbeat,
+ * y al final recarga las StepExecutions desde el JobRepository para agregarlas al step manager.
+ */
+@Component
+public class DatabaseQueuePartitionHandler extends AbstractPartitionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseQueuePartitionHandler.class);
+
+    private final PartitionWorkQueue queue;
+    private final JobExplorer jobExplorer;
+    private final JobRepository jobRepository;
+    private final PartitionProperties props;
+
+    public DatabaseQueuePartitionHandler(PartitionWorkQueue queue, JobExplorer jobExplorer,
+                                         JobRepository jobRepository, PartitionProperties props) {
+        this.queue = queue;
+        this.jobExplorer = jobExplorer;
+        this.jobRepository = jobRepository;
+        this.props = props;
+        setGridSize(props.getGridSize());
+    }
+
+    @Override
+    protected Set<StepExecution> doHandle(StepExecution managerStepExecution,
+                                          Set<StepExecution> partitionStepExecutions) throws Exception {
+        String stepName = managerStepExecution.getStepName();
+        long jobExecutionId = managerStepExecution.getJobExecutionId();
+
+        queue.publish(stepName, partitionStepExecutions);
+        logger.info("📤 {} particiones publicadas para {} (job execution {})",
+            partitionStepExecutions.size(), stepName, jobExecutionId);
+
+        long deadline = System.nanoTime() + props.getManagerTimeout().toNanos();
+        Map<PartitionWorkQueue.Status, Integer> counts;
+        while (true) {
+            int reclaimed = queue.reclaimExpired(props.getLeaseTimeout(), props.getMaxAttempts());
+            if (reclaimed > 0) {
+                logger.warn("♻️ {} particiones sin heartbeat devueltas a la cola", reclaimed);
+            }
+
+            counts = queue.countByStatus(jobExecutionId, stepName);
+            int pending = counts.getOrDefault(PartitionWorkQueue.Status.PENDING, 0)
+                + counts.getOrDefault(PartitionWorkQueue.Status.CLAIMED, 0);
+            if (pending == 0) {
+                break;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Tiempo de espera agotado con " + pending + " particiones sin terminar en " + stepName);
+            }
+            Thread.sleep(props.getPollInterval().toMillis());
+        }
+
+        logger.info("📥 Particiones de {} terminadas: {}", stepName, counts);
+        return refresh(partitionStepExecutions);
+    }
+
+    // Las StepExecutions fueron actualizadas por otros procesos: se releen del repositorio
+    private Set<StepExecution> refresh(Set<StepExecution> partitions) {
+        Set<StepExecution> result = new HashSet<>(partitions.size());
+        for (StepExecution partition : partitions) {
+            StepExecution current = jobExplorer.getStepExecution(partition.getJobExecutionId(), partition.getId());
+            if (current == null) {
+                current = partition;
+            }
+            // Partición abandonada tras agotar reintentos: su última ejecución quedó en STARTED
+            if (current.getStatus().isRunning()) {
+                current.setStatus(BatchStatus.FAILED);
+                current.setExitStatus(ExitStatus.FAILED.addExitDescription("Partición sin worker activo tras "
+                    + props.getMaxAttempts() + " intentos"));
+                current.setEndTime(LocalDateTime.now());
+                jobRepository.update(current);
+            }
+            result.add(current);
+        }
+        return result;
+    }
+}
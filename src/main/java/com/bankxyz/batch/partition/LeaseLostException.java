@@ -0,0 +1,11 @@
+package com.bankxyz.batch.partition;
+
+/**
+ * La partición fue reclamada por otro worker: el chunk en curso no debe confirmarse.
+ */
+public class LeaseLostException extends RuntimeException {
+
+    public LeaseLostException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,37 @@
+package com.bankxyz.batch.partition;
+
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cerca de escritura del step worker: antes de cada chunk, dentro de su transacción, verifica
+ * que la partición sigue reclamada por este worker y bloquea la fila hasta el commit.
+ *
+ * Detener el step con setTerminateOnly al perder el heartbeat no alcanza: el chunk en curso
+ * confirmaría igual su escritura y su offset después de que otro worker retomara la partición.
+ * Con el bloqueo, la reclamación espera a que el chunk termine y el siguiente chunk falla.
+ * El heartbeat de este mismo worker también espera al chunk: el lease-timeout debe superar la
+ * duración de un chunk.
+ */
+@Component
+public class PartitionLeaseFence implements ChunkListener {
+
+    private final PartitionWorkQueue queue;
+    private final PartitionWorker worker;
+
+    public PartitionLeaseFence(PartitionWorkQueue queue, PartitionWorker worker) {
+        this.queue = queue;
+        this.worker = worker;
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        long stepExecutionId = context.getStepContext().getStepExecution().getId();
+        if (!queue.holdsLease(stepExecutionId, worker.getWorkerId())) {
+            throw new LeaseLostException("Lease perdido para la partición "
+                + context.getStepContext().getStepName() + " (step execution " + stepExecutionId
+                + "): otro worker la retomó");
+        }
+    }
+}
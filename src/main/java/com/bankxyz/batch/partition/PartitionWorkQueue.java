@@ -0,0 +1,141 @@
+package com.bankxyz.batch.partition;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Acceso a la cola de particiones batch_partition_work compartida por manager y workers.
+ * Todas las transiciones de estado son sentencias únicas (auto-commit), sin locks retenidos; la
+ * única excepción es {@link #holdsLease}, que se ejecuta dentro de la transacción de cada chunk.
+ */
+@Component
+public class PartitionWorkQueue {
+
+    public enum Status { PENDING, CLAIMED, COMPLETED, FAILED }
+
+    private static final String INSERT_SQL = """
+        INSERT INTO batch_partition_work (job_execution_id, step_execution_id, step_name, partition_name, start_offset, end_offset)
+        VALUES (?, ?, ?, ?, ?, ?)
+        ON CONFLICT (step_execution_id) DO NOTHING
+        """;
+
+    // SKIP LOCKED: varios workers reclaman en paralelo sin esperarse entre sí
+    private static final String CLAIM_SQL = """
+        UPDATE batch_partition_work w
+           SET status = 'CLAIMED', worker_id = ?, attempts = w.attempts + 1,
+               heartbeat_at = now(), updated_at = now()
+         WHERE w.id = (SELECT id FROM batch_partition_work
+                        WHERE status = 'PENDING'
+                        ORDER BY id
+                        FOR UPDATE SKIP LOCKED
+                        LIMIT 1)
+        RETURNING w.id, w.job_execution_id, w.step_execution_id, w.step_name, w.partition_name, w.attempts
+        """;
+
+    private static final String HEARTBEAT_SQL = """
+        UPDATE batch_partition_work SET heartbeat_at = now(), updated_at = now()
+         WHERE id = ? AND worker_id = ? AND status = 'CLAIMED'
+        """;
+
+    private static final String FINISH_SQL = """
+        UPDATE batch_partition_work SET status = ?, updated_at = now()
+         WHERE id = ? AND worker_id = ? AND status = 'CLAIMED'
+        """;
+
+    // Leases vencidos (medidos con el reloj de la base, no el de cada nodo): se reintentan hasta maxAttempts; después la partición queda FAILED
+    private static final String RECLAIM_SQL = """
+        UPDATE batch_partition_work
+           SET status = CASE WHEN attempts >= ? THEN 'FAILED' ELSE 'PENDING' END,
+               worker_id = NULL, updated_at = now()
+         WHERE status = 'CLAIMED' AND heartbeat_at < now() - ? * interval '1 millisecond'
+        """;
+
+    // FOR SHARE dentro de la transacción del chunk: el UPDATE de reclaimExpired espera a que el chunk
+    // termine, y un chunk que empieza después de la reclamación no encuentra la fila
+    private static final String HOLDS_LEASE_SQL = """
+        SELECT count(*) FROM (SELECT 1 FROM batch_partition_work
+                               WHERE step_execution_id = ? AND worker_id = ? AND status = 'CLAIMED'
+                               FOR SHARE) lease
+        """;
+
+    private static final String COUNT_SQL = """
+        SELECT status, count(*) FROM batch_partition_work
+         WHERE job_execution_id = ? AND step_name = ?
+         GROUP BY status
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PartitionWorkQueue(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Publica una fila por StepExecution de worker con su rango de bytes.
+     */
+    public void publish(String stepName, Collection<StepExecution> partitions) {
+        List<Object[]> rows = new ArrayList<>(partitions.size());
+        for (StepExecution partition : partitions) {
+            rows.add(new Object[] {
+                partition.getJobExecutionId(),
+                partition.getId(),
+                stepName,
+                partition.getStepName(),
+                partition.getExecutionContext().getLong(ByteRangePartitioner.START_OFFSET, 0L),
+                partition.getExecutionContext().getLong(ByteRangePartitioner.END_OFFSET, 0L)
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    public Optional<Claim> claim(String workerId) {
+        List<Claim> claimed = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new Claim(
+            rs.getLong("id"), rs.getLong("job_execution_id"), rs.getLong("step_execution_id"),
+            rs.getString("step_name"), rs.getString("partition_name"), rs.getInt("attempts")), workerId);
+        return claimed.stream().findFirst();
+    }
+
+    /**
+     * @return false si el lease se perdió (la partición fue reclamada por vencida)
+     */
+    public boolean heartbeat(long id, String workerId) {
+        return jdbcTemplate.update(HEARTBEAT_SQL, id, workerId) == 1;
+    }
+
+    public boolean finish(long id, String workerId, Status status) {
+        return jdbcTemplate.update(FINISH_SQL, status.name(), id, workerId) == 1;
+    }
+
+    /**
+     * Verifica y bloquea el lease en la transacción en curso: retenido hasta su commit o rollback.
+     * @return false si la partición ya no pertenece al worker
+     */
+    public boolean holdsLease(long stepExecutionId, String workerId) {
+        Integer held = jdbcTemplate.queryForObject(HOLDS_LEASE_SQL, Integer.class, stepExecutionId, workerId);
+        return held != null && held > 0;
+    }
+
+    public int reclaimExpired(Duration leaseTimeout, int maxAttempts) {
+        return jdbcTemplate.update(RECLAIM_SQL, maxAttempts, leaseTimeout.toMillis());
+    }
+
+    public Map<Status, Integer> countByStatus(long jobExecutionId, String stepName) {
+        Map<Status, Integer> counts = new EnumMap<>(Status.class);
+        jdbcTemplate.query(COUNT_SQL, rs -> {
+            counts.put(Status.valueOf(rs.getString(1)), rs.getInt(2));
+        }, jobExecutionId, stepName);
+        return counts;
+    }
+
+    public record Claim(long id, long jobExecutionId, long stepExecutionId,
+                        String stepName, String partitionName, int attempts) {}
+}
@@ -0,0 +1,169 @@
+package com.bankxyz.batch.partition;
+
+import com.bankxyz.batch.config.PartitionProperties;
+import com.bankxyz.batch.launch.InputFileTracker;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker de particiones remotas (bankxyz.partition.role=WORKER).
+ *
+ * Un hilo reclama particiones de batch_partition_work de a una, ejecuta el step worker sobre la
+ * StepExecution que creó el manager y marca el resultado en la cola. Mientras ejecuta renueva
+ * el heartbeat; si pierde el lease (otro nodo la reclamó por vencida) detiene el step, y
+ * {@link PartitionLeaseFence} impide que confirme otro chunk.
+ */
+@Component
+public class PartitionWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionWorker.class);
+
+    private final PartitionWorkQueue queue;
+    private final JobExplorer jobExplorer;
+    private final ApplicationContext applicationContext;
+    private final PartitionProperties props;
+    private final InputFileTracker inputFileTracker;
+    private final String workerId;
+
+    private volatile boolean running;
+    private Thread pollingThread;
+    private ScheduledExecutorService heartbeats;
+
+    public PartitionWorker(PartitionWorkQueue queue, JobExplorer jobExplorer,
+                           ApplicationContext applicationContext, PartitionProperties props,
+                           InputFileTracker inputFileTracker) {
+        this.queue = queue;
+        this.jobExplorer = jobExplorer;
+        this.applicationContext = applicationContext;
+        this.props = props;
+        this.inputFileTracker = inputFileTracker;
+        this.workerId = StringUtils.hasText(props.getWorkerId())
+            ? props.getWorkerId()
+            : ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (props.getRole() != PartitionProperties.Role.WORKER) {
+            return;
+        }
+        running = true;
+        heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "partition-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        pollingThread = new Thread(this::pollLoop, "partition-worker");
+        pollingThread.start();
+        logger.info("🛠️ Worker de particiones {} iniciado (poll cada {} ms)", workerId, props.getPollInterval().toMillis());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (pollingThread != null) {
+            pollingThread.interrupt();
+            pollingThread.join(props.getLeaseTimeout().toMillis());
+        }
+        if (heartbeats != null) {
+            heartbeats.shutdownNow();
+        }
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                Optional<PartitionWorkQueue.Claim> claim = queue.claim(workerId);
+                if (claim.isPresent()) {
+                    execute(claim.get());
+                } else {
+                    Thread.sleep(props.getPollInterval().toMillis());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("❌ Error en el worker de particiones {}: {}", workerId, e.getMessage(), e);
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void execute(PartitionWorkQueue.Claim claim) {
+        StepExecution stepExecution = jobExplorer.getStepExecution(claim.jobExecutionId(), claim.stepExecutionId());
+        JobExecution jobExecution = stepExecution != null ? stepExecution.getJobExecution() : null;
+
+        // Fila huérfana de una ejecución del job que ya no está activa (manager caído o job reiniciado)
+        if (jobExecution == null || !jobExecution.isRunning()) {
+            logger.warn("⚠️ Partición {} descartada: job execution {} no está en curso", claim.partitionName(), claim.jobExecutionId());
+            queue.finish(claim.id(), workerId, PartitionWorkQueue.Status.FAILED);
+            return;
+        }
+        if (stepExecution.getStatus() == BatchStatus.COMPLETED) {
+            queue.finish(claim.id(), workerId, PartitionWorkQueue.Status.COMPLETED);
+            return;
+        }
+
+        // Nombre de la partición: <stepWorker>:partitionN
+        String stepName = claim.partitionName().substring(0, claim.partitionName().indexOf(':'));
+        Step step = applicationContext.getBean(stepName, Step.class);
+
+        long interval = props.getHeartbeatInterval().toMillis();
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> {
+            if (!queue.heartbeat(claim.id(), workerId)) {
+                logger.warn("⚠️ Lease perdido para {}: deteniendo el step", claim.partitionName());
+                stepExecution.setTerminateOnly();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+
+        logger.info("▶️ Worker {} ejecutando {} (intento {})", workerId, claim.partitionName(), claim.attempts());
+        try {
+            step.execute(stepExecution);
+        } catch (Exception e) {
+            logger.error("❌ Partición {} falló: {}", claim.partitionName(), e.getMessage(), e);
+        } finally {
+            heartbeat.cancel(false);
+            // El job termina en el manager: la cuenta de bytes de este nodo no sobrevive a la partición
+            inputFileTracker.release(claim.jobExecutionId());
+        }
+
+        PartitionWorkQueue.Status status = stepExecution.getStatus() == BatchStatus.COMPLETED
+            ? PartitionWorkQueue.Status.COMPLETED
+            : PartitionWorkQueue.Status.FAILED;
+        if (queue.finish(claim.id(), workerId, status)) {
+            logger.info("✅ Partición {} terminada: {} (leídos: {}, escritos: {})", claim.partitionName(), status,
+                stepExecution.getReadCount(), stepExecution.getWriteCount());
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(props.getPollInterval().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
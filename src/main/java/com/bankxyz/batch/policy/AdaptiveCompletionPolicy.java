@@ -0,0 +1,286 @@
+package com.bankxyz.batch.policy;
+
+import com.bankxyz.batch.config.ChunkProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.batch.repeat.context.RepeatContextSupport;
+import org.springframework.batch.repeat.policy.CompletionPolicySupport;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tamaño de chunk ajustado en ejecución según la latencia por ítem de cada commit.
+ * REQUERIMIENTO: "Que el overhead de commit no domine con chunks de 5-10 ítems"
+ *
+ * Cada chunk se mide desde beforeChunk hasta afterChunk (lectura, proceso, escritura y commit).
+ * Cada {@code samplesPerAdjustment} chunks se compara la latencia promedio por ítem con la
+ * ventana anterior: si bajó se crece, si subió se retrocede un paso, y un rollback o una espera
+ * de lock recorta el tamaño de inmediato. Una instancia por step, con el estado separado por
+ * StepExecution: las particiones de un step (y ejecuciones concurrentes del mismo job) comparten
+ * la instancia pero cada una ajusta su propio tamaño. Los hilos de una misma ejecución comparten
+ * el tamaño vigente y cada chunk fija el suyo al empezar.
+ */
+public class AdaptiveCompletionPolicy extends CompletionPolicySupport implements ChunkListener, StepExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveCompletionPolicy.class);
+
+    // SQLState de PostgreSQL: deadlock_detected, lock_not_available, serialization_failure
+    private static final String[] LOCK_SQL_STATES = { "40P01", "55P03", "40001" };
+
+    private final String stepName;
+    private final ChunkProperties props;
+    private final ChunkProperties.Bounds bounds;
+
+    // El chunk en curso de cada hilo: el proveedor de ítems corre en el mismo hilo que los listeners
+    private final ThreadLocal<ChunkSample> currentChunk = new ThreadLocal<>();
+
+    // Estado de ajuste por StepExecution en curso
+    private final Map<Long, StepState> states = new ConcurrentHashMap<>();
+
+    public AdaptiveCompletionPolicy(String stepName, ChunkProperties.Bounds bounds, ChunkProperties props) {
+        this.stepName = stepName;
+        this.props = props;
+        this.bounds = bounds;
+    }
+
+    /* ---------------- CompletionPolicy ---------------- */
+
+    @Override
+    public RepeatContext start(RepeatContext parent) {
+        ChunkSample sample = currentChunk.get();
+        StepState state = sample != null ? sample.state : currentState();
+        SizedContext context = new SizedContext(parent, state != null ? state.size : clamp(bounds.getInitial()));
+        if (sample != null) {
+            sample.context = context;
+        }
+        return context;
+    }
+
+    @Override
+    public boolean isComplete(RepeatContext context) {
+        return context.getStartedCount() >= ((SizedContext) context).size;
+    }
+
+    /* ---------------- ChunkListener ---------------- */
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        currentChunk.set(new ChunkSample(stateOf(context.getStepContext().getStepExecution()), System.nanoTime()));
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        ChunkSample sample = currentChunk.get();
+        currentChunk.remove();
+        if (sample == null || sample.context == null || !props.isAdaptive()) {
+            return;
+        }
+        int items = sample.context.getStartedCount();
+        if (items > 0) {
+            sample.state.recordCommit(sample.context.size, items, System.nanoTime() - sample.startNanos);
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        currentChunk.remove();
+        if (!props.isAdaptive()) {
+            return;
+        }
+        Throwable cause = (Throwable) context.getAttribute(ChunkListener.ROLLBACK_EXCEPTION_KEY);
+        stateOf(context.getStepContext().getStepExecution()).recordRollback(isLockWait(cause));
+    }
+
+    /* ---------------- StepExecutionListener ---------------- */
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        StepState state = new StepState(stepExecution);
+        states.put(stepExecution.getId(), state);
+        logger.info("📏 Chunk adaptativo en {}: {} ítems (límites {}-{})",
+            stepExecution.getStepName(), state.size, bounds.getMin(), bounds.getMax());
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        StepState state = states.remove(stepExecution.getId());
+        if (state != null) {
+            state.finish();
+        }
+        return stepExecution.getExitStatus();
+    }
+
+    /**
+     * Tamaño vigente de la ejecución del step que corre en este hilo (el inicial si no hay ninguna).
+     */
+    public int getSize() {
+        StepState state = currentState();
+        return state != null ? state.size : clamp(bounds.getInitial());
+    }
+
+    private StepState currentState() {
+        StepContext context = StepSynchronizationManager.getContext();
+        return context != null ? states.get(context.getStepExecution().getId()) : null;
+    }
+
+    // Un chunk de una ejecución sin beforeStep (no debería pasar) arranca un estado nuevo
+    private StepState stateOf(StepExecution stepExecution) {
+        return states.computeIfAbsent(stepExecution.getId(), id -> new StepState(stepExecution));
+    }
+
+    /* ---------------- Ajuste ---------------- */
+
+    private final class StepState {
+        private final StepExecution stepExecution;
+        private final Deque<String> history = new ArrayDeque<>();
+        private volatile int size;
+        private long windowNanos;
+        private long windowItems;
+        private int windowChunks;
+        private double baselineNanosPerItem;
+        private int rollbacks;
+        private int lockWaits;
+
+        StepState(StepExecution stepExecution) {
+            this.stepExecution = stepExecution;
+            // En un reinicio se retoma el último tamaño elegido
+            ExecutionContext ctx = stepExecution.getExecutionContext();
+            this.size = clamp(ctx.containsKey("chunkSizeCurrent") ? ctx.getInt("chunkSizeCurrent") : bounds.getInitial());
+            addHistory("inicio");
+        }
+
+        synchronized void recordCommit(int chunkSize, int items, long elapsedNanos) {
+            // Chunks iniciados antes del último ajuste no miden el tamaño vigente
+            if (chunkSize != size) {
+                return;
+            }
+            windowNanos += elapsedNanos;
+            windowItems += items;
+            if (++windowChunks < props.getSamplesPerAdjustment()) {
+                return;
+            }
+
+            double nanosPerItem = (double) windowNanos / windowItems;
+            resetWindow();
+
+            int next = size;
+            if (baselineNanosPerItem == 0 || nanosPerItem < baselineNanosPerItem * (1 - props.getImprovementThreshold())) {
+                next = clamp((int) Math.ceil(size * props.getGrowthFactor()));
+            } else if (nanosPerItem > baselineNanosPerItem * (1 + props.getImprovementThreshold())) {
+                next = clamp((int) Math.floor(size / props.getGrowthFactor()));
+            }
+            baselineNanosPerItem = nanosPerItem;
+
+            if (next != size) {
+                logger.debug("📏 {}: {} → {} ítems ({} µs/ítem)", name(), size, next, Math.round(nanosPerItem / 1000));
+                size = next;
+                addHistory(null);
+                publish();
+            }
+        }
+
+        synchronized void recordRollback(boolean lockWait) {
+            rollbacks++;
+            if (lockWait) {
+                lockWaits++;
+            }
+            int next = clamp((int) Math.floor(size * props.getShrinkFactor()));
+            // Tras recortar se vuelve a medir desde cero
+            resetWindow();
+            baselineNanosPerItem = 0;
+            if (next != size) {
+                logger.warn("⚠️ {} en {}: chunk {} → {} ítems", lockWait ? "Espera de lock" : "Rollback", name(), size, next);
+                size = next;
+                addHistory(lockWait ? "lock" : "rollback");
+            }
+            publish();
+        }
+
+        synchronized void finish() {
+            publish();
+            logger.info("📏 Chunk final en {}: {} ítems (rollbacks: {}, esperas de lock: {}) - historial: {}",
+                name(), size, rollbacks, lockWaits, String.join(",", history));
+        }
+
+        private void addHistory(String reason) {
+            history.addLast(stepExecution.getReadCount() + ":" + size + (reason != null ? "(" + reason + ")" : ""));
+            while (history.size() > props.getHistorySize()) {
+                history.removeFirst();
+            }
+        }
+
+        // Se persiste con el próximo commit del step (visible en BATCH_STEP_EXECUTION_CONTEXT)
+        private void publish() {
+            ExecutionContext ctx = stepExecution.getExecutionContext();
+            ctx.putInt("chunkSizeCurrent", size);
+            ctx.putString("chunkSizeHistory", String.join(",", history));
+            ctx.putInt("chunkRollbacks", rollbacks);
+            ctx.putInt("chunkLockWaits", lockWaits);
+        }
+
+        private void resetWindow() {
+            windowNanos = 0;
+            windowItems = 0;
+            windowChunks = 0;
+        }
+
+        // Las particiones se llaman "step:partitionN": el log las distingue
+        private String name() {
+            return stepExecution.getStepName() != null ? stepExecution.getStepName() : stepName;
+        }
+    }
+
+    private int clamp(int value) {
+        return Math.max(bounds.getMin(), Math.min(bounds.getMax(), value));
+    }
+
+    private static boolean isLockWait(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof PessimisticLockingFailureException) {
+                return true;
+            }
+            if (t instanceof SQLException sql && sql.getSQLState() != null) {
+                for (String state : LOCK_SQL_STATES) {
+                    if (state.equals(sql.getSQLState())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static final class SizedContext extends RepeatContextSupport {
+        final int size;
+
+        SizedContext(RepeatContext parent, int size) {
+            super(parent);
+            this.size = size;
+        }
+    }
+
+    private static final class ChunkSample {
+        final StepState state;
+        final long startNanos;
+        SizedContext context;
+
+        ChunkSample(StepState state, long startNanos) {
+            this.state = state;
+            this.startNanos = startNanos;
+        }
+    }
+}
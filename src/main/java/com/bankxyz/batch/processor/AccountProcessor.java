@@ -69,6 +69,7 @@ public class AccountProcessor implements ItemProcessor<AccountCsv, Account> {
             account.setType(accountType);
             account.setBalance(finalBalance); // ✅ SALDO FINAL ACTUALIZADO
             account.setAge(age);
+            account.setInterestApplied(monthlyInterest); // Para el libro monthly_interest
 
             return account;
 
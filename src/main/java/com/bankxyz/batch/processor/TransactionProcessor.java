@@ -60,6 +60,7 @@ public class TransactionProcessor implements ItemProcessor<TransactionCsv, Legac
 
             // 🎯 REQUERIMIENTO PRINCIPAL: DETECTAR ANOMALÍAS
             boolean isAnomaly = detectAnomaly(amount, txDate, tipo);
+
             
             if (isAnomaly) {
                 // 📋 REQUERIMIENTO: GENERAR RESUMEN DE ANOMALÍAS
@@ -78,6 +79,8 @@ public class TransactionProcessor implements ItemProcessor<TransactionCsv, Legac
             transaction.setTxDate(txDate);
             transaction.setAmount(amount);
             transaction.setDescription(generateDescription(tipo, amount));
+            // 📅 El reporte diario la cuenta al escribirla (los duplicados descartados no suman)
+            transaction.setAnomaly(isAnomaly);
 
             return transaction;
 
@@ -0,0 +1,114 @@
+package com.bankxyz.batch.repository;
+
+import com.bankxyz.batch.model.Account;
+import com.bankxyz.batch.model.AccountField;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Recorre la tabla account en orden de id con un cursor JDBC de solo avance, sin pasar por el
+ * contexto de persistencia: memoria constante sin importar el tamaño de la tabla.
+ * También resuelve lotes de números de cuenta con una sola consulta.
+ *
+ * Las variantes con {@code Set<AccountField>} seleccionan solo esas columnas; los campos no
+ * seleccionados quedan con el valor por defecto de Account.
+ */
+@Component
+public class AccountCursorReader {
+
+    // Filas por ida y vuelta al servidor
+    private static final int FETCH_SIZE = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public AccountCursorReader(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Entrega cada cuenta a {@code action} a medida que llega del cursor (un Account nuevo por fila).
+     */
+    public void forEach(Consumer<Account> action) {
+        forEach(AccountField.ALL, action);
+    }
+
+    public void forEach(Set<AccountField> fields, Consumer<Account> action) {
+        AccountField[] columns = columns(fields);
+        String sql = "SELECT " + selectList(columns) + " FROM account ORDER BY id";
+        // PostgreSQL solo usa cursor (fetch size) dentro de una transacción; sin ella trae todo el resultado
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, rs -> {
+            action.accept(mapAccount(rs, columns));
+        }));
+    }
+
+    /**
+     * Página keyset por id (usa la PK): hasta {@code limit} cuentas con id mayor que {@code afterId}.
+     * El id se lee siempre porque el cursor de la página siguiente lo necesita.
+     */
+    public List<Account> findPageAfterId(long afterId, int limit, Set<AccountField> fields) {
+        Set<AccountField> withId = EnumSet.copyOf(fields);
+        withId.add(AccountField.ID);
+        AccountField[] columns = columns(withId);
+        String sql = "SELECT " + selectList(columns) + " FROM account WHERE id > ? ORDER BY id LIMIT ?";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> mapAccount(rs, columns), afterId, limit);
+    }
+
+    /**
+     * Cuentas existentes entre {@code accountNumbers}, en una sola consulta; las que no existen
+     * simplemente no aparecen en el resultado.
+     */
+    public List<Account> findByAccountNumbers(Collection<String> accountNumbers) {
+        // Un único statement para cualquier tamaño de lote (IN (?, ?, ...) cambiaría con cada tamaño)
+        AccountField[] columns = columns(AccountField.ALL);
+        String sql = "SELECT " + selectList(columns) + " FROM account WHERE account_number = ANY(?)";
+        return jdbcTemplate.query(sql,
+            ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", accountNumbers.toArray())),
+            (rs, rowNum) -> mapAccount(rs, columns));
+    }
+
+    // Columnas en el orden del enum: selectList y mapAccount usan el mismo arreglo por posición
+    private static AccountField[] columns(Set<AccountField> fields) {
+        return fields.stream().sorted().toArray(AccountField[]::new);
+    }
+
+    private static String selectList(AccountField[] columns) {
+        return Arrays.stream(columns).map(AccountField::getColumn).collect(Collectors.joining(", "));
+    }
+
+    private static Account mapAccount(ResultSet rs, AccountField[] columns) throws SQLException {
+        Account account = new Account();
+        int column = 1;
+        for (AccountField field : columns) {
+            switch (field) {
+                case ID -> account.setId(rs.getLong(column));
+                case ACCOUNT_NUMBER -> account.setAccountNumber(rs.getString(column));
+                case OWNER_NAME -> account.setOwnerName(rs.getString(column));
+                case TYPE -> account.setType(rs.getString(column));
+                case BALANCE -> account.setBalance(rs.getBigDecimal(column));
+                case AGE -> account.setAge(rs.getObject(column, Integer.class));
+            }
+            column++;
+        }
+        return account;
+    }
+}
@@ -1,10 +1,44 @@
 package com.bankxyz.batch.repository;
 
 import com.bankxyz.batch.model.LegacyTransaction;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 
 public interface LegacyTransactionRepository extends JpaRepository<LegacyTransaction, Long> {
     List<LegacyTransaction> findByAccountNumber(String accountNumber);
+
+    // Proyección con solo las columnas del índice cubriente idx_transaction_history (sin entidades)
+    interface TransactionView {
+        Long getId();
+        String getTxId();
+        LocalDate getTxDate();
+        String getDescription();
+        BigDecimal getAmount();
+    }
+
+    // Keyset descendente sobre (tx_date, id): filas estrictamente anteriores a la posición dada.
+    // La comparación de tuplas recorre idx_transaction_history como un solo rango; los alias van
+    // entre comillas porque PostgreSQL pasa a minúsculas los nombres sin comillas de la proyección.
+    @Query(value = """
+        SELECT id, tx_id AS "txId", tx_date AS "txDate", description, amount
+        FROM transaction_legacy
+        WHERE account_number = :accountNumber
+          AND tx_date >= :fromDate
+          AND (tx_date, id) < (:beforeDate, :beforeId)
+        ORDER BY tx_date DESC, id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.query.timeout", value = "5000"))
+    List<TransactionView> findHistoryPage(@Param("accountNumber") String accountNumber,
+                                          @Param("fromDate") LocalDate fromDate,
+                                          @Param("beforeDate") LocalDate beforeDate,
+                                          @Param("beforeId") long beforeId,
+                                          @Param("limit") int limit);
 }
@@ -0,0 +1,20 @@
+package com.bankxyz.batch.repository;
+
+import com.bankxyz.batch.model.MonthlyInterest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.math.BigDecimal;
+
+public interface MonthlyInterestRepository extends JpaRepository<MonthlyInterest, Long> {
+
+    // Proyección con solo las columnas del índice cubriente idx_monthly_interest_history
+    interface MonthlyInterestView {
+        String getMonthYear();
+        BigDecimal getInterestApplied();
+        BigDecimal getFinalBalance();
+    }
+
+    Slice<MonthlyInterestView> findByAccountNumberOrderByMonthYearDesc(String accountNumber, Pageable pageable);
+}
@@ -1,5 +1,8 @@
 package com.bankxyz.batch.runner;
 
+import com.bankxyz.batch.config.PartitionProperties;
+import com.bankxyz.batch.config.RunnerProperties;
+import com.bankxyz.batch.executor.StepConcurrencyLimiter;
 import com.bankxyz.batch.listener.PerformanceMonitorListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,10 +14,12 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Runner para ejecutar los jobs de procesamiento de archivos CSV independientes
- * Ejecuta cada job en secuencia con monitoreo de rendimiento
+ * Ejecuta los jobs en paralelo respetando las dependencias declaradas, con monitoreo de rendimiento
  */
 @Component
 @Order(1)
@@ -26,22 +31,40 @@ public class BatchJobRunner implements CommandLineRunner {
     private final Job dailyReportJob;
     private final Job monthlyInterestJob;
     private final Job annualAccountsJob;
+    private final Job dailyReportBackfillJob;
     private final PerformanceMonitorListener<?, ?> performanceMonitor;
+    private final RunnerProperties runnerProps;
+    private final PartitionProperties partitionProps;
+    private final StepConcurrencyLimiter stepConcurrencyLimiter;
 
     public BatchJobRunner(JobLauncher jobLauncher,
                          Job dailyReportJob,
                          Job monthlyInterestJob,
                          Job annualAccountsJob,
-                         PerformanceMonitorListener<?, ?> performanceMonitor) {
+                         Job dailyReportBackfillJob,
+                         PerformanceMonitorListener<?, ?> performanceMonitor,
+                         RunnerProperties runnerProps,
+                         PartitionProperties partitionProps,
+                         StepConcurrencyLimiter stepConcurrencyLimiter) {
         this.jobLauncher = jobLauncher;
         this.dailyReportJob = dailyReportJob;
         this.monthlyInterestJob = monthlyInterestJob;
         this.annualAccountsJob = annualAccountsJob;
+        this.dailyReportBackfillJob = dailyReportBackfillJob;
         this.performanceMonitor = performanceMonitor;
+        this.runnerProps = runnerProps;
+        this.partitionProps = partitionProps;
+        this.stepConcurrencyLimiter = stepConcurrencyLimiter;
     }
 
     @Override
     public void run(String... args) throws Exception {
+        // Una instancia WORKER solo ejecuta particiones publicadas por el manager (PartitionWorker)
+        if (partitionProps.getRole() == PartitionProperties.Role.WORKER) {
+            logger.info("🛠️ Instancia en modo WORKER: los jobs los lanza el manager");
+            return;
+        }
+
         logger.info("🚀 Iniciando procesamiento de archivos CSV independientes del Banco XYZ");
         logger.info("📅 Fecha de ejecución: {}", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
         
@@ -50,63 +73,106 @@ public class BatchJobRunner implements CommandLineRunner {
         boolean runTransactions = runAll || contains(args, "transactions");
         boolean runInterests = runAll || contains(args, "interests");
         boolean runAnnual = runAll || contains(args, "annual");
+        // El reproceso histórico nunca entra en "all": requiere from=AAAA-MM-DD to=AAAA-MM-DD
+        boolean runBackfill = contains(args, "backfill");
 
-        int totalJobs = 0;
-        int successfulJobs = 0;
+        // Los jobs leen archivos independientes y escriben tablas disjuntas: se planifican como DAG
+        JobDagScheduler scheduler = new JobDagScheduler();
 
         // Job 1: Procesamiento de Transacciones Diarias (transacciones.csv)
         if (runTransactions) {
-            totalJobs++;
-            logger.info("\n" + "=".repeat(80));
-            logger.info("📊 EJECUTANDO JOB 1/3: Reporte de Transacciones Diarias");
-            logger.info("📁 Archivo: transacciones.csv");
-            logger.info("🎯 Objetivo: Generar reportes diarios con detección de anomalías");
-            logger.info("=".repeat(80));
-
-            if (executeJob(dailyReportJob, "dailyReportJob", "transacciones.csv")) {
-                successfulJobs++;
-            }
+            scheduler.addJob("dailyReportJob", dependenciesOf("dailyReportJob"), () -> {
+                logger.info("\n" + "=".repeat(80));
+                logger.info("📊 EJECUTANDO JOB 1/3: Reporte de Transacciones Diarias");
+                logger.info("📁 Archivo: transacciones.csv");
+                logger.info("🎯 Objetivo: Generar reportes diarios con detección de anomalías");
+                logger.info("=".repeat(80));
+
+                return executeJob(dailyReportJob, "dailyReportJob", "transacciones.csv");
+            });
         }
 
         // Job 2: Cálculo de Intereses Mensuales (intereses.csv)  
         if (runInterests) {
-            totalJobs++;
-            logger.info("\n" + "=".repeat(80));
-            logger.info("💰 EJECUTANDO JOB 2/3: Cálculo de Intereses Mensuales");
-            logger.info("📁 Archivo: intereses.csv");
-            logger.info("🎯 Objetivo: Calcular intereses y actualizar balances");
-            logger.info("=".repeat(80));
-
-            JobParameters interestParams = new JobParametersBuilder()
-                .addString("month", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM")))
-                .addLong("timestamp", System.currentTimeMillis())
-                .toJobParameters();
-
-            if (executeJob(monthlyInterestJob, "monthlyInterestJob", "intereses.csv", interestParams)) {
-                successfulJobs++;
-            }
+            scheduler.addJob("monthlyInterestJob", dependenciesOf("monthlyInterestJob"), () -> {
+                logger.info("\n" + "=".repeat(80));
+                logger.info("💰 EJECUTANDO JOB 2/3: Cálculo de Intereses Mensuales");
+                logger.info("📁 Archivo: intereses.csv");
+                logger.info("🎯 Objetivo: Calcular intereses y actualizar balances");
+                logger.info("=".repeat(80));
+
+                JobParameters interestParams = new JobParametersBuilder()
+                    .addString("month", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM")))
+                    .addLong("timestamp", System.currentTimeMillis())
+                    .toJobParameters();
+
+                return executeJob(monthlyInterestJob, "monthlyInterestJob", "intereses.csv", interestParams);
+            });
         }
 
         // Job 3: Estados de Cuenta Anuales (cuentas_anuales.csv)
         if (runAnnual) {
-            totalJobs++;
-            logger.info("\n" + "=".repeat(80));
-            logger.info("📋 EJECUTANDO JOB 3/3: Estados de Cuenta Anuales");
-            logger.info("📁 Archivo: cuentas_anuales.csv");
-            logger.info("🎯 Objetivo: Generar estados anuales para auditoría");
-            logger.info("=".repeat(80));
-
-            if (executeJob(annualAccountsJob, "annualAccountsJob", "cuentas_anuales.csv")) {
-                successfulJobs++;
+            scheduler.addJob("annualAccountsJob", dependenciesOf("annualAccountsJob"), () -> {
+                logger.info("\n" + "=".repeat(80));
+                logger.info("📋 EJECUTANDO JOB 3/3: Estados de Cuenta Anuales");
+                logger.info("📁 Archivo: cuentas_anuales.csv");
+                logger.info("🎯 Objetivo: Generar estados anuales para auditoría");
+                logger.info("=".repeat(80));
+
+                return executeJob(annualAccountsJob, "annualAccountsJob", "cuentas_anuales.csv");
+            });
+        }
+
+        // Reproceso histórico con presupuesto de I/O (dailyReportBackfillJob)
+        if (runBackfill) {
+            String from = argValue(args, "from");
+            String to = argValue(args, "to");
+            if (from == null || to == null) {
+                logger.error("❌ backfill requiere from=AAAA-MM-DD y to=AAAA-MM-DD");
+            } else {
+                scheduler.addJob("dailyReportBackfillJob", dependenciesOf("dailyReportBackfillJob"), () -> {
+                    logger.info("\n" + "=".repeat(80));
+                    logger.info("🗄️ EJECUTANDO BACKFILL: Reproceso de transacciones archivadas {} → {}", from, to);
+                    logger.info("=".repeat(80));
+
+                    // Sin timestamp: el mismo rango es la misma instancia y un relanzamiento reanuda
+                    JobParameters backfillParams = new JobParametersBuilder()
+                        .addString("from", from)
+                        .addString("to", to)
+                        .toJobParameters();
+
+                    return executeJob(dailyReportBackfillJob, "dailyReportBackfillJob", "archivo " + from + " → " + to, backfillParams);
+                });
             }
         }
 
+        int maxConcurrentJobs = maxConcurrentJobs();
+        long windowStart = System.currentTimeMillis();
+        Map<String, JobDagScheduler.JobResult> results = scheduler.run(maxConcurrentJobs);
+        long windowMs = System.currentTimeMillis() - windowStart;
+
+        int totalJobs = results.size();
+        int successfulJobs = (int) results.values().stream().filter(JobDagScheduler.JobResult::success).count();
+
         // Resumen final
         logger.info("\n" + "=".repeat(80));
         logger.info("🏁 RESUMEN FINAL DE EJECUCIÓN");
         logger.info("=".repeat(80));
         logger.info("✅ Jobs ejecutados exitosamente: {}/{}", successfulJobs, totalJobs);
         logger.info("❌ Jobs con errores: {}", totalJobs - successfulJobs);
+
+        if (totalJobs > 0) {
+            results.values().forEach(result -> logger.info("⏱️  {}: {} en {} ms (inicio +{} ms)",
+                result.name(),
+                result.skipped() ? "OMITIDO" : result.success() ? "OK" : "ERROR",
+                result.durationMs(),
+                result.startMs() - windowStart));
+
+            List<String> criticalPath = scheduler.criticalPath(results);
+            long criticalMs = criticalPath.stream().mapToLong(name -> results.get(name).durationMs()).sum();
+            logger.info("🧭 Camino crítico: {} ({} ms)", String.join(" → ", criticalPath), criticalMs);
+            logger.info("🕒 Ventana total: {} ms (máx. {} jobs en paralelo)", windowMs, maxConcurrentJobs);
+        }
         
         if (successfulJobs == totalJobs && totalJobs > 0) {
             logger.info("🎉 TODOS LOS JOBS COMPLETADOS EXITOSAMENTE");
@@ -117,12 +183,30 @@ public class BatchJobRunner implements CommandLineRunner {
         } else if (totalJobs > 0) {
             logger.error("💥 FALLO TOTAL: Ningún job se completó exitosamente");
         } else {
-            logger.info("ℹ️  No se ejecutaron jobs (usar argumentos: transactions, interests, annual, o all)");
+            logger.info("ℹ️  No se ejecutaron jobs (usar argumentos: transactions, interests, annual, all o backfill from=... to=...)");
         }
         
         logger.info("🔚 Procesamiento de archivos CSV finalizado");
     }
 
+    // Los steps de todos los jobs en curso comparten el presupuesto de conexiones del pool batch
+    // (StepConcurrencyLimiter): más jobs que conexiones solo dejaría jobs esperando sin avanzar
+    private int maxConcurrentJobs() {
+        int budget = stepConcurrencyLimiter.ceiling();
+        int configured = runnerProps.getMaxConcurrentJobs();
+        if (configured > budget) {
+            logger.warn("⚠️ max-concurrent-jobs={} supera el presupuesto de conexiones ({}): se usan {} jobs en paralelo",
+                configured, budget, budget);
+            return budget;
+        }
+        logger.info("🚦 Hasta {} jobs en paralelo sobre un presupuesto compartido de {} conexiones", configured, budget);
+        return configured;
+    }
+
+    private List<String> dependenciesOf(String jobName) {
+        return runnerProps.getDependsOn().getOrDefault(jobName, List.of());
+    }
+
     private boolean executeJob(Job job, String jobName, String fileName) {
         return executeJob(job, jobName, fileName, createDefaultJobParameters());
     }
@@ -203,6 +287,15 @@ public class BatchJobRunner implements CommandLineRunner {
         });
     }
 
+    private String argValue(String[] args, String key) {
+        for (String arg : args) {
+            if (arg.regionMatches(true, 0, key + "=", 0, key.length() + 1)) {
+                return arg.substring(key.length() + 1);
+            }
+        }
+        return null;
+    }
+
     private boolean contains(String[] args, String value) {
         for (String arg : args) {
             if (arg.equalsIgnoreCase(value)) {
@@ -0,0 +1,169 @@
+package com.bankxyz.batch.runner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Planificador de jobs como grafo acíclico: lanza en paralelo los jobs independientes,
+ * espera a sus dependencias y limita la cantidad de jobs simultáneos.
+ * Si una dependencia falla, los jobs que dependen de ella se omiten.
+ */
+public class JobDagScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobDagScheduler.class);
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+
+    /**
+     * Registra un job; las dependencias hacia jobs no registrados se ignoran
+     * (p. ej. cuando la selección por argumentos no los incluye).
+     */
+    public JobDagScheduler addJob(String name, List<String> dependsOn, BooleanSupplier action) {
+        nodes.put(name, new Node(name, dependsOn, action));
+        return this;
+    }
+
+    public Map<String, JobResult> run(int maxConcurrency) {
+        List<String> order = topologicalOrder();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), threadFactory());
+        Map<String, CompletableFuture<JobResult>> futures = new HashMap<>();
+        try {
+            for (String name : order) {
+                Node node = nodes.get(name);
+                List<CompletableFuture<JobResult>> deps = node.dependsOn().stream()
+                    .filter(nodes::containsKey)
+                    .map(futures::get)
+                    .toList();
+
+                CompletableFuture<JobResult> future = CompletableFuture
+                    .allOf(deps.toArray(new CompletableFuture[0]))
+                    .thenApplyAsync(ignored -> {
+                        boolean depsOk = deps.stream().allMatch(d -> d.join().success());
+                        if (!depsOk) {
+                            logger.warn("⏭️  Job {} omitido: una de sus dependencias no se completó", name);
+                            long now = System.currentTimeMillis();
+                            return new JobResult(name, false, true, now, now);
+                        }
+                        long start = System.currentTimeMillis();
+                        boolean ok;
+                        try {
+                            ok = node.action().getAsBoolean();
+                        } catch (RuntimeException e) {
+                            logger.error("💥 Error ejecutando job {}: {}", name, e.getMessage(), e);
+                            ok = false;
+                        }
+                        return new JobResult(name, ok, false, start, System.currentTimeMillis());
+                    }, pool);
+                futures.put(name, future);
+            }
+
+            Map<String, JobResult> results = new LinkedHashMap<>();
+            for (String name : order) {
+                results.put(name, futures.get(name).join());
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Camino crítico: la cadena de dependencias con mayor duración acumulada.
+     */
+    public List<String> criticalPath(Map<String, JobResult> results) {
+        Map<String, Long> finish = new HashMap<>();
+        Map<String, String> previous = new HashMap<>();
+        String last = null;
+
+        for (String name : topologicalOrder()) {
+            long best = 0;
+            for (String dep : nodes.get(name).dependsOn()) {
+                if (finish.containsKey(dep) && finish.get(dep) > best) {
+                    best = finish.get(dep);
+                    previous.put(name, dep);
+                }
+            }
+            JobResult result = results.get(name);
+            finish.put(name, best + (result != null ? result.durationMs() : 0));
+            if (last == null || finish.get(name) > finish.get(last)) {
+                last = name;
+            }
+        }
+
+        List<String> path = new ArrayList<>();
+        for (String current = last; current != null; current = previous.get(current)) {
+            path.add(current);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    // Orden topológico (Kahn); falla si las dependencias declaradas forman un ciclo
+    private List<String> topologicalOrder() {
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (Node node : nodes.values()) {
+            int count = 0;
+            for (String dep : node.dependsOn()) {
+                if (nodes.containsKey(dep)) {
+                    count++;
+                    dependents.computeIfAbsent(dep, k -> new ArrayList<>()).add(node.name());
+                }
+            }
+            pending.put(node.name(), count);
+        }
+
+        Deque<String> ready = new ArrayDeque<>();
+        nodes.keySet().stream().filter(n -> pending.get(n) == 0).forEach(ready::add);
+        List<String> order = new ArrayList<>();
+        while (!ready.isEmpty()) {
+            String name = ready.poll();
+            order.add(name);
+            for (String dependent : dependents.getOrDefault(name, List.of())) {
+                if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (order.size() != nodes.size()) {
+            Set<String> cyclic = new TreeSet<>(nodes.keySet());
+            order.forEach(cyclic::remove);
+            throw new IllegalStateException("Dependencias cíclicas entre jobs: " + cyclic);
+        }
+        return order;
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "job-dag-" + counter.incrementAndGet());
+            thread.setDaemon(false);
+            return thread;
+        };
+    }
+
+    private record Node(String name, List<String> dependsOn, BooleanSupplier action) {}
+
+    public record JobResult(String name, boolean success, boolean skipped, long startMs, long endMs) {
+        public long durationMs() {
+            return endMs - startMs;
+        }
+    }
+}
@@ -1,29 +1,47 @@
 package com.bankxyz.batch.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
+/**
+ * Autenticación por token Bearer.
+ *
+ * El token se verifica con un único parseo (clave y parser derivados una vez en JwtUtil) y las
+ * authorities salen del claim "roles", sin consultar UserDetailsService; los tokens emitidos
+ * antes de existir el claim siguen resolviéndose con la consulta. El resultado queda en
+ * VerifiedTokenCache hasta el exp del token, así los requests siguientes del mismo token
+ * solo calculan un SHA-256.
+ */
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
 
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserDetailsService userDetailsService,
+                                   VerifiedTokenCache verifiedTokenCache) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     @Override
@@ -31,15 +49,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtil.validateToken(jwt)) {
-                String username = jwtUtil.getUsernameFromToken(jwt);
+            if (jwt != null) {
+                Optional<UserDetails> user = authenticate(jwt);
+                if (user.isPresent()) {
+                    UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(user.get(), null, user.get().getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication =
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e);
@@ -48,6 +66,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private Optional<UserDetails> authenticate(String jwt) {
+        Optional<VerifiedTokenCache.VerifiedToken> cached = verifiedTokenCache.get(jwt);
+        if (cached.isPresent()) {
+            return Optional.of(cached.get().user());
+        }
+
+        Claims claims;
+        try {
+            claims = jwtUtil.parseClaims(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Invalid JWT token: " + e.getMessage());
+            return Optional.empty();
+        }
+
+        UserDetails user;
+        List<?> roles = claims.get(JwtUtil.ROLES_CLAIM, List.class);
+        if (roles != null) {
+            List<GrantedAuthority> authorities = new ArrayList<>(roles.size());
+            for (Object role : roles) {
+                authorities.add(new SimpleGrantedAuthority(String.valueOf(role)));
+            }
+            user = new User(claims.getSubject(), "", authorities);
+        } else {
+            // Token emitido antes del claim "roles"
+            user = userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+
+        if (claims.getExpiration() != null) {
+            verifiedTokenCache.put(jwt, new VerifiedTokenCache.VerifiedToken(user, claims.getExpiration().getTime()));
+        }
+        return Optional.of(user);
+    }
+
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
 
@@ -57,4 +108,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         return null;
     }
-}
\ No newline at end of file
+}
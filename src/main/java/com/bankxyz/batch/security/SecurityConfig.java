@@ -1,8 +1,10 @@
 package com.bankxyz.batch.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -22,14 +24,16 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
 
-    public SecurityConfig(JwtUtil jwtUtil) {
+    public SecurityConfig(JwtUtil jwtUtil, VerifiedTokenCache verifiedTokenCache) {
         this.jwtUtil = jwtUtil;
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtUtil, userDetailsService());
+        return new JwtAuthenticationFilter(jwtUtil, userDetailsService(), verifiedTokenCache);
     }
 
     @Bean
@@ -38,9 +42,15 @@ public class SecurityConfig {
             .cors(cors -> cors.disable()) // Deshabilitar CORS por ahora para testing
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authz -> authz
+                // Re-despacho de respuestas asíncronas (SSE) ya autorizadas en el request original
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/actuator/health").permitAll() // Para health check de Docker
-                .requestMatchers("/jobs/**").permitAll() // Para jobs de batch
+                .requestMatchers(HttpMethod.POST, "/actuator/batchexecutors", "/actuator/batchexecutors/**").hasRole("ADMIN")
+                // Lanzar jobs requiere token (la prioridad explícita, rol ADMIN: ver JobController)
+                .requestMatchers("/jobs/run").authenticated()
+                .requestMatchers(HttpMethod.POST, "/jobs/launch").authenticated()
+                .requestMatchers("/jobs/**").permitAll() // Estado y avance de jobs
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll() // Para Swagger
                 .anyRequest().authenticated()
             );
@@ -0,0 +1,104 @@
+package com.bankxyz.batch.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Tokens JWT ya verificados, para no repetir parseo y HMAC en cada request del mismo cliente.
+ * REQUERIMIENTO: "Cada request de los BFF verifica dos veces el mismo token"
+ *
+ * La clave es el SHA-256 del token (el token en sí no queda en memoria) y cada entrada vence
+ * en el {@code exp} del token: un token expirado nunca sale de la caché. LRU acotado con un
+ * único lock, igual que AccountLookupCache. Solo se guardan tokens válidos.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+    private final int maximumSize;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, VerifiedToken> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public VerifiedTokenCache(@Value("${jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${jwt.cache.maximum-size:10000}") int maximumSize,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > VerifiedTokenCache.this.maximumSize;
+            }
+        };
+
+        this.hits = Counter.builder("cache.gets").tag("cache", "jwt").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "jwt").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("cache.size", this, VerifiedTokenCache::size).tag("cache", "jwt").register(meterRegistry);
+    }
+
+    public Optional<VerifiedToken> get(String token) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String key = hash(token);
+        synchronized (lock) {
+            VerifiedToken cached = entries.get(key);
+            if (cached != null) {
+                if (cached.expiresAtMillis() > System.currentTimeMillis()) {
+                    hits.increment();
+                    return Optional.of(cached);
+                }
+                entries.remove(key);
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(String token, VerifiedToken verified) {
+        if (!enabled) {
+            return;
+        }
+        String key = hash(token);
+        synchronized (lock) {
+            entries.put(key, verified);
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 es obligatorio en toda JVM
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Usuario y authorities de un token verificado, válidos hasta {@code expiresAtMillis} (su exp).
+     */
+    public record VerifiedToken(UserDetails user, long expiresAtMillis) {}
+}
@@ -0,0 +1,145 @@
+package com.bankxyz.batch.velocity;
+
+import com.bankxyz.batch.config.VelocityProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Operador con estado que detecta ráfagas (velocidad) por clave en un feed de transacciones con cuenta.
+ * REQUERIMIENTO: "Marcar transacciones en ráfaga sin superar el tope de memoria configurado"
+ *
+ * La clave es la cuenta combinada con el tipo, de modo que muchos débitos seguidos sobre la misma
+ * cuenta superan los umbrales de la ventana. Las transacciones sin cuenta no se evalúan: una clave
+ * común para todas mediría el volumen total del archivo, no ráfagas.
+ *
+ * transacciones.csv no trae cuenta, así que dailyReportJob y su backfill no lo usan. Un step cuyo
+ * feed sí la trae lo registra como listener, lo llama desde su processor y declara
+ * processorNonTransactional(): las ventanas no se deshacen en un rollback.
+ *
+ * Una instancia por step: cada step necesita sus propias ventanas y contadores.
+ */
+@Component
+@StepScope
+public class VelocityDetector implements StepExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(VelocityDetector.class);
+
+    private final VelocityProperties props;
+    private final AtomicLong breaches = new AtomicLong();
+    private volatile VelocityStateStore store;
+
+    public VelocityDetector(VelocityProperties props) {
+        this.props = props;
+    }
+
+    /**
+     * Registra la transacción en la ventana de su clave.
+     * @return true si la ventana supera los umbrales de cantidad o monto
+     */
+    public boolean record(String accountNumber, String tipo, LocalDate txDate, BigDecimal amount) {
+        if (!props.isEnabled() || !StringUtils.hasText(accountNumber)) {
+            return false;
+        }
+
+        long cents = amount.abs().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+        VelocityStateStore.Window window = store().record(keyOf(accountNumber, tipo), txDate.toEpochDay(), cents);
+
+        boolean breach = window.count() > props.getMaxCount()
+                || window.sumCents() > props.getMaxAmount().movePointRight(2).longValue();
+        if (breach) {
+            breaches.incrementAndGet();
+            logger.debug("⚡ VELOCIDAD EXCEDIDA - Clave: {}/{}, Ventana: {} tx, ${}",
+                accountNumber, tipo, window.count(),
+                BigDecimal.valueOf(window.sumCents(), 2));
+        }
+        return breach;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        breaches.set(0);
+        // El store (hasta max-memory-bytes) se reserva con la primera transacción que tenga cuenta
+        closeStore();
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        VelocityStateStore current = store;
+        if (current != null) {
+            stepExecution.getExecutionContext().putLong("velocityBreaches", breaches.get());
+            stepExecution.getExecutionContext().putInt("velocityKeys", current.size());
+            stepExecution.getExecutionContext().putLong("velocityEvictions", current.getEvictions());
+
+            logger.info("⚡ Velocidad - Alertas: {}, Claves en memoria: {}/{}, Desalojos: {}, Spill: {}, Recuperadas: {}",
+                breaches.get(), current.size(), current.capacity(), current.getEvictions(),
+                current.getSpilled(), current.getRestored());
+        }
+        closeStore();
+        return stepExecution.getExitStatus();
+    }
+
+    private VelocityStateStore store() {
+        VelocityStateStore current = store;
+        if (current == null) {
+            synchronized (this) {
+                current = store;
+                if (current == null) {
+                    current = createStore();
+                    store = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private VelocityStateStore createStore() {
+        Path spillPath = StringUtils.hasText(props.getSpillFile()) ? Path.of(props.getSpillFile()) : null;
+        try {
+            return new VelocityStateStore(props.getMaxMemoryBytes(), props.getWindowDays(),
+                props.getTtl(), spillPath, props.getSpillSlots());
+        } catch (IOException e) {
+            logger.warn("⚠️ No se pudo abrir el spill {}, continuando solo en memoria: {}", spillPath, e.getMessage());
+            try {
+                return new VelocityStateStore(props.getMaxMemoryBytes(), props.getWindowDays(),
+                    props.getTtl(), null, 0);
+            } catch (IOException impossible) {
+                throw new IllegalStateException(impossible);
+            }
+        }
+    }
+
+    private synchronized void closeStore() {
+        if (store != null) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                logger.warn("⚠️ Error cerrando state store de velocidad: {}", e.getMessage());
+            }
+            store = null;
+        }
+    }
+
+    // FNV-1a de 64 bits sobre "cuenta|tipo"
+    static long keyOf(String accountNumber, String tipo) {
+        String composite = accountNumber + "|" + tipo;
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < composite.length(); i++) {
+            hash ^= composite.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,305 @@
+package com.bankxyz.batch.velocity;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State store concurrente y acotado en memoria para ventanas de velocidad por clave.
+ *
+ * Cada clave (long primitivo) tiene un ring buffer de N buckets diarios con conteo y suma en centavos.
+ * La memoria se reserva de una vez según el tope configurado; cuando un segmento se llena se desaloja
+ * una entrada expirada por TTL o la menos usada (LRU aproximado por muestreo). Opcionalmente las
+ * entradas desalojadas se vuelcan a un archivo mapeado en memoria y se recuperan al volver a verse.
+ */
+public final class VelocityStateStore implements Closeable {
+
+    private static final int SEGMENTS = 16;
+    private static final int LRU_SAMPLES = 8;
+    private static final long NO_DATA = Long.MIN_VALUE;
+
+    private final int buckets;
+    private final long ttlNanos;
+    private final Segment[] segments;
+    private final SpillFile spill;
+
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong restored = new AtomicLong();
+
+    public VelocityStateStore(long maxMemoryBytes, int buckets, Duration ttl, Path spillPath, int spillSlots)
+            throws IOException {
+        if (buckets < 1) {
+            throw new IllegalArgumentException("La ventana debe tener al menos un bucket");
+        }
+        this.buckets = buckets;
+        this.ttlNanos = ttl.toNanos();
+
+        long capacity = Math.max(SEGMENTS, maxMemoryBytes / bytesPerEntry(buckets));
+        int perSegment = (int) Math.min(Integer.MAX_VALUE / (2L * buckets), capacity / SEGMENTS);
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.spill = spillPath != null ? new SpillFile(spillPath, spillSlots, buckets) : null;
+    }
+
+    /**
+     * Bytes reservados por entrada: clave, último acceso, día cabeza, buckets (int + long) y tabla hash.
+     */
+    public static long bytesPerEntry(int buckets) {
+        return 8 + 8 + 8 + buckets * 12L + 8;
+    }
+
+    /**
+     * Registra un evento en la ventana de la clave y devuelve los totales de la ventana resultante.
+     */
+    public Window record(long key, long epochDay, long amountCents) {
+        return segments[(int) (mix(key) >>> 60)].record(key, epochDay, amountCents, System.nanoTime());
+    }
+
+    public int size() {
+        int total = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                total += segment.size;
+            }
+        }
+        return total;
+    }
+
+    public int capacity() {
+        return segments[0].capacity * SEGMENTS;
+    }
+
+    public long getEvictions() { return evictions.get(); }
+    public long getSpilled() { return spilled.get(); }
+    public long getRestored() { return restored.get(); }
+
+    @Override
+    public void close() throws IOException {
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /** Totales de la ventana de una clave: cantidad de eventos y suma en centavos. */
+    public record Window(int count, long sumCents) {}
+
+    /* ---------------- Segmento: tabla hash abierta + arreglos primitivos ---------------- */
+
+    private final class Segment {
+        final int capacity;
+        final long[] keys;
+        final long[] lastAccess;
+        final long[] headDay;
+        final int[] counts;
+        final long[] sums;
+        final int[] table;      // slot + 1, 0 = vacío
+        final int mask;
+        int size;
+        int clock;
+
+        Segment(int capacity) {
+            this.capacity = Math.max(1, capacity);
+            this.keys = new long[this.capacity];
+            this.lastAccess = new long[this.capacity];
+            this.headDay = new long[this.capacity];
+            this.counts = new int[this.capacity * buckets];
+            this.sums = new long[this.capacity * buckets];
+            this.table = new int[Integer.highestOneBit(this.capacity * 2 - 1) << 1];
+            this.mask = table.length - 1;
+        }
+
+        synchronized Window record(long key, long epochDay, long amountCents, long now) {
+            int slot = find(key);
+            if (slot < 0) {
+                slot = allocate(key, now);
+                if (spill != null && spill.readAndClear(key, this, slot)) {
+                    restored.incrementAndGet();
+                }
+            }
+            lastAccess[slot] = now;
+
+            int base = slot * buckets;
+            long head = headDay[slot];
+            if (head == NO_DATA || epochDay - head >= buckets) {
+                clear(base);
+                headDay[slot] = epochDay;
+            } else if (epochDay > head) {
+                for (long d = head + 1; d <= epochDay; d++) {
+                    int b = base + (int) Math.floorMod(d, (long) buckets);
+                    counts[b] = 0;
+                    sums[b] = 0;
+                }
+                headDay[slot] = epochDay;
+            }
+
+            // Eventos más antiguos que la ventana no suman (llegan tarde)
+            if (epochDay > headDay[slot] - buckets) {
+                int b = base + (int) Math.floorMod(epochDay, (long) buckets);
+                counts[b]++;
+                sums[b] += amountCents;
+            }
+
+            int count = 0;
+            long sum = 0;
+            for (int i = base; i < base + buckets; i++) {
+                count += counts[i];
+                sum += sums[i];
+            }
+            return new Window(count, sum);
+        }
+
+        private int find(long key) {
+            for (int i = (int) mix(key) & mask; ; i = (i + 1) & mask) {
+                int entry = table[i];
+                if (entry == 0) {
+                    return -1;
+                }
+                if (keys[entry - 1] == key) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        private int allocate(long key, long now) {
+            int slot;
+            if (size < capacity) {
+                slot = size++;
+            } else {
+                slot = chooseVictim(now);
+                evictions.incrementAndGet();
+                if (spill != null && headDay[slot] != NO_DATA) {
+                    spill.write(keys[slot], this, slot);
+                    spilled.incrementAndGet();
+                }
+                removeFromTable(keys[slot]);
+            }
+            keys[slot] = key;
+            headDay[slot] = NO_DATA;
+            clear(slot * buckets);
+
+            int i = (int) mix(key) & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = slot + 1;
+            return slot;
+        }
+
+        // LRU aproximado: muestrea slots con un reloj rotativo; una entrada expirada por TTL gana de inmediato
+        private int chooseVictim(long now) {
+            int victim = -1;
+            long oldest = Long.MAX_VALUE;
+            for (int n = 0; n < Math.min(LRU_SAMPLES, size); n++) {
+                int s = clock;
+                clock = (clock + 1) % size;
+                if (now - lastAccess[s] > ttlNanos) {
+                    return s;
+                }
+                if (lastAccess[s] < oldest) {
+                    oldest = lastAccess[s];
+                    victim = s;
+                }
+            }
+            return victim;
+        }
+
+        // Borrado con desplazamiento hacia atrás para mantener las cadenas de sondeo lineal
+        private void removeFromTable(long key) {
+            int i = (int) mix(key) & mask;
+            while (keys[table[i] - 1] != key) {
+                i = (i + 1) & mask;
+            }
+            table[i] = 0;
+            for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+                int home = (int) mix(keys[table[j] - 1]) & mask;
+                boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+                if (!stays) {
+                    table[i] = table[j];
+                    table[j] = 0;
+                    i = j;
+                }
+            }
+        }
+
+        private void clear(int base) {
+            for (int i = base; i < base + buckets; i++) {
+                counts[i] = 0;
+                sums[i] = 0;
+            }
+        }
+    }
+
+    /* ---------------- Spill a archivo mapeado en memoria (mapeo directo por hash) ---------------- */
+
+    private static final class SpillFile implements Closeable {
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int slots;
+        private final int buckets;
+        private final int recordSize;
+
+        SpillFile(Path path, int requestedSlots, int buckets) throws IOException {
+            this.buckets = buckets;
+            this.recordSize = 8 + 8 + 8 + buckets * 12;
+            this.slots = (int) Math.max(1, Math.min(requestedSlots, Integer.MAX_VALUE / recordSize));
+            // El spill es desborde de la ejecución actual, no persistencia: se trunca al abrir
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) slots * recordSize);
+        }
+
+        // Último en llegar gana: una colisión sobrescribe la entrada previa del slot
+        synchronized void write(long key, Segment segment, int slot) {
+            int pos = position(key);
+            buffer.putLong(pos, 1L);
+            buffer.putLong(pos + 8, key);
+            buffer.putLong(pos + 16, segment.headDay[slot]);
+            int base = slot * buckets;
+            int p = pos + 24;
+            for (int i = 0; i < buckets; i++) {
+                buffer.putInt(p, segment.counts[base + i]);
+                buffer.putLong(p + 4, segment.sums[base + i]);
+                p += 12;
+            }
+        }
+
+        synchronized boolean readAndClear(long key, Segment segment, int slot) {
+            int pos = position(key);
+            if (buffer.getLong(pos) == 0L || buffer.getLong(pos + 8) != key) {
+                return false;
+            }
+            segment.headDay[slot] = buffer.getLong(pos + 16);
+            int base = slot * buckets;
+            int p = pos + 24;
+            for (int i = 0; i < buckets; i++) {
+                segment.counts[base + i] = buffer.getInt(p);
+                segment.sums[base + i] = buffer.getLong(p + 4);
+                p += 12;
+            }
+            buffer.putLong(pos, 0L);
+            return true;
+        }
+
+        private int position(long key) {
+            return (int) Math.floorMod(mix(key), (long) slots) * recordSize;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -1,30 +1,300 @@
 package com.bankxyz.batch.web;
 
+import com.bankxyz.batch.cache.AccountLookupCache;
+import com.bankxyz.batch.cache.AccountSnapshot;
+import com.bankxyz.batch.cache.AccountSnapshotStore;
+import com.bankxyz.batch.feed.BalanceChangeFeed;
 import com.bankxyz.batch.model.Account;
-import com.bankxyz.batch.repository.AccountRepository;
+import com.bankxyz.batch.model.AccountField;
+import com.bankxyz.batch.repository.AccountCursorReader;
+import com.bankxyz.batch.repository.MonthlyInterestRepository;
+import com.bankxyz.batch.repository.MonthlyInterestRepository.MonthlyInterestView;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/accounts")
 public class AccountController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_ACCOUNTS_PAGE_SIZE = 1000;
+
+    // Números de cuenta por llamada a POST /api/accounts/lookup
+    private static final int MAX_LOOKUP_BATCH = 100;
+
+    // Cursor opaco: "id:<último id>" (el prefijo permite cambiar el formato sin romper clientes)
+    private static final String CURSOR_PREFIX = "id:";
+
+    // Versión del snapshot que respondió (ausente si la respuesta vino de la base)
+    static final String SNAPSHOT_VERSION_HEADER = "X-Snapshot-Version";
+
+    @Autowired
+    private MonthlyInterestRepository monthlyInterestRepository;
+
+    @Autowired
+    private AccountLookupCache accountLookupCache;
+
+    @Autowired
+    private AccountSnapshotStore accountSnapshotStore;
+
+    @Autowired
+    private AccountCursorReader accountCursorReader;
+
+    @Autowired
+    private AccountFieldSelector accountFieldSelector;
+
     @Autowired
-    private AccountRepository accountRepository;
+    private BalanceChangeFeed balanceChangeFeed;
+
+    // Todos los endpoints que devuelven cuentas aceptan ?fields=accountNumber,balance,...; sin él
+    // se aplica el default del rol (ATM, MOBILE) y las consultas a la base leen solo esas columnas.
+    // Responden JSON, o CBOR / Smile si el Accept lo pide.
+
+    // Sin paginar: el mismo arreglo de siempre, escrito cuenta por cuenta sin armar la lista.
+    // Desde el snapshot del último job exitoso; antes del primer snapshot, desde un cursor JDBC.
+    @GetMapping(params = {"!limit", "!cursor"})
+    public void getAllAccounts(@RequestParam(required = false) String fields,
+                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                               HttpServletResponse response) throws IOException {
+        Set<AccountField> selected = accountFieldSelector.resolve(fields);
+        MediaType format = accountFieldSelector.negotiate(accept);
+        Optional<AccountSnapshot> snapshot = accountSnapshotStore.current();
+        if (snapshot.isPresent()) {
+            AccountSnapshot accounts = snapshot.get();
+            response.setHeader(SNAPSHOT_VERSION_HEADER, String.valueOf(accounts.getVersion()));
+            writeArray(response, format, selected, action -> {
+                for (int i = 0; i < accounts.size(); i++) {
+                    action.accept(accounts.toAccount(i));
+                }
+            });
+            return;
+        }
+        writeArray(response, format, selected, action -> accountCursorReader.forEach(selected, action));
+    }
 
+    // Exportación en vivo desde la tabla (cursor JDBC de solo avance), sin pasar por el snapshot
+    @GetMapping("/stream")
+    public void streamAccounts(@RequestParam(required = false) String fields,
+                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                               HttpServletResponse response) throws IOException {
+        Set<AccountField> selected = accountFieldSelector.resolve(fields);
+        MediaType format = accountFieldSelector.negotiate(accept);
+        writeArray(response, format, selected, action -> accountCursorReader.forEach(selected, action));
+    }
+
+    // Paginación keyset por id: ?limit=N y luego ?cursor=<nextCursor> hasta que hasNext sea false
     @GetMapping
-    public ResponseEntity<List<Account>> getAllAccounts() {
-        List<Account> accounts = accountRepository.findAll();
-        return ResponseEntity.ok(accounts);
+    public ResponseEntity<byte[]> getAccountsPage(@RequestParam(defaultValue = "100") int limit,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) String fields,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws IOException {
+        Set<AccountField> selected = accountFieldSelector.resolve(fields);
+        MediaType format = accountFieldSelector.negotiate(accept);
+        int pageSize = Math.min(Math.max(limit, 1), MAX_ACCOUNTS_PAGE_SIZE);
+        long afterId = cursor == null ? 0 : decodeCursor(cursor);
+
+        List<Account> items;
+        boolean hasNext;
+        Optional<AccountSnapshot> snapshot = accountSnapshotStore.current();
+        if (snapshot.isPresent()) {
+            AccountSnapshot accounts = snapshot.get();
+            int from = accounts.positionAfterId(afterId);
+            int to = Math.min(from + pageSize, accounts.size());
+            items = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                items.add(accounts.toAccount(i));
+            }
+            hasNext = to < accounts.size();
+        } else {
+            // Una fila de más indica si hay página siguiente
+            items = accountCursorReader.findPageAfterId(afterId, pageSize + 1, selected);
+            hasNext = items.size() > pageSize;
+            if (hasNext) {
+                items = items.subList(0, pageSize);
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("limit", pageSize);
+        response.put("hasNext", hasNext);
+        response.put("nextCursor", hasNext ? encodeCursor(items.get(items.size() - 1).getId()) : null);
+        response.put("items", items);
+
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        snapshot.ifPresent(accounts -> ok.header(SNAPSHOT_VERSION_HEADER, String.valueOf(accounts.getVersion())));
+        return body(ok, format, selected, response);
     }
 
+    // Por número: desde el snapshot o la caché (filas completas, compartidas por todos los canales)
     @GetMapping("/{accountNumber}")
-    public ResponseEntity<Account> getAccountByNumber(@PathVariable String accountNumber) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+    public ResponseEntity<byte[]> getAccountByNumber(@PathVariable String accountNumber,
+                                                     @RequestParam(required = false) String fields,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws IOException {
+        Set<AccountField> selected = accountFieldSelector.resolve(fields);
+        MediaType format = accountFieldSelector.negotiate(accept);
+        Optional<AccountSnapshot> snapshot = accountSnapshotStore.current();
+        if (snapshot.isPresent()) {
+            Account account = snapshot.get().findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new RuntimeException("Account not found"));
+            return body(ResponseEntity.ok()
+                    .header(SNAPSHOT_VERSION_HEADER, String.valueOf(snapshot.get().getVersion())), format, selected, account);
+        }
+        Account account = accountLookupCache.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found"));
-        return ResponseEntity.ok(account);
+        return body(ResponseEntity.ok(), format, selected, account);
+    }
+
+    // Varias cuentas en una sola llamada (dashboards de los BFF): las inexistentes se informan en
+    // "missing" sin fallar el resto. Desde el snapshot si existe; si no, caché + una consulta ANY.
+    @PostMapping("/lookup")
+    public ResponseEntity<byte[]> lookupAccounts(@RequestBody AccountLookupRequest request,
+                                                 @RequestParam(required = false) String fields,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws IOException {
+        Set<AccountField> selected = accountFieldSelector.resolve(fields);
+        MediaType format = accountFieldSelector.negotiate(accept);
+        List<String> requested = request.getAccountNumbers();
+        if (requested == null || requested.isEmpty()) {
+            throw new BadRequestException("accountNumbers is required");
+        }
+        Set<String> accountNumbers = new LinkedHashSet<>(requested);
+        if (accountNumbers.contains(null)) {
+            throw new BadRequestException("accountNumbers cannot contain null");
+        }
+        if (accountNumbers.size() > MAX_LOOKUP_BATCH) {
+            throw new BadRequestException("At most " + MAX_LOOKUP_BATCH + " account numbers per request");
+        }
+
+        Map<String, Optional<Account>> resolved;
+        Optional<AccountSnapshot> snapshot = accountSnapshotStore.current();
+        if (snapshot.isPresent()) {
+            resolved = new LinkedHashMap<>();
+            for (String accountNumber : accountNumbers) {
+                resolved.put(accountNumber, snapshot.get().findByAccountNumber(accountNumber));
+            }
+        } else {
+            resolved = accountLookupCache.findAllByAccountNumber(accountNumbers);
+        }
+
+        Map<String, Account> accounts = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        resolved.forEach((accountNumber, account) -> {
+            if (account.isPresent()) {
+                accounts.put(accountNumber, account.get());
+            } else {
+                missing.add(accountNumber);
+            }
+        });
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("accounts", accounts);
+        response.put("missing", missing);
+
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        snapshot.ifPresent(current -> ok.header(SNAPSHOT_VERSION_HEADER, String.valueOf(current.getVersion())));
+        return body(ok, format, selected, response);
+    }
+
+    // Cambios de saldo en vivo (eventos "balance" con accountNumber, balance y version). El evento
+    // trae el saldo nuevo: no hace falta consultar la cuenta. Se reanuda con Last-Event-ID o ?since=.
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter balanceChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                     @RequestParam(required = false) Long since) {
+        Long lastVersion = since;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                lastVersion = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Invalid Last-Event-ID");
+            }
+        }
+        return balanceChangeFeed.subscribe(lastVersion);
+    }
+
+    @GetMapping("/{accountNumber}/interest")
+    public ResponseEntity<Map<String, Object>> getInterestHistory(@PathVariable String accountNumber,
+                                                                  @RequestParam(defaultValue = "0") int page,
+                                                                  @RequestParam(defaultValue = "12") int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        Slice<MonthlyInterestView> history =
+                monthlyInterestRepository.findByAccountNumberOrderByMonthYearDesc(accountNumber, pageRequest);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("accountNumber", accountNumber);
+        response.put("page", history.getNumber());
+        response.put("size", history.getSize());
+        response.put("hasNext", history.hasNext());
+        response.put("items", history.getContent());
+        return ResponseEntity.ok(response);
+    }
+
+    // Cuerpo serializado con el writer precalculado del formato y la selección (filtra las cuentas anidadas)
+    private ResponseEntity<byte[]> body(ResponseEntity.BodyBuilder builder, MediaType format, Set<AccountField> fields,
+                                        Object body) throws IOException {
+        return builder.contentType(format).body(accountFieldSelector.writerFor(format, fields).writeValueAsBytes(body));
+    }
+
+    private void writeArray(HttpServletResponse response, MediaType format, Set<AccountField> fields,
+                            Consumer<Consumer<Account>> source) throws IOException {
+        response.setContentType(format.toString());
+        if (MediaType.APPLICATION_JSON.equals(format)) {
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        }
+        ObjectWriter writer = accountFieldSelector.writerFor(format, fields);
+        // El generador sale de la fábrica del writer: JSON, CBOR o Smile
+        try (JsonGenerator generator = writer.createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            source.accept(account -> {
+                try {
+                    writer.writeValue(generator, account);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+
+    public static class AccountLookupRequest {
+        private List<String> accountNumbers;
+
+        public List<String> getAccountNumbers() { return accountNumbers; }
+        public void setAccountNumbers(List<String> accountNumbers) { this.accountNumbers = accountNumbers; }
+    }
+
+    private static String encodeCursor(long id) {
+        return Cursors.encode(CURSOR_PREFIX + id);
+    }
+
+    private static long decodeCursor(String cursor) {
+        String decoded = Cursors.decode(cursor);
+        try {
+            if (decoded.startsWith(CURSOR_PREFIX)) {
+                return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+            }
+        } catch (NumberFormatException e) {
+            // Se informa abajo
+        }
+        throw new BadRequestException("Invalid cursor");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+package com.bankxyz.batch.web;
+
+import com.bankxyz.batch.config.AccountFieldsProperties;
+import com.bankxyz.batch.model.Account;
+import com.bankxyz.batch.model.AccountField;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Selección de campos de las respuestas de cuentas.
+ * REQUERIMIENTO: "El BFF de cajeros solo necesita número de cuenta y saldo"
+ *
+ * El parámetro {@code fields=} manda; sin él se usa el default del rol del token (ATM, MOBILE)
+ * y si el rol no tiene uno, la cuenta completa. Cada selección distinta tiene su ObjectWriter
+ * armado una sola vez (a lo sumo 2^6 combinaciones): el filtro de Jackson se aplica sobre una
+ * copia del ObjectMapper, así el resto de la aplicación sigue serializando Account completo.
+ *
+ * Lo mismo por formato: JSON, CBOR o Smile según el Accept (ver ApiFormatsConfig), con un
+ * writer por (formato, selección).
+ */
+@Component
+public class AccountFieldSelector {
+
+    private static final String FILTER_ID = "accountFields";
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+
+    // En orden de preferencia: ante "*/*" o un Accept sin formato conocido se responde JSON
+    private final Map<MediaType, ObjectMapper> filteringMappers = new LinkedHashMap<>();
+    private final Map<String, Set<AccountField>> roleDefaults = new HashMap<>();
+    private final Map<WriterKey, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    public AccountFieldSelector(ObjectMapper objectMapper,
+                                MappingJackson2CborHttpMessageConverter cborConverter,
+                                MappingJackson2SmileHttpMessageConverter smileConverter,
+                                AccountFieldsProperties props) {
+        filteringMappers.put(MediaType.APPLICATION_JSON, filtering(objectMapper));
+        filteringMappers.put(MediaType.APPLICATION_CBOR, filtering(cborConverter.getObjectMapper()));
+        filteringMappers.put(SMILE, filtering(smileConverter.getObjectMapper()));
+        // Un nombre inválido en la configuración falla al arrancar, no en cada request
+        props.getRoleDefaults().forEach((role, names) -> roleDefaults.put(role, parse(names)));
+    }
+
+    /**
+     * Campos a devolver: los de {@code fields} (separados por coma) o el default del rol.
+     * @throws BadRequestException si {@code fields} nombra un campo inexistente
+     */
+    public Set<AccountField> resolve(String fields) {
+        if (fields != null && !fields.isBlank()) {
+            try {
+                return parse(List.of(fields.split(",")));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException(e.getMessage());
+            }
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null) {
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                String role = authority.getAuthority();
+                Set<AccountField> defaults = roleDefaults.get(role.startsWith(ROLE_PREFIX) ? role.substring(ROLE_PREFIX.length()) : role);
+                if (defaults != null) {
+                    return defaults;
+                }
+            }
+        }
+        return AccountField.ALL;
+    }
+
+    /**
+     * Formato de respuesta para el header Accept: el primero soportado en orden de calidad.
+     */
+    public MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            for (MediaType format : filteringMappers.keySet()) {
+                if (type.includes(format)) {
+                    return format;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Writer que serializa cada Account con solo {@code fields}, en cualquier nivel del valor
+     * escrito (cuenta suelta, lista o mapa de respuesta).
+     */
+    public ObjectWriter writerFor(Set<AccountField> fields) {
+        return writerFor(MediaType.APPLICATION_JSON, fields);
+    }
+
+    /**
+     * @param format uno de los devueltos por {@link #negotiate}
+     */
+    public ObjectWriter writerFor(MediaType format, Set<AccountField> fields) {
+        return writers.computeIfAbsent(new WriterKey(format, fields), key -> {
+            SimpleBeanPropertyFilter filter = key.fields().equals(AccountField.ALL)
+                ? SimpleBeanPropertyFilter.serializeAll()
+                : SimpleBeanPropertyFilter.filterOutAllExcept(
+                    key.fields().stream().map(AccountField::getJsonName).collect(Collectors.toSet()));
+            // Sin flush por valor: en el streaming el buffer del contenedor decide cuándo enviar
+            return filteringMappers.get(key.format()).writer(new SimpleFilterProvider().addFilter(FILTER_ID, filter))
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        });
+    }
+
+    private static ObjectMapper filtering(ObjectMapper mapper) {
+        return mapper.copy().addMixIn(Account.class, FilteredAccount.class);
+    }
+
+    private static Set<AccountField> parse(List<String> names) {
+        EnumSet<AccountField> fields = EnumSet.noneOf(AccountField.class);
+        for (String name : names) {
+            fields.add(AccountField.fromJsonName(name.trim()));
+        }
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("At least one account field is required");
+        }
+        return Collections.unmodifiableSet(fields);
+    }
+
+    private record WriterKey(MediaType format, Set<AccountField> fields) {}
+
+    @JsonFilter(FILTER_ID)
+    private abstract static class FilteredAccount {
+    }
+}
@@ -0,0 +1,43 @@
+package com.bankxyz.batch.web;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Formatos de respuesta de la API para los BFF.
+ * REQUERIMIENTO: "Los BFF son servicios propios y pueden recibir una codificación binaria"
+ *
+ * Con {@code Accept: application/cbor} o {@code application/x-jackson-smile} los controladores
+ * responden en ese formato; sin Accept o con {@code *}{@code /*} sigue siendo JSON (el convertidor
+ * JSON va primero). Los mappers binarios salen del mismo Jackson2ObjectMapperBuilder de Spring
+ * Boot que el JSON, así comparten módulos y configuración spring.jackson.*.
+ *
+ * Blackbird reemplaza el acceso reflectivo a getters por lambdas generadas con LambdaMetafactory;
+ * como bean de tipo Module Spring Boot lo registra en todos los ObjectMapper del builder.
+ */
+@Configuration
+public class ApiFormatsConfig {
+
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    // Reemplazan a los convertidores por defecto de Spring MVC, que arman su propio ObjectMapper
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
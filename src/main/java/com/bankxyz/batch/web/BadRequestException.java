@@ -0,0 +1,11 @@
+package com.bankxyz.batch.web;
+
+/**
+ * Parámetros de consulta inválidos (cursor, rango de fechas, campos): se responde 400.
+ */
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
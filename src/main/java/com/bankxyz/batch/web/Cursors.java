@@ -0,0 +1,26 @@
+package com.bankxyz.batch.web;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursores opacos de paginación keyset: la posición se codifica en base64url para que los
+ * clientes la devuelvan tal cual sin depender de su formato.
+ */
+final class Cursors {
+
+    private Cursors() {
+    }
+
+    static String encode(String position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
@@ -1,46 +1,111 @@
 package com.bankxyz.batch.web;
 
-import org.springframework.batch.core.Job;
+import com.bankxyz.batch.launch.JobAdmissionQueue;
+import com.bankxyz.batch.launch.JobLaunchService;
+import com.bankxyz.batch.launch.JobProgress;
 import org.springframework.batch.core.JobExecution;
-import org.springframework.batch.core.JobParameters;
-import org.springframework.batch.core.JobParametersBuilder;
-import org.springframework.batch.core.launch.JobLauncher;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @RestController
 public class JobController {
 
-    private final JobLauncher jobLauncher;
-    private final Job dailyReportJob;
-    private final Job monthlyInterestJob;
-    private final Job annualAccountsJob;
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+
+    private final JobAdmissionQueue admissionQueue;
+    private final JobLaunchService jobLaunchService;
 
-    public JobController(JobLauncher jobLauncher, 
-                        @Qualifier("dailyReportJob") Job dailyReportJob, 
-                        @Qualifier("monthlyInterestJob") Job monthlyInterestJob, 
-                        @Qualifier("annualAccountsJob") Job annualAccountsJob) {
-        this.jobLauncher = jobLauncher;
-        this.dailyReportJob = dailyReportJob;
-        this.monthlyInterestJob = monthlyInterestJob;
-        this.annualAccountsJob = annualAccountsJob;
+    public JobController(JobAdmissionQueue admissionQueue, JobLaunchService jobLaunchService) {
+        this.admissionQueue = admissionQueue;
+        this.jobLaunchService = jobLaunchService;
     }
 
+    // Pasa por la cola de admisión y espera a que el job termine (solicitudes idénticas comparten ejecución)
     @GetMapping("/jobs/run")
-    public ResponseEntity<String> run(@RequestParam String name) throws Exception {
-        Job job = switch (name) {
-            case "dailyReportJob" -> dailyReportJob;
-            case "monthlyInterestJob" -> monthlyInterestJob;
-            case "annualAccountsJob" -> annualAccountsJob;
-            default -> throw new IllegalArgumentException("Unknown job: " + name);
-        };
-        JobParameters params = new JobParametersBuilder()
-                .addLong("timestamp", System.currentTimeMillis())
-                .toJobParameters();
-        JobExecution exec = jobLauncher.run(job, params);
+    public ResponseEntity<String> run(@RequestParam String name,
+                                      @RequestParam(required = false) Integer priority) throws Exception {
+        JobAdmissionQueue.Ticket ticket = admissionQueue.submit(name, priorityOverride(priority));
+        JobExecution exec = ticket.finished().get();
         return ResponseEntity.ok("Started " + name + " with status " + exec.getStatus());
     }
+
+    // Lanzamiento asíncrono: responde con el ticket de admisión (y el ID de ejecución si ya arrancó)
+    @PostMapping("/jobs/launch")
+    public ResponseEntity<Map<String, Object>> launch(@RequestParam String name,
+                                                      @RequestParam(required = false) Integer priority) {
+        JobAdmissionQueue.Ticket ticket = admissionQueue.submit(name, priorityOverride(priority));
+        Map<String, Object> response = ticketResponse(ticket);
+        return ResponseEntity.accepted()
+                .location(URI.create((String) response.get("statusUrl")))
+                .body(response);
+    }
+
+    @GetMapping("/jobs/admissions/{ticketId}")
+    public ResponseEntity<Map<String, Object>> admission(@PathVariable long ticketId) {
+        JobAdmissionQueue.Ticket ticket = admissionQueue.ticket(ticketId)
+                .orElseThrow(() -> new RuntimeException("Admission ticket not found"));
+        return ResponseEntity.ok(ticketResponse(ticket));
+    }
+
+    @GetMapping("/jobs/executions/{executionId}")
+    public ResponseEntity<JobProgress> status(@PathVariable long executionId) {
+        JobProgress progress = jobLaunchService.progress(executionId)
+                .orElseThrow(() -> new RuntimeException("Job execution not found"));
+        return ResponseEntity.ok(progress);
+    }
+
+    @GetMapping(value = "/jobs/executions/{executionId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable long executionId,
+                             @RequestParam(defaultValue = "1000") long intervalMs) {
+        return jobLaunchService.stream(executionId, Duration.ofMillis(Math.max(intervalMs, 200)));
+    }
+
+    // Una prioridad explícita adelanta la solicitud (y la de otros, si se une a un ticket en espera):
+    // solo ADMIN puede pedirla; el resto usa la prioridad configurada del job
+    private static Integer priorityOverride(Integer priority) {
+        if (priority == null) {
+            return null;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean admin = authentication != null && authentication.getAuthorities().stream()
+                .anyMatch(authority -> ADMIN_AUTHORITY.equals(authority.getAuthority()));
+        if (!admin) {
+            throw new AccessDeniedException("Job priority overrides require role ADMIN");
+        }
+        return priority;
+    }
+
+    private Map<String, Object> ticketResponse(JobAdmissionQueue.Ticket ticket) {
+        JobExecution exec = ticket.getExecution();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("ticketId", ticket.getId());
+        response.put("jobName", ticket.getJobName());
+        response.put("state", ticket.getState());
+        response.put("priority", ticket.getPriority());
+        response.put("requests", ticket.getRequests());
+        if (exec != null) {
+            response.put("executionId", exec.getId());
+            response.put("status", exec.getStatus());
+            response.put("statusUrl", "/jobs/executions/" + exec.getId());
+            response.put("streamUrl", "/jobs/executions/" + exec.getId() + "/stream");
+        } else {
+            response.put("position", admissionQueue.position(ticket));
+            response.put("statusUrl", "/jobs/admissions/" + ticket.getId());
+        }
+        return response;
+    }
 }
@@ -2,16 +2,28 @@ package com.bankxyz.batch.web;
 
 import com.bankxyz.batch.model.LegacyTransaction;
 import com.bankxyz.batch.repository.LegacyTransactionRepository;
+import com.bankxyz.batch.repository.LegacyTransactionRepository.TransactionView;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/transactions")
 public class TransactionController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // Límites del filtro de fechas cuando el cliente no los envía (rango DATE de PostgreSQL)
+    private static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
     @Autowired
     private LegacyTransactionRepository legacyTransactionRepository;
 
@@ -20,4 +32,69 @@ public class TransactionController {
         List<LegacyTransaction> transactions = legacyTransactionRepository.findByAccountNumber(accountNumber);
         return ResponseEntity.ok(transactions);
     }
-}
\ No newline at end of file
+
+    // Historial paginado (más reciente primero): ?from&to opcionales, luego ?cursor=<nextCursor>
+    @GetMapping("/{accountNumber}/history")
+    public ResponseEntity<Map<String, Object>> getHistory(@PathVariable String accountNumber,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                          @RequestParam(defaultValue = "50") int limit,
+                                                          @RequestParam(required = false) String cursor) {
+        LocalDate fromDate = from != null ? from : MIN_DATE;
+        LocalDate toDate = to != null ? to : MAX_DATE;
+        if (fromDate.isAfter(toDate)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+
+        // Primera página: todo lo del día 'to' (id máximo); siguientes: estrictamente antes del cursor
+        LocalDate beforeDate = toDate;
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null) {
+            String[] position = decodeCursor(cursor);
+            LocalDate cursorDate = LocalDate.parse(position[0]);
+            // Un cursor posterior a 'to' (el cliente cambió el filtro) no puede traer filas fuera del rango
+            if (!cursorDate.isAfter(toDate)) {
+                beforeDate = cursorDate;
+                beforeId = Long.parseLong(position[1]);
+            }
+        }
+
+        // Una fila de más indica si hay página siguiente
+        List<TransactionView> items = legacyTransactionRepository.findHistoryPage(
+                accountNumber, fromDate, beforeDate, beforeId, pageSize + 1);
+        boolean hasNext = items.size() > pageSize;
+        if (hasNext) {
+            items = items.subList(0, pageSize);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("accountNumber", accountNumber);
+        response.put("from", from);
+        response.put("to", to);
+        response.put("limit", pageSize);
+        response.put("hasNext", hasNext);
+        response.put("nextCursor", hasNext ? encodeCursor(items.get(items.size() - 1)) : null);
+        response.put("items", items);
+        return ResponseEntity.ok(response);
+    }
+
+    // Cursor opaco: "<tx_date>:<id>" de la última fila entregada
+    private static String encodeCursor(TransactionView last) {
+        return Cursors.encode(last.getTxDate() + ":" + last.getId());
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        String[] position = Cursors.decode(cursor).split(":");
+        try {
+            if (position.length == 2) {
+                LocalDate.parse(position[0]);
+                Long.parseLong(position[1]);
+                return position;
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            // Se informa abajo
+        }
+        throw new BadRequestException("Invalid cursor");
+    }
+}
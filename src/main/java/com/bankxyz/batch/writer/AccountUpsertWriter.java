@@ -1,28 +1,58 @@
 package com.bankxyz.batch.writer;
 
+import com.bankxyz.batch.cache.AccountLookupCache;
+import com.bankxyz.batch.feed.BalanceChangeFeed;
 import com.bankxyz.batch.model.Account;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceException;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
 import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.stereotype.Component;
 
+import java.sql.PreparedStatement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Writer personalizado que realiza UPSERT (INSERT o UPDATE) para cuentas
  * REQUERIMIENTO: "actualizar el saldo final en base de datos"
+ *
+ * En la misma transacción agrega al libro monthly_interest una fila por cuenta para el mes
+ * del parámetro "month" del job (re-ejecutar el mismo mes actualiza la fila existente).
+ * Tras cada commit invalida esas cuentas en AccountLookupCache y publica los saldos escritos
+ * en BalanceChangeFeed.
  */
 @Component
-public class AccountUpsertWriter implements ItemWriter<Account> {
+public class AccountUpsertWriter implements ItemWriter<Account>, StepExecutionListener {
     
     private static final Logger logger = LoggerFactory.getLogger(AccountUpsertWriter.class);
+
+    private static final String LEDGER_UPSERT_SQL = """
+        INSERT INTO monthly_interest (month_year, account_number, interest_applied, final_balance)
+        VALUES (?, ?, ?, ?)
+        ON CONFLICT (month_year, account_number)
+        DO UPDATE SET interest_applied = EXCLUDED.interest_applied,
+                      final_balance = EXCLUDED.final_balance
+        """;
     
     private final EntityManagerFactory entityManagerFactory;
-    
-    public AccountUpsertWriter(EntityManagerFactory entityManagerFactory) {
+    private final AccountLookupCache accountLookupCache;
+    private final BalanceChangeFeed balanceChangeFeed;
+
+    public AccountUpsertWriter(EntityManagerFactory entityManagerFactory, AccountLookupCache accountLookupCache,
+                               BalanceChangeFeed balanceChangeFeed) {
         this.entityManagerFactory = entityManagerFactory;
+        this.accountLookupCache = accountLookupCache;
+        this.balanceChangeFeed = balanceChangeFeed;
     }
 
     @Override
@@ -31,6 +61,9 @@ public class AccountUpsertWriter implements ItemWriter<Account> {
         
         try {
             em.getTransaction().begin();
+
+            List<Account> ledgerEntries = new ArrayList<>(chunk.size());
+            List<Account> written = new ArrayList<>(chunk.size());
             
             for (Account account : chunk) {
                 try {
@@ -59,6 +92,11 @@ public class AccountUpsertWriter implements ItemWriter<Account> {
                         logger.debug("🆕 CUENTA CREADA: {} - Balance inicial: ${}", 
                             account.getAccountNumber(), account.getBalance());
                     }
+
+                    written.add(account);
+                    if (account.getInterestApplied() != null) {
+                        ledgerEntries.add(account);
+                    }
                     
                 } catch (PersistenceException e) {
                     logger.warn("⚠️ Error procesando cuenta {}: {}", account.getAccountNumber(), e.getMessage());
@@ -66,8 +104,19 @@ public class AccountUpsertWriter implements ItemWriter<Account> {
                 }
             }
             
+            // 📒 Libro de intereses: un solo batch JDBC sobre la conexión de esta transacción
+            writeLedger(em, ledgerEntries, currentMonth());
+            
             em.getTransaction().commit();
             logger.debug("✅ Chunk de {} cuentas procesado exitosamente", chunk.size());
+
+            // Después del commit: una carga posterior ya lee los saldos nuevos
+            List<String> accountNumbers = new ArrayList<>(chunk.size());
+            for (Account account : chunk) {
+                accountNumbers.add(account.getAccountNumber());
+            }
+            accountLookupCache.invalidate(accountNumbers);
+            balanceChangeFeed.publish(written);
             
         } catch (Exception e) {
             if (em.getTransaction().isActive()) {
@@ -79,4 +128,39 @@ public class AccountUpsertWriter implements ItemWriter<Account> {
             em.close();
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        logger.info("📒 Libro de intereses para el mes {}", monthOf(stepExecution));
+    }
+
+    // El writer es compartido por ejecuciones concurrentes de monthlyInterestJob: el mes se toma
+    // del step que está escribiendo este chunk, nunca de un campo
+    private static String currentMonth() {
+        StepContext context = StepSynchronizationManager.getContext();
+        return context != null ? monthOf(context.getStepExecution()) : YearMonth.now().toString();
+    }
+
+    private static String monthOf(StepExecution stepExecution) {
+        String month = stepExecution.getJobParameters().getString("month");
+        return month != null ? month : YearMonth.now().toString();
+    }
+
+    private void writeLedger(EntityManager em, List<Account> accounts, String month) {
+        if (accounts.isEmpty()) {
+            return;
+        }
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(LEDGER_UPSERT_SQL)) {
+                for (Account account : accounts) {
+                    ps.setString(1, month);
+                    ps.setString(2, account.getAccountNumber());
+                    ps.setBigDecimal(3, account.getInterestApplied());
+                    ps.setBigDecimal(4, account.getBalance());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        });
+    }
+}
@@ -0,0 +1,185 @@
+package com.bankxyz.batch.writer;
+
+import com.bankxyz.batch.aggregation.DailyReportAggregator;
+import com.bankxyz.batch.config.DedupProperties;
+import com.bankxyz.batch.dedup.ScalableBloomFilter;
+import com.bankxyz.batch.dedup.TxIdBloomFilter;
+import com.bankxyz.batch.model.LegacyTransaction;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JpaItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writer de transaction_legacy con detección de tx_id duplicados entre ejecuciones.
+ * REQUERIMIENTO: "Detectar reenvíos de archivos superpuestos sin GROUP BY posteriores"
+ *
+ * Cada tx_id se consulta primero en un Bloom filter persistente; solo los probables duplicados
+ * se verifican contra la base con una única consulta por chunk. Los bits se fijan después del
+ * commit. El índice único sobre tx_id es el respaldo: un duplicado que el Bloom filter no podía
+ * ver (chunk concurrente aún sin commit u otro nodo) hace fallar el insert, y en el reintento del
+ * chunk todos sus tx_id se verifican contra la base. Una instancia por step.
+ *
+ * Solo las transacciones efectivamente escritas se registran en el reporte diario.
+ */
+@Component
+@StepScope
+public class TransactionDedupWriter implements ItemWriter<LegacyTransaction>, StepExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionDedupWriter.class);
+
+    private static final String EXISTING_TX_IDS_SQL =
+        "SELECT DISTINCT tx_id FROM transaction_legacy WHERE tx_id = ANY(?)";
+
+    // SQLState de PostgreSQL: unique_violation
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    private final DedupProperties props;
+    private final JdbcTemplate jdbcTemplate;
+    private final TxIdBloomFilter txIdBloomFilter;
+    private final DailyReportAggregator dailyReportAggregator;
+    private final JpaItemWriter<LegacyTransaction> delegate;
+
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong probableHits = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    // tx_id de chunks rechazados por el índice único: el reintento los verifica contra la base
+    private final Set<String> verifyOnRetry = ConcurrentHashMap.newKeySet();
+
+    public TransactionDedupWriter(DedupProperties props, JdbcTemplate jdbcTemplate, TxIdBloomFilter txIdBloomFilter,
+                                  DailyReportAggregator dailyReportAggregator, EntityManagerFactory emf) {
+        this.props = props;
+        this.jdbcTemplate = jdbcTemplate;
+        this.txIdBloomFilter = txIdBloomFilter;
+        this.dailyReportAggregator = dailyReportAggregator;
+        this.delegate = new JpaItemWriter<>();
+        this.delegate.setEntityManagerFactory(emf);
+    }
+
+    @Override
+    public void write(Chunk<? extends LegacyTransaction> chunk) throws Exception {
+        // Deshabilitado: sin Bloom filter, solo el índice único detecta el duplicado
+        ScalableBloomFilter bloom = props.isEnabled() ? txIdBloomFilter.get() : null;
+        Set<String> seenInChunk = new HashSet<>();
+        List<String> probable = new ArrayList<>();
+
+        for (LegacyTransaction tx : chunk) {
+            String txId = tx.getTxId();
+            if (seenInChunk.add(txId)
+                    && (verifyOnRetry.remove(txId) || (bloom != null && bloom.mightContain(txId)))) {
+                probable.add(txId);
+            }
+        }
+
+        // Verificación exacta solo para los probables duplicados, en una sola consulta
+        Set<String> confirmed = probable.isEmpty() ? Set.of() : findExisting(probable);
+
+        List<LegacyTransaction> kept = new ArrayList<>(chunk.size());
+        Set<String> written = new HashSet<>();
+        int chunkDuplicates = 0;
+        for (LegacyTransaction tx : chunk) {
+            if (confirmed.contains(tx.getTxId()) || !written.add(tx.getTxId())) {
+                chunkDuplicates++;
+                logger.debug("🔁 TX DUPLICADA: {}", tx.getTxId());
+                continue;
+            }
+            kept.add(tx);
+        }
+
+        try {
+            delegate.write(new Chunk<>(kept));
+        } catch (RuntimeException e) {
+            if (isUniqueViolation(e)) {
+                logger.warn("🔁 tx_id ya cargado fuera de este chunk (índice único): se verifica el chunk completo al reintentar");
+                verifyOnRetry.addAll(written);
+            }
+            throw e;
+        }
+
+        // 📅 Ligado a la transacción del chunk: un rollback o un ítem saltado no suma
+        for (LegacyTransaction tx : kept) {
+            dailyReportAggregator.record(tx.getTxDate(), tx.getAmount(), tx.isAnomaly());
+        }
+
+        // Solo lo confirmado cuenta: un chunk que hace rollback se reintenta y no debe sumar dos veces
+        int chunkProbable = probable.size();
+        int chunkFalsePositives = probable.size() - confirmed.size();
+        int duplicatesInChunk = chunkDuplicates;
+        afterCommit(() -> {
+            duplicates.addAndGet(duplicatesInChunk);
+            probableHits.addAndGet(chunkProbable);
+            falsePositives.addAndGet(chunkFalsePositives);
+            if (bloom != null) {
+                for (LegacyTransaction tx : kept) {
+                    bloom.put(tx.getTxId());
+                }
+            }
+        });
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        stepExecution.getExecutionContext().putLong("duplicateCount", duplicates.get());
+        if (!props.isEnabled()) {
+            return stepExecution.getExitStatus();
+        }
+
+        stepExecution.getExecutionContext().putLong("bloomProbableHits", probableHits.get());
+        stepExecution.getExecutionContext().putLong("bloomFalsePositives", falsePositives.get());
+
+        ScalableBloomFilter bloom = txIdBloomFilter.get();
+        bloom.flush();
+        logger.info("🔁 Duplicados detectados: {} (probables: {}, falsos positivos: {}) - Bloom: {} capas, ~{} claves",
+            duplicates.get(), probableHits.get(), falsePositives.get(),
+            bloom.getLayerCount(), bloom.getApproximateCount());
+        return stepExecution.getExitStatus();
+    }
+
+    private Set<String> findExisting(List<String> txIds) {
+        List<String> existing = jdbcTemplate.query(EXISTING_TX_IDS_SQL,
+            ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", txIds.toArray())),
+            (rs, rowNum) -> rs.getString(1));
+        return new HashSet<>(existing);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static boolean isUniqueViolation(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && UNIQUE_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
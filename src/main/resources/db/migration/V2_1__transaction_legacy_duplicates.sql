@@ -0,0 +1,21 @@
+-- ============================================================================
+-- CUARENTENA DE tx_id DUPLICADOS EN transaction_legacy
+-- V3 crea un índice único sobre tx_id: las filas repetidas de cargas anteriores
+-- (se conserva la de menor id) se mueven a transaction_legacy_duplicate para revisión
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS transaction_legacy_duplicate (LIKE transaction_legacy INCLUDING DEFAULTS);
+
+ALTER TABLE transaction_legacy_duplicate ADD COLUMN IF NOT EXISTS quarantined_at TIMESTAMP NOT NULL DEFAULT now();
+
+WITH duplicated AS (
+    DELETE FROM transaction_legacy t
+     USING transaction_legacy keep
+     WHERE t.tx_id = keep.tx_id
+       AND t.id > keep.id
+    RETURNING t.*
+)
+INSERT INTO transaction_legacy_duplicate (id, tx_id, account_number, tx_date, description, amount)
+SELECT DISTINCT ON (id) id, tx_id, account_number, tx_date, description, amount FROM duplicated;
+
+COMMENT ON TABLE transaction_legacy_duplicate IS 'Filas de transaction_legacy con tx_id repetido, retiradas antes de crear el índice único (V3)';
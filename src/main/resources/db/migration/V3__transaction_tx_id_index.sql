@@ -0,0 +1,10 @@
+-- ============================================================================
+-- ÍNDICE ÚNICO PARA DETECCIÓN DE DUPLICADOS EN transaction_legacy
+-- dailyReportJob verifica contra la base solo los tx_id que el Bloom filter marca
+-- como probables duplicados (consulta tx_id = ANY(?) por chunk); el índice único
+-- rechaza los que el Bloom filter no podía ver (chunks concurrentes, otros nodos).
+-- CONCURRENTLY: no bloquea las escrituras mientras se construye (Flyway lo ejecuta
+-- fuera de transacción; ver spring.flyway.postgresql.transactional-lock)
+-- ============================================================================
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_transaction_tx_id ON transaction_legacy(tx_id);
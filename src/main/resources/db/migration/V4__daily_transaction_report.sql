@@ -0,0 +1,20 @@
+-- ============================================================================
+-- REPORTE DIARIO DE TRANSACCIONES (llenado por dailyReportJob)
+-- Se agrega en memoria mientras pasan las transacciones y se vuelca al final del
+-- step con un único UPSERT por lotes; una fila por fecha (y cuenta, si existe)
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS daily_transaction_report (
+    id BIGSERIAL PRIMARY KEY,
+    report_date DATE NOT NULL,
+    account_number VARCHAR(64),
+    tx_count INTEGER NOT NULL DEFAULT 0,
+    total_amount NUMERIC(19,2) NOT NULL DEFAULT 0,
+    anomalies INTEGER NOT NULL DEFAULT 0
+);
+
+-- Clave única para el UPSERT: transacciones.csv no trae cuenta (account_number NULL)
+CREATE UNIQUE INDEX IF NOT EXISTS uq_daily_report_date_account
+    ON daily_transaction_report (report_date, (COALESCE(account_number, '')));
+
+COMMENT ON TABLE daily_transaction_report IS 'Resumen diario de transacciones - conteo, monto total y anomalías por fecha, generado por dailyReportJob';
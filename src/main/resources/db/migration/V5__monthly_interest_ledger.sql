@@ -0,0 +1,21 @@
+-- ============================================================================
+-- LIBRO DE INTERESES MENSUALES (llenado por monthlyInterestJob)
+-- Una fila por cuenta y mes, escrita en la misma transacción que el balance.
+-- La clave única (month_year, account_number) hace idempotentes las re-ejecuciones
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS monthly_interest (
+    id BIGSERIAL PRIMARY KEY,
+    month_year VARCHAR(7) NOT NULL,
+    account_number VARCHAR(64) NOT NULL,
+    interest_applied NUMERIC(19,2) NOT NULL,
+    final_balance NUMERIC(19,2) NOT NULL,
+    CONSTRAINT uq_monthly_interest_month_account UNIQUE (month_year, account_number)
+);
+
+-- Índice cubriente para el historial paginado por cuenta (index-only scan)
+CREATE INDEX IF NOT EXISTS idx_monthly_interest_history
+    ON monthly_interest (account_number, month_year DESC)
+    INCLUDE (interest_applied, final_balance);
+
+COMMENT ON TABLE monthly_interest IS 'Historial de intereses aplicados por cuenta y mes - escrito por monthlyInterestJob';
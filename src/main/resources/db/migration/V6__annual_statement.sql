@@ -0,0 +1,18 @@
+-- ============================================================================
+-- ESTADOS ANUALES AGREGADOS (annualAccountsJob en modo AGGREGATE)
+-- Un registro por cuenta y año: depósitos y retiros sumados, con balance de
+-- apertura encadenado desde el cierre del año anterior de la misma cuenta
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS annual_statement (
+    id BIGSERIAL PRIMARY KEY,
+    year INT NOT NULL,
+    account_number VARCHAR(64) NOT NULL,
+    opening_balance NUMERIC(19,2),
+    total_deposits NUMERIC(19,2),
+    total_withdrawals NUMERIC(19,2),
+    closing_balance NUMERIC(19,2),
+    CONSTRAINT uq_annual_statement_account_year UNIQUE (account_number, year)
+);
+
+COMMENT ON TABLE annual_statement IS 'Estados anuales por cuenta y año - agregados por annualAccountsJob para auditorías';
@@ -0,0 +1,30 @@
+-- ============================================================================
+-- COLA DE PARTICIONES PARA EJECUCIÓN MULTI-NODO (bankxyz.partition.role)
+-- El manager publica una fila por partición (rango de bytes del archivo y
+-- StepExecution del worker); los workers las reclaman con FOR UPDATE SKIP LOCKED
+-- y mantienen heartbeat_at mientras ejecutan
+-- ============================================================================
+
+CREATE TABLE IF NOT EXISTS batch_partition_work (
+    id BIGSERIAL PRIMARY KEY,
+    job_execution_id BIGINT NOT NULL,
+    step_execution_id BIGINT NOT NULL,
+    step_name VARCHAR(100) NOT NULL,
+    partition_name VARCHAR(100) NOT NULL,
+    start_offset BIGINT NOT NULL,
+    end_offset BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    worker_id VARCHAR(100),
+    attempts INT NOT NULL DEFAULT 0,
+    heartbeat_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    updated_at TIMESTAMP NOT NULL DEFAULT now(),
+    CONSTRAINT uq_partition_work_step_execution UNIQUE (step_execution_id)
+);
+
+-- Reclamo: primera fila PENDING por id; reclamo de leases vencidos: CLAIMED por heartbeat
+CREATE INDEX IF NOT EXISTS idx_partition_work_pending ON batch_partition_work (id) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_partition_work_claimed ON batch_partition_work (heartbeat_at) WHERE status = 'CLAIMED';
+CREATE INDEX IF NOT EXISTS idx_partition_work_job ON batch_partition_work (job_execution_id, step_name);
+
+COMMENT ON TABLE batch_partition_work IS 'Cola de particiones de steps batch repartidas entre instancias (manager/worker)';
@@ -0,0 +1,13 @@
+-- ============================================================================
+-- ÍNDICE PARA EL HISTORIAL PAGINADO DE TRANSACCIONES POR CUENTA
+-- GET /api/transactions/{cuenta}/history recorre (tx_date, id) en orden descendente
+-- con keyset: cada página es un range scan acotado, sin importar cuántas
+-- transacciones tenga la cuenta. INCLUDE permite index-only scan de la proyección.
+-- ============================================================================
+
+CREATE INDEX IF NOT EXISTS idx_transaction_history
+    ON transaction_legacy (account_number, tx_date DESC, id DESC)
+    INCLUDE (tx_id, description, amount);
+
+-- El índice por cuenta de V1 queda cubierto por el prefijo del compuesto
+DROP INDEX IF EXISTS idx_transaction_account;
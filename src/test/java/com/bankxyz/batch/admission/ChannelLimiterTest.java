@@ -0,0 +1,108 @@
+package com.bankxyz.batch.admission;
+
+import com.bankxyz.batch.config.ChannelAdmissionProperties.Limits;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChannelLimiterTest {
+
+    @Test
+    void burstIsAdmittedAndThenTheWaitIsReported() {
+        ChannelLimiter limiter = new ChannelLimiter("ATM", new Limits(1, 3, 0));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquireToken()).isEqualTo(ChannelLimiter.ADMITTED);
+        }
+        long wait = limiter.tryAcquireToken();
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.SECONDS.toNanos(1));
+
+        // Un rechazo no consume: la espera informada no crece con los reintentos
+        long retry = limiter.tryAcquireToken();
+        assertThat(retry).isPositive().isLessThanOrEqualTo(wait);
+    }
+
+    @Test
+    void tokensRefillAtTheConfiguredRate() throws InterruptedException {
+        ChannelLimiter limiter = new ChannelLimiter("MOBILE", new Limits(1000, 1, 0));
+
+        assertThat(limiter.tryAcquireToken()).isEqualTo(ChannelLimiter.ADMITTED);
+        long wait = limiter.tryAcquireToken();
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(1));
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(limiter.tryAcquireToken()).isEqualTo(ChannelLimiter.ADMITTED);
+    }
+
+    @Test
+    void concurrentCallersNeverExceedBurstPlusRate() throws Exception {
+        ChannelLimiter limiter = new ChannelLimiter("BFF", new Limits(100, 50, 0));
+        int threads = 8;
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        long begin = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 5_000; i++) {
+                        if (limiter.tryAcquireToken() == ChannelLimiter.ADMITTED) {
+                            admitted.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        double elapsedSeconds = (System.nanoTime() - begin) / 1e9;
+
+        // Ráfaga completa y luego como mucho 100 por segundo (más el token en curso)
+        assertThat(admitted.get()).isGreaterThanOrEqualTo(50)
+            .isLessThanOrEqualTo(50 + (int) Math.ceil(elapsedSeconds * 100) + 1);
+    }
+
+    @Test
+    void withoutRateEveryTokenIsAdmitted() {
+        ChannelLimiter limiter = new ChannelLimiter("ADMIN", new Limits(0, 1, 0));
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(limiter.tryAcquireToken()).isEqualTo(ChannelLimiter.ADMITTED);
+        }
+    }
+
+    @Test
+    void concurrencyCapIsReleasedBySuccessfulEntriesOnly() {
+        ChannelLimiter limiter = new ChannelLimiter("ATM", new Limits(0, 1, 2));
+
+        assertThat(limiter.tryEnter()).isTrue();
+        assertThat(limiter.tryEnter()).isTrue();
+        assertThat(limiter.tryEnter()).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+
+        limiter.release();
+        assertThat(limiter.tryEnter()).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void zeroMaxConcurrentMeansUnlimited() {
+        ChannelLimiter limiter = new ChannelLimiter("ADMIN", new Limits(0, 1, 0));
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.tryEnter()).isTrue();
+        }
+        assertThat(limiter.getInFlight()).isEqualTo(100);
+    }
+}
@@ -0,0 +1,235 @@
+package com.bankxyz.batch.aggregation;
+
+import com.bankxyz.batch.config.AnnualAggregationProperties;
+import com.bankxyz.batch.model.AnnualAccountData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AnnualStatementAggregatorTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<Object[]> upserts = new ArrayList<>();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void mergesSpilledRunsAndChainsOpeningBalances(@TempDir Path spillDir) throws Exception {
+        // Presupuesto de una entrada: cada chunk termina en una corrida en disco
+        AnnualStatementAggregator aggregator = aggregator(spillDir, 1, 2);
+        StepExecution step = aggregateStep(aggregator, 1L);
+
+        inStep(step, () -> {
+            aggregator.write(Chunk.of(data("A", 2023, "100.00", "30.00"), data("B", 2023, "10.00", "0")));
+            aggregator.write(Chunk.of(data("A", 2024, "50.00", "0"), data("A", 2023, "5.00", "0")));
+            aggregator.write(Chunk.of(data("A", 2025, "0", "20.00")));
+        });
+        assertThat(spilledRuns(spillDir)).isPositive();
+
+        mergeStep(aggregator, 1L);
+
+        assertThat(upserts).containsExactly(
+            statement(2023, "A", "0.00", "105.00", "30.00", "75.00"),
+            statement(2024, "A", "75.00", "50.00", "0.00", "125.00"),
+            // Lote nuevo a mitad de la cuenta: la apertura sigue del lote anterior, no de la base
+            statement(2025, "A", "125.00", "0.00", "20.00", "105.00"),
+            statement(2023, "B", "0.00", "10.00", "0.00", "10.00"));
+        assertThat(spilledRuns(spillDir)).isZero();
+    }
+
+    @Test
+    void firstYearOpensWithTheLastStoredClosing(@TempDir Path spillDir) throws Exception {
+        priorClosing("A", "1000.00");
+        AnnualStatementAggregator aggregator = aggregator(spillDir, 1L << 20, 100);
+        StepExecution step = aggregateStep(aggregator, 1L);
+
+        inStep(step, () -> aggregator.write(Chunk.of(data("A", 2024, "10.00", "0"), data("A", 2025, "0", "100.00"))));
+        mergeStep(aggregator, 1L);
+
+        assertThat(upserts).containsExactly(
+            statement(2024, "A", "1000.00", "10.00", "0.00", "1010.00"),
+            statement(2025, "A", "1010.00", "0.00", "100.00", "910.00"));
+    }
+
+    @Test
+    void rolledBackChunksAreNotAggregated(@TempDir Path spillDir) throws Exception {
+        AnnualStatementAggregator aggregator = aggregator(spillDir, 1L << 20, 100);
+        StepExecution step = aggregateStep(aggregator, 1L);
+
+        inStep(step, () -> {
+            chunk(TransactionSynchronization.STATUS_ROLLED_BACK,
+                () -> aggregator.write(Chunk.of(data("A", 2024, "10.00", "0"))));
+            chunk(TransactionSynchronization.STATUS_COMMITTED,
+                () -> aggregator.write(Chunk.of(data("A", 2024, "10.00", "0"))));
+        });
+        mergeStep(aggregator, 1L);
+
+        assertThat(upserts).containsExactly(statement(2024, "A", "0.00", "10.00", "0.00", "10.00"));
+    }
+
+    @Test
+    void overlappingExecutionsKeepSeparateAggregations(@TempDir Path spillDir) throws Exception {
+        // Presupuesto de una entrada: ambas ejecuciones vuelcan corridas al mismo directorio
+        AnnualStatementAggregator aggregator = aggregator(spillDir, 1, 100);
+        StepExecution first = aggregateStep(aggregator, 1L);
+        inStep(first, () -> aggregator.write(Chunk.of(data("A", 2024, "10.00", "0"), data("B", 2024, "1.00", "0"))));
+
+        // La segunda ejecución arranca (beforeStep) con la primera todavía agregando
+        StepExecution second = aggregateStep(aggregator, 2L);
+        inStep(second, () -> aggregator.write(Chunk.of(data("C", 2024, "7.00", "0"), data("D", 2024, "2.00", "0"))));
+        inStep(first, () -> aggregator.write(Chunk.of(data("A", 2024, "5.00", "0"))));
+
+        mergeStep(aggregator, 1L);
+        assertThat(upserts).containsExactly(
+            statement(2024, "A", "0.00", "15.00", "0.00", "15.00"),
+            statement(2024, "B", "0.00", "1.00", "0.00", "1.00"));
+
+        upserts.clear();
+        mergeStep(aggregator, 2L);
+        assertThat(upserts).containsExactly(
+            statement(2024, "C", "0.00", "7.00", "0.00", "7.00"),
+            statement(2024, "D", "0.00", "2.00", "0.00", "2.00"));
+        assertThat(spilledRuns(spillDir)).isZero();
+    }
+
+    @Test
+    void failedExecutionReleasesItsSpilledRuns(@TempDir Path spillDir) throws Exception {
+        AnnualStatementAggregator aggregator = aggregator(spillDir, 1, 100);
+        StepExecution step = aggregateStep(aggregator, 1L);
+        inStep(step, () -> aggregator.write(Chunk.of(data("A", 2024, "10.00", "0"), data("B", 2024, "1.00", "0"))));
+        assertThat(spilledRuns(spillDir)).isPositive();
+
+        aggregator.afterJob(step.getJobExecution());
+
+        assertThat(spilledRuns(spillDir)).isZero();
+        mergeStep(aggregator, 1L);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    private static StepExecution aggregateStep(AnnualStatementAggregator aggregator, long jobExecutionId) {
+        JobExecution jobExecution = new JobExecution(
+            new JobInstance(jobExecutionId, "annualAccountsJob"), jobExecutionId, new JobParameters());
+        StepExecution step = jobExecution.createStepExecution("annualAccountsStep");
+        aggregator.beforeStep(step);
+        return step;
+    }
+
+    // Ejecuta el trabajo con el contexto de step registrado, como en un hilo del step
+    private static void inStep(StepExecution step, ChunkWork work) throws Exception {
+        StepSynchronizationManager.register(step);
+        try {
+            work.run();
+        } finally {
+            StepSynchronizationManager.close();
+        }
+    }
+
+    private static void mergeStep(AnnualStatementAggregator aggregator, long jobExecutionId) throws Exception {
+        JobExecution jobExecution = new JobExecution(
+            new JobInstance(jobExecutionId, "annualAccountsJob"), jobExecutionId, new JobParameters());
+        StepExecution step = jobExecution.createStepExecution("annualStatementMergeStep");
+        aggregator.execute(mock(StepContribution.class), new ChunkContext(new StepContext(step)));
+    }
+
+    private AnnualStatementAggregator aggregator(Path spillDir, long memoryBudget, int batchSize) {
+        AnnualAggregationProperties props = new AnnualAggregationProperties();
+        props.setSpillDir(spillDir.toString());
+        props.setMemoryBudgetBytes(memoryBudget);
+        props.setWriteBatchSize(batchSize);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            upserts.addAll(batch);
+            return new int[batch.size()];
+        });
+        return new AnnualStatementAggregator(props, jdbcTemplate);
+    }
+
+    private void priorClosing(String account, String closing) {
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getString(1)).thenReturn(account);
+            when(rs.getBigDecimal(2)).thenReturn(new BigDecimal(closing));
+            invocation.<RowCallbackHandler>getArgument(2).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+    }
+
+    private static AnnualAccountData data(String account, int year, String deposits, String withdrawals) {
+        AnnualAccountData data = new AnnualAccountData();
+        data.accountNumber = account;
+        data.year = year;
+        data.totalDeposits = new BigDecimal(deposits);
+        data.totalWithdrawals = new BigDecimal(withdrawals);
+        return data;
+    }
+
+    private static Object[] statement(int year, String account, String opening, String deposits,
+                                      String withdrawals, String closing) {
+        return new Object[] { year, account, new BigDecimal(opening), new BigDecimal(deposits),
+            new BigDecimal(withdrawals), new BigDecimal(closing) };
+    }
+
+    private static long spilledRuns(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    private interface ChunkWork {
+        void run() throws Exception;
+    }
+
+    // Simula la transacción de un chunk y su fin con el estado dado
+    private static void chunk(int status, ChunkWork work) throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+            }
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), status);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
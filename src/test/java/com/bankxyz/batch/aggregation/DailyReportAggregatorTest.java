@@ -0,0 +1,99 @@
+package com.bankxyz.batch.aggregation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class DailyReportAggregatorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final DailyReportAggregator aggregator =
+        new DailyReportAggregator(jdbcTemplate, mock(PlatformTransactionManager.class));
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void onlyCommittedChunksReachTheReport() {
+        chunk(TransactionSynchronization.STATUS_ROLLED_BACK, () -> {
+            aggregator.record(DAY, new BigDecimal("10.00"), false);
+            aggregator.record(DAY, new BigDecimal("20.00"), true);
+        });
+        chunk(TransactionSynchronization.STATUS_COMMITTED, () ->
+            aggregator.record(DAY, new BigDecimal("10.00"), true));
+
+        assertThat(aggregator.flush()).isEqualTo(1);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).batchUpdate(sql.capture(), rows.capture());
+        assertThat(rows.getValue()).singleElement()
+            .isEqualTo(new Object[] { Date.valueOf(DAY), 1, new BigDecimal("10.00"), 1 });
+        // Suma a lo ya reportado: una segunda carga del mismo día no pisa la primera
+        assertThat(sql.getValue()).contains("tx_count = daily_transaction_report.tx_count + EXCLUDED.tx_count");
+    }
+
+    @Test
+    void partialSavedWithTheChunkIncludesItsPendingTotals() {
+        ExecutionContext context = new ExecutionContext();
+        aggregator.open(context);
+
+        chunk(TransactionSynchronization.STATUS_COMMITTED, () -> {
+            aggregator.record(DAY, new BigDecimal("1.50"), false);
+            aggregator.update(context);
+        });
+        assertThat(context.getString("dailyReportPartial")).isEqualTo(DAY + "=1:150:0;");
+
+        chunk(TransactionSynchronization.STATUS_ROLLED_BACK, () ->
+            aggregator.record(DAY, new BigDecimal("5.00"), true));
+        aggregator.update(context);
+        assertThat(context.getString("dailyReportPartial")).isEqualTo(DAY + "=1:150:0;");
+
+        // Otra instancia que retoma la partición parte de lo confirmado
+        DailyReportAggregator resumed = new DailyReportAggregator(jdbcTemplate, mock(PlatformTransactionManager.class));
+        resumed.open(context);
+        resumed.update(context);
+        assertThat(context.getString("dailyReportPartial")).isEqualTo(DAY + "=1:150:0;");
+    }
+
+    @Test
+    void emptyFlushDoesNotTouchTheDatabase() {
+        assertThat(aggregator.flush()).isZero();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    // Simula la transacción de un chunk y su fin con el estado dado
+    private static void chunk(int status, Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), status);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
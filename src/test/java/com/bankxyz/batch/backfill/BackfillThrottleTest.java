@@ -0,0 +1,98 @@
+package com.bankxyz.batch.backfill;
+
+import com.bankxyz.batch.config.BackfillProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+
+class BackfillThrottleTest {
+
+    private final BackfillProperties props = new BackfillProperties();
+
+    @Test
+    void readingOnlyChargesAndTheWaitIsPaidBeforeTheNextChunk() throws Exception {
+        props.setRowsPerSecond(100);
+        props.setMegabytesPerSecond(0);
+        BackfillThrottle throttle = throttle();
+        LineMapper<String> mapper = throttle.throttled((line, lineNumber) -> line);
+
+        // 150 filas con 100 disponibles: el reader no espera dentro del chunk
+        long start = System.nanoTime();
+        for (int i = 0; i < 150; i++) {
+            mapper.mapLine("tx" + i, i);
+        }
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(200));
+
+        // Entre chunks (antes de abrir la transacción del siguiente) se paga la deuda: ~0.5 s
+        AtomicInteger chunks = new AtomicInteger();
+        long chunkStart = System.nanoTime();
+        throttle.betweenChunks().iterate(context -> {
+            chunks.incrementAndGet();
+            return RepeatStatus.FINISHED;
+        });
+        long paid = System.nanoTime() - chunkStart;
+        assertThat(chunks).hasValue(1);
+        assertThat(paid).isBetween(TimeUnit.MILLISECONDS.toNanos(400), TimeUnit.MILLISECONDS.toNanos(1500));
+
+        // Pagada: el siguiente chunk no vuelve a esperar
+        long again = System.nanoTime();
+        throttle.before(null);
+        assertThat(System.nanoTime() - again).isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void slowWritesBackOffAndFastWritesRecover() throws Exception {
+        props.setLatencyThreshold(Duration.ofMillis(20));
+        props.setBackoffFactor(0.5);
+        props.setMinRateFraction(0.2);
+        props.setRecoveryStep(0.1);
+        BackfillThrottle throttle = throttle();
+
+        ItemWriter<String> slow = throttle.timed(chunk -> Thread.sleep(40));
+        slow.write(Chunk.of("a"));
+        assertThat(throttle.getRateFraction()).isEqualTo(0.5);
+        slow.write(Chunk.of("a"));
+        assertThat(throttle.getRateFraction()).isEqualTo(0.25);
+        slow.write(Chunk.of("a"));
+        assertThat(throttle.getRateFraction()).isEqualTo(0.2);   // Piso: minRateFraction
+
+        // Escrituras rápidas: el promedio móvil baja del umbral y la tasa sube de a recoveryStep
+        ItemWriter<String> fast = throttle.timed(chunk -> { });
+        int chunks = 0;
+        while (throttle.getRateFraction() == 0.2 && chunks++ < 50) {
+            fast.write(Chunk.of("a"));
+        }
+        assertThat(throttle.getRateFraction()).isCloseTo(0.3, within(1e-9));
+        for (int i = 0; i < 20; i++) {
+            fast.write(Chunk.of("a"));
+        }
+        assertThat(throttle.getRateFraction()).isEqualTo(1.0);
+
+        // Los chunks vacíos no cuentan
+        slow.write(Chunk.of());
+        assertThat(throttle.getRateFraction()).isEqualTo(1.0);
+
+        StepExecution stepExecution = new StepExecution("dailyReportBackfillStep", null);
+        throttle.afterStep(stepExecution);
+        assertThat(stepExecution.getExecutionContext().getInt("backfillBackoffs")).isEqualTo(3);
+        assertThat(stepExecution.getExecutionContext().getDouble("backfillMinRateFraction")).isEqualTo(0.2);
+    }
+
+    private BackfillThrottle throttle() {
+        BackfillThrottle throttle = new BackfillThrottle(props, new SimpleMeterRegistry());
+        throttle.beforeStep(mock(StepExecution.class));
+        return throttle;
+    }
+}
@@ -0,0 +1,60 @@
+package com.bankxyz.batch.backfill;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void oneSecondOfRateIsAvailableUpFront() {
+        TokenBucket bucket = new TokenBucket(100);
+
+        assertThat(bucket.reserve(100)).isZero();
+        long wait = bucket.reserve(1);
+        assertThat(wait).isPositive().isLessThanOrEqualTo(SECOND / 100);
+    }
+
+    @Test
+    void oversizedRequestsAreGrantedAsDebt() {
+        TokenBucket bucket = new TokenBucket(100);
+
+        // 300 con 100 disponibles: deuda de 200, dos segundos de espera
+        long wait = bucket.reserve(300);
+        assertThat(wait).isBetween(SECOND * 19 / 10, 2 * SECOND);
+        // La deuda se acumula para el siguiente
+        assertThat(bucket.reserve(100)).isBetween(SECOND * 29 / 10, 3 * SECOND);
+    }
+
+    @Test
+    void tokensRefillWithElapsedTime() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000);
+        bucket.reserve(1000);
+
+        Thread.sleep(50);
+        // ~50 tokens repuestos: 40 no esperan
+        assertThat(bucket.reserve(40)).isZero();
+    }
+
+    @Test
+    void scalingChangesTheRateOfTheWait() {
+        TokenBucket bucket = new TokenBucket(100);
+        bucket.reserve(100);
+
+        bucket.scale(0.5);
+        // 10 tokens a 50/s: 200 ms
+        assertThat(bucket.reserve(10)).isBetween(SECOND / 5 - SECOND / 50, SECOND / 5);
+    }
+
+    @Test
+    void zeroRateIsUnlimited() {
+        TokenBucket bucket = new TokenBucket(0);
+
+        assertThat(bucket.isUnlimited()).isTrue();
+        assertThat(bucket.reserve(1_000_000)).isZero();
+    }
+}
@@ -0,0 +1,184 @@
+package com.bankxyz.batch.cache;
+
+import com.bankxyz.batch.config.AccountCacheProperties;
+import com.bankxyz.batch.model.Account;
+import com.bankxyz.batch.repository.AccountCursorReader;
+import com.bankxyz.batch.repository.AccountRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountLookupCacheTest {
+
+    private final AccountRepository repository = mock(AccountRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesShareOneQuery() throws Exception {
+        AccountLookupCache cache = cache(100, Duration.ofMinutes(1));
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findByAccountNumber("A")).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(account("A", "10.00"));
+        });
+
+        List<Future<Optional<Account>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(() -> cache.findByAccountNumber("A")));
+        }
+        // Todos contaron su miss: uno carga y el resto espera su resultado
+        await(() -> misses() == 8);
+        release.countDown();
+
+        for (Future<Optional<Account>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).get().extracting(Account::getBalance)
+                .isEqualTo(new BigDecimal("10.00"));
+        }
+        verify(repository, times(1)).findByAccountNumber("A");
+        assertThat(cache.findByAccountNumber("A")).isPresent();
+        verify(repository, times(1)).findByAccountNumber("A");
+    }
+
+    @Test
+    void invalidationDuringALoadKeepsTheStaleValueOutOfTheCache() throws Exception {
+        AccountLookupCache cache = cache(100, Duration.ofMinutes(1));
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findByAccountNumber("A"))
+            .thenAnswer(invocation -> {
+                loadStarted.countDown();
+                release.await();
+                // Leído antes del commit que invalida la clave
+                return Optional.of(account("A", "10.00"));
+            })
+            .thenReturn(Optional.of(account("A", "25.00")));
+
+        Future<Optional<Account>> inFlight = callers.submit(() -> cache.findByAccountNumber("A"));
+        assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.invalidate(List.of("A"));
+        release.countDown();
+
+        // Quien esperaba recibe lo leído, pero no queda guardado
+        assertThat(inFlight.get(5, TimeUnit.SECONDS)).get().extracting(Account::getBalance)
+            .isEqualTo(new BigDecimal("10.00"));
+        assertThat(cache.size()).isZero();
+        assertThat(cache.findByAccountNumber("A")).get().extracting(Account::getBalance)
+            .isEqualTo(new BigDecimal("25.00"));
+        verify(repository, times(2)).findByAccountNumber("A");
+    }
+
+    @Test
+    void failedLoadIsPropagatedToEveryWaiter() throws Exception {
+        AccountLookupCache cache = cache(100, Duration.ofMinutes(1));
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("db down");
+        when(repository.findByAccountNumber("A"))
+            .thenAnswer(invocation -> {
+                release.await();
+                throw failure;
+            })
+            .thenReturn(Optional.of(account("A", "10.00")));
+
+        List<Future<Optional<Account>>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(callers.submit(() -> cache.findByAccountNumber("A")));
+        }
+        await(() -> misses() == 4);
+        release.countDown();
+
+        for (Future<Optional<Account>> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCause(failure);
+        }
+        verify(repository, times(1)).findByAccountNumber("A");
+
+        // El error no se guarda: la consulta siguiente vuelve a la base
+        assertThat(cache.findByAccountNumber("A")).isPresent();
+        verify(repository, times(2)).findByAccountNumber("A");
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() throws Exception {
+        AccountLookupCache cache = cache(100, Duration.ofMillis(50));
+        when(repository.findByAccountNumber("A")).thenReturn(Optional.of(account("A", "10.00")));
+
+        cache.findByAccountNumber("A");
+        cache.findByAccountNumber("A");
+        verify(repository, times(1)).findByAccountNumber("A");
+
+        Thread.sleep(80);
+        cache.findByAccountNumber("A");
+        verify(repository, times(2)).findByAccountNumber("A");
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedAboveTheMaximumSize() {
+        AccountLookupCache cache = cache(2, Duration.ofMinutes(1));
+        for (String number : List.of("A", "B", "C")) {
+            when(repository.findByAccountNumber(number)).thenReturn(Optional.of(account(number, "1.00")));
+        }
+
+        cache.findByAccountNumber("A");
+        cache.findByAccountNumber("B");
+        // A pasa a ser la más reciente: C desplaza a B
+        cache.findByAccountNumber("A");
+        cache.findByAccountNumber("C");
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(meterRegistry.get("cache.evictions").counter().count()).isEqualTo(1);
+
+        cache.findByAccountNumber("A");
+        cache.findByAccountNumber("B");
+        verify(repository, times(1)).findByAccountNumber("A");
+        verify(repository, times(2)).findByAccountNumber("B");
+    }
+
+    private AccountLookupCache cache(int maximumSize, Duration ttl) {
+        AccountCacheProperties props = new AccountCacheProperties();
+        props.setMaximumSize(maximumSize);
+        props.setTtl(ttl);
+        return new AccountLookupCache(props, repository, mock(AccountCursorReader.class), meterRegistry);
+    }
+
+    private double misses() {
+        return meterRegistry.get("cache.gets").tag("result", "miss").counter().count();
+    }
+
+    private static Account account(String number, String balance) {
+        return new Account(number, "Titular", "AHORRO", new BigDecimal(balance), 30);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timeout esperando la condición").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.bankxyz.batch.cache;
+
+import com.bankxyz.batch.feed.BalanceChangeFeed;
+import com.bankxyz.batch.model.Account;
+import com.bankxyz.batch.repository.AccountCursorReader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.math.BigDecimal;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class AccountSnapshotStoreTest {
+
+    private final AccountCursorReader reader = mock(AccountCursorReader.class);
+    private final BalanceChangeFeed feed = mock(BalanceChangeFeed.class);
+    private final AccountSnapshotStore store = new AccountSnapshotStore(reader, feed, new SimpleMeterRegistry());
+
+    @Test
+    void noSnapshotUntilTheFirstJobCompletes() {
+        assertThat(store.current()).isEmpty();
+
+        store.afterJob(job(BatchStatus.FAILED));
+        assertThat(store.current()).isEmpty();
+        verifyNoInteractions(reader);
+
+        accounts(account(1, "A", "10.00"));
+        store.afterJob(job(BatchStatus.COMPLETED));
+
+        assertThat(store.current()).hasValueSatisfying(snapshot -> {
+            assertThat(snapshot.getVersion()).isEqualTo(1);
+            assertThat(snapshot.findByAccountNumber("A")).isPresent();
+        });
+        verify(feed).snapshotPublished(1);
+    }
+
+    @Test
+    void failedRebuildKeepsServingThePreviousVersion() {
+        accounts(account(1, "A", "10.00"));
+        store.afterJob(job(BatchStatus.COMPLETED));
+
+        doThrow(new DataAccessResourceFailureException("sin conexión")).when(reader).forEach(any(Consumer.class));
+        store.afterJob(job(BatchStatus.COMPLETED));
+
+        assertThat(store.current()).hasValueSatisfying(snapshot -> assertThat(snapshot.getVersion()).isEqualTo(1));
+        verify(feed, times(1)).snapshotPublished(anyLong());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void accounts(Account... accounts) {
+        doAnswer(invocation -> {
+            Consumer<Account> action = invocation.getArgument(0);
+            for (Account account : accounts) {
+                action.accept(account);
+            }
+            return null;
+        }).when(reader).forEach(any(Consumer.class));
+    }
+
+    private static Account account(long id, String number, String balance) {
+        Account account = new Account(number, "Titular", "AHORRO", new BigDecimal(balance), 30);
+        account.setId(id);
+        return account;
+    }
+
+    private static JobExecution job(BatchStatus status) {
+        JobExecution execution = new JobExecution(new JobInstance(1L, "monthlyInterestJob"), 1L, new JobParameters());
+        execution.setStatus(status);
+        return execution;
+    }
+}
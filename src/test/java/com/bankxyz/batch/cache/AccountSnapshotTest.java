@@ -0,0 +1,74 @@
+package com.bankxyz.batch.cache;
+
+import com.bankxyz.batch.model.Account;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AccountSnapshotTest {
+
+    @Test
+    void findsEveryAccountByNumberAcrossGrowthAndCollisions() {
+        AccountSnapshot.Builder builder = new AccountSnapshot.Builder();
+        // Más filas que la capacidad inicial del builder (1024)
+        for (int i = 1; i <= 5000; i++) {
+            builder.add(i * 2L, "ACC" + i, "Titular " + i, i % 3 == 0 ? "AHORRO" : "CORRIENTE",
+                new BigDecimal(i + ".25"), i % 10 == 0 ? null : 30 + i % 40);
+        }
+        AccountSnapshot snapshot = builder.build(7);
+
+        assertThat(snapshot.getVersion()).isEqualTo(7);
+        assertThat(snapshot.size()).isEqualTo(5000);
+        for (int i = 1; i <= 5000; i++) {
+            Account account = snapshot.findByAccountNumber("ACC" + i).orElseThrow();
+            assertThat(account.getId()).isEqualTo(i * 2L);
+            assertThat(account.getBalance()).isEqualByComparingTo(i + ".25");
+            assertThat(account.getType()).isEqualTo(i % 3 == 0 ? "AHORRO" : "CORRIENTE");
+            assertThat(account.getAge()).isEqualTo(i % 10 == 0 ? null : 30 + i % 40);
+        }
+        assertThat(snapshot.findByAccountNumber("ACC0")).isEmpty();
+        assertThat(snapshot.findByAccountNumber(null)).isEmpty();
+    }
+
+    @Test
+    void keysetPositionsFollowTheIdOrder() {
+        AccountSnapshot snapshot = new AccountSnapshot.Builder()
+            .add(10, "A", "Ana", "AHORRO", new BigDecimal("1.00"), 30)
+            .add(20, "B", "Luis", null, null, null)
+            .add(30, "C", "Eva", "AHORRO", new BigDecimal("-5.50"), 41)
+            .build(1);
+
+        assertThat(snapshot.positionAfterId(0)).isZero();
+        assertThat(snapshot.positionAfterId(10)).isEqualTo(1);
+        assertThat(snapshot.positionAfterId(15)).isEqualTo(1);
+        assertThat(snapshot.positionAfterId(30)).isEqualTo(3);
+
+        Account noType = snapshot.toAccount(1);
+        assertThat(noType.getType()).isNull();
+        assertThat(noType.getBalance()).isEqualByComparingTo("0");
+        assertThat(snapshot.toAccount(2).getBalance()).isEqualByComparingTo("-5.50");
+    }
+
+    @Test
+    void publishedSnapshotCannotBeMutatedThroughItsAccounts() {
+        AccountSnapshot snapshot = new AccountSnapshot.Builder()
+            .add(1, "A", "Ana", "AHORRO", new BigDecimal("100.00"), 30)
+            .build(1);
+
+        snapshot.findByAccountNumber("A").orElseThrow().setBalance(BigDecimal.ZERO);
+
+        assertThat(snapshot.findByAccountNumber("A").orElseThrow().getBalance()).isEqualByComparingTo("100.00");
+    }
+
+    @Test
+    void rowsMustArriveOrderedById() {
+        AccountSnapshot.Builder builder = new AccountSnapshot.Builder()
+            .add(5, "A", "Ana", "AHORRO", BigDecimal.ONE, 30);
+
+        assertThatThrownBy(() -> builder.add(5, "B", "Luis", "AHORRO", BigDecimal.ONE, 30))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,133 @@
+package com.bankxyz.batch.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pools Hikari reales sobre DataSources de prueba: con el pool batch agotado por los writers,
+ * las peticiones /api/** siguen obteniendo conexión y el resto espera al pool batch.
+ */
+class PoolSaturationTest {
+
+    private final StubDataSource database = new StubDataSource();
+    private final HikariDataSource batchPool = pool("batch-pool", 2);
+    private final HikariDataSource apiPool = pool("api-pool", 1);
+    private final DataSource routing = new DataSourceConfig().dataSource(batchPool, apiPool);
+    private final List<Connection> held = new ArrayList<>();
+
+    @AfterEach
+    void closePools() throws Exception {
+        for (Connection connection : held) {
+            connection.close();
+        }
+        batchPool.close();
+        apiPool.close();
+    }
+
+    @Test
+    void apiRequestsGetConnectionsWhileTheBatchPoolIsExhausted() throws Exception {
+        // Writers batch (hilos sin marca) ocupan todo su pool
+        held.add(routing.getConnection());
+        held.add(routing.getConnection());
+        assertThat(batchPool.getHikariPoolMXBean().getActiveConnections()).isEqualTo(2);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicInteger apiActive = new AtomicInteger();
+        new ApiPoolFilter().doFilter(new MockHttpServletRequest("GET", "/api/accounts"), response, (req, res) -> {
+            try (Connection connection = routing.getConnection()) {
+                apiActive.set(apiPool.getHikariPoolMXBean().getActiveConnections());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(apiActive).hasValue(1);
+        assertThat(batchPool.getHikariPoolMXBean().getThreadsAwaitingConnection()).isZero();
+    }
+
+    @Test
+    void requestsOutsideApiWaitForTheBatchPoolAndTimeOut() throws Exception {
+        held.add(routing.getConnection());
+        held.add(routing.getConnection());
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> new ApiPoolFilter().doFilter(new MockHttpServletRequest("POST", "/jobs/run"),
+                new MockHttpServletResponse(), (req, res) -> {
+                    try (Connection connection = routing.getConnection()) {
+                        // no se llega: el pool batch está agotado
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }))
+            .hasRootCauseInstanceOf(SQLTransientConnectionException.class)
+            .hasMessageContaining("batch-pool");
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(250_000_000L);
+        // No se desvió al pool API: ni siquiera llegó a abrirse
+        assertThat(apiPool.isRunning()).isFalse();
+    }
+
+    @Test
+    void apiPoolSaturationDoesNotSpillIntoTheBatchPool() throws Exception {
+        PoolRoutingDataSource.use(PoolRoutingDataSource.Pool.API);
+        try {
+            held.add(routing.getConnection());
+            assertThatThrownBy(routing::getConnection)
+                .isInstanceOf(SQLTransientConnectionException.class)
+                .hasMessageContaining("api-pool");
+        } finally {
+            PoolRoutingDataSource.clear();
+        }
+
+        // El batch sigue con todo su cupo
+        held.add(routing.getConnection());
+        assertThat(batchPool.getHikariPoolMXBean().getActiveConnections()).isEqualTo(1);
+    }
+
+    private HikariDataSource pool(String name, int size) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setDataSource(database);
+        pool.setMaximumPoolSize(size);
+        pool.setMinimumIdle(0);
+        pool.setConnectionTimeout(250);   // Mínimo que admite Hikari
+        return pool;
+    }
+
+    // Base de datos de prueba: cada conexión física es un mock válido
+    private static final class StubDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() {
+            Connection connection = mock(Connection.class);
+            try {
+                when(connection.isValid(anyInt())).thenReturn(true);
+                when(connection.getAutoCommit()).thenReturn(true);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return connection;
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+    }
+}
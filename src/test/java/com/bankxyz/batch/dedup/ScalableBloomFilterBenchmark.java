@@ -0,0 +1,97 @@
+package com.bankxyz.batch.dedup;
+
+import com.bankxyz.batch.config.DedupProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo por fila del Bloom filter de tx_id con la configuración por defecto de bankxyz.dedup
+ * (capa inicial de 1M que crece x2). Objetivo del requerimiento: menos de 1 µs por fila con 100M claves:
+ * mvn -Pbenchmark verify -DskipTests -Djmh.args="ScalableBloomFilterBenchmark -p keys=100000000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ScalableBloomFilterBenchmark {
+
+    private static final int PROBES = 1 << 20;
+
+    @Param({"1000000", "10000000"})
+    public long keys;
+
+    private Path dir;
+    private ScalableBloomFilter bloom;
+    private String[] present;
+    private String[] absent;
+    private int next;
+    private long fresh;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        DedupProperties defaults = new DedupProperties();
+        dir = Files.createTempDirectory("bloom-bench");
+        bloom = new ScalableBloomFilter(dir, defaults.getInitialCapacity(), defaults.getFalsePositiveRate(),
+            defaults.getGrowthFactor(), defaults.getTighteningRatio());
+        for (long i = 0; i < keys; i++) {
+            bloom.put(txId(i));
+        }
+
+        present = new String[PROBES];
+        absent = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            present[i] = txId(Math.floorMod(i * 2_654_435_761L, keys));
+            absent[i] = txId(keys + i);
+        }
+        fresh = keys + PROBES;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        bloom.close();
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    // Fila nueva: la consulta recorre todas las capas
+    @Benchmark
+    public boolean mightContainAbsent() {
+        return bloom.mightContain(absent[next++ & (PROBES - 1)]);
+    }
+
+    // Reenvío: la consulta corta en la capa que tiene la clave
+    @Benchmark
+    public boolean mightContainPresent() {
+        return bloom.mightContain(present[next++ & (PROBES - 1)]);
+    }
+
+    // Costo completo de una fila nueva en el writer: consulta + alta tras el commit
+    @Benchmark
+    public boolean checkAndPut() {
+        String txId = txId(fresh++);
+        boolean probable = bloom.mightContain(txId);
+        bloom.put(txId);
+        return probable;
+    }
+
+    private static String txId(long n) {
+        return "TX" + n;
+    }
+}
@@ -0,0 +1,84 @@
+package com.bankxyz.batch.dedup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void neverReportsAnInsertedKeyAsAbsent(@TempDir Path dir) throws Exception {
+        try (ScalableBloomFilter bloom = new ScalableBloomFilter(dir, 10_000, 0.001, 2, 0.5)) {
+            for (int i = 0; i < 100_000; i++) {
+                bloom.put("TX" + i);
+            }
+            for (int i = 0; i < 100_000; i++) {
+                assertThat(bloom.mightContain("TX" + i)).as("TX%d", i).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void growsLayersAndKeepsTheFalsePositiveRateBounded(@TempDir Path dir) throws Exception {
+        try (ScalableBloomFilter bloom = new ScalableBloomFilter(dir, 10_000, 0.001, 2, 0.5)) {
+            for (int i = 0; i < 100_000; i++) {
+                bloom.put("TX" + i);
+            }
+
+            int falsePositives = 0;
+            int probes = 200_000;
+            for (int i = 0; i < probes; i++) {
+                if (bloom.mightContain("OTHER" + i)) {
+                    falsePositives++;
+                }
+            }
+
+            // Capas de 10k, 20k, 40k y 80k: la tasa total queda acotada por la suma de las de cada capa
+            // (0.1% + 0.05% + 0.025% + 0.0125%)
+            assertThat(bloom.getLayerCount()).isEqualTo(4);
+            assertThat((double) falsePositives / probes).isLessThan(0.001875);
+            assertThat(bloom.getApproximateCount()).isBetween(99_000L, 100_000L);
+        }
+    }
+
+    @Test
+    void layersSurviveReopening(@TempDir Path dir) throws Exception {
+        try (ScalableBloomFilter bloom = new ScalableBloomFilter(dir, 1_000, 0.01, 2, 0.5)) {
+            for (int i = 0; i < 5_000; i++) {
+                bloom.put("TX" + i);
+            }
+        }
+
+        try (ScalableBloomFilter reopened = new ScalableBloomFilter(dir, 1_000, 0.01, 2, 0.5)) {
+            assertThat(reopened.getLayerCount()).isEqualTo(3);
+            assertThat(reopened.getApproximateCount()).isPositive();
+            for (int i = 0; i < 5_000; i++) {
+                assertThat(reopened.mightContain("TX" + i)).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void discardsLayersOfAnObsoleteFormat(@TempDir Path dir) throws Exception {
+        try (ScalableBloomFilter bloom = new ScalableBloomFilter(dir, 1_000, 0.01, 2, 0.5)) {
+            for (int i = 0; i < 5_000; i++) {
+                bloom.put("TX" + i);
+            }
+        }
+        try (FileChannel layer = FileChannel.open(dir.resolve("bloom-0.bin"), StandardOpenOption.WRITE)) {
+            layer.write(ByteBuffer.allocate(8).putLong(0, 0x424C4F4F4D463031L), 0); // "BLOOMF01"
+        }
+
+        // Vacío al reabrir: quien lo usa lo reconstruye desde la tabla
+        try (ScalableBloomFilter reopened = new ScalableBloomFilter(dir, 1_000, 0.01, 2, 0.5)) {
+            assertThat(reopened.getLayerCount()).isEqualTo(1);
+            assertThat(reopened.getApproximateCount()).isZero();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.bankxyz.batch.executor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitedTaskExecutorTest {
+
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void neverRunsMoreTasksThanTheLimit() throws Exception {
+        ConcurrencyLimitedTaskExecutor executor = new ConcurrencyLimitedTaskExecutor("step", pool::execute, 3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(50);
+
+        for (int i = 0; i < 50; i++) {
+            executor.execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(2);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(peak.get()).isEqualTo(3);
+        assertThat(executor.getInFlight()).isZero();
+    }
+
+    @Test
+    void dispatcherWaitsForAFreeSlot() throws Exception {
+        ConcurrencyLimitedTaskExecutor executor = new ConcurrencyLimitedTaskExecutor("step", pool::execute, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> await(release));
+
+        CountDownLatch secondStarted = new CountDownLatch(1);
+        Thread dispatcher = new Thread(() -> executor.execute(secondStarted::countDown));
+        dispatcher.start();
+
+        assertThat(secondStarted.await(100, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(executor.getInFlight()).isEqualTo(1);
+        release.countDown();
+        assertThat(secondStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        dispatcher.join(5_000);
+    }
+
+    @Test
+    void resizingTakesEffectForTheNextTasks() throws Exception {
+        ConcurrencyLimitedTaskExecutor executor = new ConcurrencyLimitedTaskExecutor("step", pool::execute, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(3);
+
+        executor.setLimit(3);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+        }
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.getInFlight()).isEqualTo(3);
+
+        // Reducir con tareas en vuelo: terminan normalmente y el cupo queda en 1
+        executor.setLimit(1);
+        release.countDown();
+        CountDownLatch next = new CountDownLatch(1);
+        executor.execute(next::countDown);
+        assertThat(next.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.getLimit()).isEqualTo(1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
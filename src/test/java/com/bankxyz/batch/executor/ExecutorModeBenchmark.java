@@ -0,0 +1,114 @@
+package com.bankxyz.batch.executor;
+
+import com.bankxyz.batch.BatchApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Duración de cada job con hilos de plataforma contra hilos virtuales, para varios tamaños de pool.
+ * El pool batch de Hikari tiene pool-size + conexiones reservadas, así el cupo por step es pool-size
+ * en ambos modos. Necesita PostgreSQL con el esquema migrado y los CSV de bankxyz.dataDir.
+ * VIRTUAL necesita un JDK 21+ para el fork (en 17 el executor cae al pool de plataforma y el
+ * benchmark se niega a correr en vez de reportar PLATFORM con la etiqueta VIRTUAL):
+ * mvn -Pbenchmark verify -DskipTests -Djmh.args="ExecutorModeBenchmark -jvmArgsAppend -Dbenchmark.db.url=jdbc:postgresql://host:5432/batchdb"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ExecutorModeBenchmark {
+
+    private static final int RESERVED_CONNECTIONS = 2;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String mode;
+
+    @Param({"4", "16", "64"})
+    public int poolSize;
+
+    @Param({"dailyReportJob", "monthlyInterestJob", "annualAccountsJob"})
+    public String job;
+
+    private ConfigurableApplicationContext context;
+    private JobLauncher jobLauncher;
+    private Job target;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        if ("VIRTUAL".equals(mode) && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("mode=VIRTUAL requiere Java 21+ (runtime: " + Runtime.version()
+                + "); use -p mode=PLATFORM o un JDK 21 con -jvm");
+        }
+        context = new SpringApplicationBuilder(BatchApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(Map.of(
+                "spring.datasource.url", System.getProperty("benchmark.db.url", "jdbc:postgresql://localhost:5432/batchdb"),
+                "bankxyz.executor.mode", mode,
+                "bankxyz.executor.core-pool-size", poolSize,
+                "bankxyz.executor.max-pool-size", poolSize,
+                "bankxyz.executor.reserved-connections", RESERVED_CONNECTIONS,
+                "bankxyz.datasource.batch.maximum-pool-size", poolSize + RESERVED_CONNECTIONS,
+                // Cada iteración vuelve a cargar las mismas transacciones: sin Bloom filter entre iteraciones
+                "bankxyz.dedup.enabled", false,
+                "logging.level.com.bankxyz.batch", "WARN"))
+            // Ningún argumento de BatchJobRunner: los jobs los lanza el benchmark
+            .run("benchmark");
+        jobLauncher = context.getBean(JobLauncher.class);
+        target = context.getBean(job, Job.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    // Misma carga en cada iteración: las tablas que los jobs llenan (no las que actualizan) se vacían
+    @Setup(Level.Iteration)
+    public void resetTables() {
+        switch (job) {
+            case "dailyReportJob" -> jdbcTemplate.execute("TRUNCATE transaction_legacy, daily_transaction_report");
+            case "annualAccountsJob" -> jdbcTemplate.execute("TRUNCATE annual_account_data");
+            default -> { }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public JobExecution runJob() throws Exception {
+        JobExecution execution = jobLauncher.run(target, new JobParametersBuilder()
+            .addString("month", YearMonth.now().toString())
+            .addLong("timestamp", System.nanoTime())
+            .toJobParameters());
+        if (execution.getStatus() != BatchStatus.COMPLETED) {
+            throw new IllegalStateException(job + " terminó en " + execution.getStatus());
+        }
+        return execution;
+    }
+}
@@ -0,0 +1,169 @@
+package com.bankxyz.batch.executor;
+
+import com.bankxyz.batch.config.ExecutorProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pool Hikari real de 5 conexiones con 1 reservada: los chunks de varios steps a la vez, uno de
+ * ellos con dos conexiones por chunk, nunca esperan conexión ni tocan la reservada.
+ */
+class StepConcurrencyLimiterTest {
+
+    private final HikariDataSource batchPool = pool(5);
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        threads.shutdownNow();
+        batchPool.close();
+    }
+
+    @Test
+    void concurrentStepsShareOneConnectionBudget() throws Exception {
+        StepConcurrencyLimiter limiter = new StepConcurrencyLimiter(properties(1), batchPool);
+        assertThat(limiter.ceiling()).isEqualTo(4);
+
+        // Cada step, por sí solo, podría ocupar todo el presupuesto
+        TaskExecutor daily = limiter.forStep("dailyReportStep", threads::execute);
+        TaskExecutor annual = limiter.forStep("annualAccountsStep", threads::execute);
+        TaskExecutor interest = limiter.forStep("monthlyInterestStep", threads::execute, 2);
+
+        AtomicInteger peak = new AtomicInteger();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        int chunksPerStep = 30;
+        CountDownLatch done = new CountDownLatch(3 * chunksPerStep);
+
+        List<Thread> dispatchers = new ArrayList<>();
+        dispatchers.add(dispatch(daily, 1, chunksPerStep, peak, failures, done));
+        dispatchers.add(dispatch(annual, 1, chunksPerStep, peak, failures, done));
+        dispatchers.add(dispatch(interest, 2, chunksPerStep, peak, failures, done));
+
+        assertThat(done.await(20, TimeUnit.SECONDS)).isTrue();
+        for (Thread dispatcher : dispatchers) {
+            dispatcher.join(5_000);
+        }
+        assertThat(failures).isEmpty();
+        // Sin el presupuesto compartido serían hasta 4 + 4 + 2x2 conexiones sobre un pool de 5
+        assertThat(peak.get()).isLessThanOrEqualTo(4);
+        // El cupo se devuelve justo después de cada chunk (después de done.countDown)
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.getAvailableConnections() < 4 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(limiter.getAvailableConnections()).isEqualTo(4);
+    }
+
+    @Test
+    void stepLimitsAreCappedByTheBudgetAndTheirConnectionsPerChunk() {
+        ExecutorProperties props = properties(1);
+        props.getStepConcurrency().put("dailyReportStep", 50);
+        StepConcurrencyLimiter limiter = new StepConcurrencyLimiter(props, batchPool);
+
+        limiter.forStep("dailyReportStep", threads::execute);
+        limiter.forStep("monthlyInterestStep", threads::execute, 2);
+
+        assertThat(limits(limiter)).containsEntry("dailyReportStep", 4).containsEntry("monthlyInterestStep", 2);
+        assertThat(limiter.resize("monthlyInterestStep", 10)).isEqualTo(2);
+        assertThat(limiter.resize("dailyReportStep", 10)).isEqualTo(4);
+        assertThat(limiter.resize("dailyReportStep", 0)).isEqualTo(1);
+    }
+
+    // Reparte chunks como el step: cada uno toma sus conexiones del pool, espera un poco y las devuelve
+    private Thread dispatch(TaskExecutor executor, int connectionsPerChunk, int chunks, AtomicInteger peak,
+                            Queue<Throwable> failures, CountDownLatch done) {
+        Thread dispatcher = new Thread(() -> {
+            for (int i = 0; i < chunks; i++) {
+                executor.execute(() -> {
+                    List<Connection> held = new ArrayList<>();
+                    try {
+                        for (int c = 0; c < connectionsPerChunk; c++) {
+                            held.add(batchPool.getConnection());
+                        }
+                        peak.accumulateAndGet(batchPool.getHikariPoolMXBean().getActiveConnections(), Math::max);
+                        Thread.sleep(2);
+                    } catch (Exception e) {
+                        failures.add(e);
+                    } finally {
+                        held.forEach(StepConcurrencyLimiterTest::close);
+                        done.countDown();
+                    }
+                });
+            }
+        });
+        dispatcher.start();
+        return dispatcher;
+    }
+
+    private static Map<String, Integer> limits(StepConcurrencyLimiter limiter) {
+        Map<String, Integer> limits = new HashMap<>();
+        limiter.getExecutors().forEach(step -> limits.put(step.getName(), step.getLimit()));
+        return limits;
+    }
+
+    private static ExecutorProperties properties(int reserved) {
+        ExecutorProperties props = new ExecutorProperties();
+        props.setReservedConnections(reserved);
+        return props;
+    }
+
+    private static HikariDataSource pool(int size) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("batch-pool");
+        pool.setDataSource(new StubDataSource());
+        pool.setMaximumPoolSize(size);
+        pool.setMinimumIdle(0);
+        pool.setConnectionTimeout(250);   // Un chunk que tuviera que esperar conexión falla
+        return pool;
+    }
+
+    private static void close(Connection connection) {
+        try {
+            connection.close();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Base de datos de prueba: cada conexión física es un mock válido
+    private static final class StubDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() {
+            Connection connection = mock(Connection.class);
+            try {
+                when(connection.isValid(anyInt())).thenReturn(true);
+                when(connection.getAutoCommit()).thenReturn(true);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return connection;
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+    }
+}
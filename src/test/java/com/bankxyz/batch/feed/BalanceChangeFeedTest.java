@@ -0,0 +1,247 @@
+package com.bankxyz.batch.feed;
+
+import com.bankxyz.batch.config.BalanceFeedProperties;
+import com.bankxyz.batch.model.Account;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BalanceChangeFeedTest {
+
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+    private final ExecutorService senders = Executors.newCachedThreadPool();
+    private BalanceChangeFeed feed;
+
+    @AfterEach
+    void shutdown() {
+        feed.shutdown();
+        senders.shutdownNow();
+    }
+
+    @Test
+    void coalescesPerAccountAndResumesFromLastEventId() {
+        feed = feed(8, 100);
+        RecordingEmitter live = subscribe(null);
+
+        feed.publish(List.of(account("A", "1.00"), account("B", "2.00")));
+        feed.publish(List.of(account("A", "3.00")));
+        feed.publish(List.of(account("C", "4.00")));
+        feed.tick();
+
+        assertThat(live.names()).containsExactly("balance", "balance", "balance");
+        assertThat(live.balances()).containsExactly("A=3.00", "B=2.00", "C=4.00");
+
+        // Reconexión con el id del primer evento: recibe el resto, en orden
+        RecordingEmitter resumed = subscribe(live.ids().get(0));
+        feed.tick();
+        assertThat(resumed.ids()).containsExactlyElementsOf(live.ids().subList(1, 3));
+        assertThat(resumed.balances()).containsExactly("B=2.00", "C=4.00");
+    }
+
+    @Test
+    void cursorOutsideTheRingGetsReset() {
+        feed = feed(4, 100);
+        RecordingEmitter live = subscribe(null);
+        for (int i = 0; i < 6; i++) {
+            feed.publish(List.of(account("ACC" + i, "1.00")));
+            feed.tick();
+        }
+        assertThat(live.names()).containsOnly("balance").hasSize(6);
+
+        // El primer evento ya salió del buffer de 4; un id de un proceso anterior también queda antes
+        RecordingEmitter tooOld = subscribe(live.ids().get(0));
+        RecordingEmitter otherProcess = subscribe(1L);
+        feed.tick();
+
+        assertThat(tooOld.names()).containsExactly("reset");
+        assertThat(tooOld.ids()).containsExactly(live.ids().get(5));
+        assertThat(otherProcess.names()).containsExactly("reset");
+
+        // Desde el id del reset sigue en vivo
+        feed.publish(List.of(account("Z", "9.00")));
+        feed.tick();
+        assertThat(tooOld.balances()).containsExactly("Z=9.00");
+    }
+
+    @Test
+    void snapshotEventFollowsTheChangesItIncludes() {
+        feed = feed(16, 100);
+        RecordingEmitter live = subscribe(null);
+
+        // Saldos del último chunk todavía en la ventana cuando el job termina y se publica el snapshot
+        feed.publish(List.of(account("A", "1.00")));
+        feed.snapshotPublished(3);
+        feed.tick();
+
+        assertThat(live.names()).containsExactly("balance", "snapshot");
+        BalanceChangeFeed.SnapshotPublished snapshot = (BalanceChangeFeed.SnapshotPublished) live.events.get(1).data();
+        assertThat(snapshot.snapshotVersion()).isEqualTo(3);
+        assertThat(snapshot.version()).isEqualTo(live.ids().get(1));
+    }
+
+    @Test
+    void catchUpIsSpreadOverSeveralTicks() {
+        feed = feed(64, 2);
+        RecordingEmitter live = subscribe(null);
+        for (int i = 0; i < 5; i++) {
+            feed.publish(List.of(account("ACC" + i, "1.00")));
+        }
+
+        feed.tick();
+        assertThat(live.events).hasSize(2);
+        feed.tick();
+        assertThat(live.events).hasSize(4);
+        feed.tick();
+        assertThat(live.events).hasSize(5);
+        assertThat(live.balances()).containsExactly("ACC0=1.00", "ACC1=1.00", "ACC2=1.00", "ACC3=1.00", "ACC4=1.00");
+    }
+
+    @Test
+    void blockedSubscriberDoesNotStallOthersAndIsDropped() throws Exception {
+        CountDownLatch socketFree = new CountDownLatch(1);
+        feed = feed(64, 100, 2, senders);
+        RecordingEmitter blocked = subscribe(null);
+        RecordingEmitter live = subscribe(null);
+        blocked.blockUntil(socketFree);
+
+        // El envío del primer evento queda bloqueado; la cola de 2 se llena y en el tick siguiente se descarta.
+        // El suscriptor sano vacía su cola entre ticks, como con la ventana de coalescencia real
+        for (int i = 0; i < 4; i++) {
+            feed.publish(List.of(account("ACC" + i, "1.00")));
+            feed.tick();
+            int delivered = i + 1;
+            await(() -> live.events.size() == delivered);
+        }
+        assertThat(live.balances()).containsExactly("ACC0=1.00", "ACC1=1.00", "ACC2=1.00", "ACC3=1.00");
+        assertThat(feed.getSubscriberCount()).isEqualTo(1);
+
+        // Liberado el socket, la conexión descartada se cierra con error (el cliente reconecta)
+        socketFree.countDown();
+        await(() -> blocked.failure != null);
+        assertThat(blocked.events).hasSizeLessThan(4);
+    }
+
+    private BalanceChangeFeed feed(int bufferSize, int maxEventsPerTick) {
+        // Envío en el hilo que llama a tick(): las aserciones ven los eventos al volver
+        return feed(bufferSize, maxEventsPerTick, 2_000, Runnable::run);
+    }
+
+    private BalanceChangeFeed feed(int bufferSize, int maxEventsPerTick, int queueSize, Executor sender) {
+        BalanceFeedProperties props = new BalanceFeedProperties();
+        props.setBufferSize(bufferSize);
+        props.setMaxEventsPerTick(maxEventsPerTick);
+        props.setOutboundQueueSize(queueSize);
+        // El scheduler no interviene: las pruebas llaman a tick()
+        props.setCoalesceWindow(Duration.ofHours(1));
+        props.setHeartbeatInterval(Duration.ofHours(1));
+        return new BalanceChangeFeed(props, new SimpleMeterRegistry()) {
+            @Override
+            SseEmitter newEmitter(long timeoutMillis) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+
+            @Override
+            Executor newSender() {
+                return sender;
+            }
+        };
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timeout esperando la condición").isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private RecordingEmitter subscribe(Long lastVersion) {
+        feed.subscribe(lastVersion);
+        return emitters.get(emitters.size() - 1);
+    }
+
+    private static Account account(String number, String balance) {
+        return new Account(number, "Titular", "AHORRO", new BigDecimal(balance), 30);
+    }
+
+    private record Event(String name, long id, Object data) {}
+
+    // Guarda los eventos enviados (sin heartbeats) en lugar de escribirlos en la respuesta
+    private static final class RecordingEmitter extends SseEmitter {
+        private static final Pattern NAME = Pattern.compile("event:(\\w+)");
+        private static final Pattern ID = Pattern.compile("id:(\\d+)");
+
+        final List<Event> events = new CopyOnWriteArrayList<>();
+        volatile CountDownLatch socketFree = new CountDownLatch(0);
+        volatile Throwable failure;
+
+        // Simula un cliente con la ventana TCP llena: send no vuelve hasta liberar el latch
+        void blockUntil(CountDownLatch latch) {
+            socketFree = latch;
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failure = ex;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            try {
+                socketFree.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            StringBuilder text = new StringBuilder();
+            Object data = null;
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof String s) {
+                    text.append(s);
+                } else {
+                    data = part.getData();
+                }
+            }
+            Matcher name = NAME.matcher(text);
+            Matcher id = ID.matcher(text);
+            if (name.find() && id.find()) {
+                events.add(new Event(name.group(1), Long.parseLong(id.group(1)), data));
+            }
+        }
+
+        List<String> names() {
+            return events.stream().map(Event::name).toList();
+        }
+
+        List<Long> ids() {
+            return events.stream().map(Event::id).toList();
+        }
+
+        List<String> balances() {
+            return events.stream()
+                .filter(event -> event.data() instanceof BalanceChangeFeed.BalanceChange)
+                .map(event -> (BalanceChangeFeed.BalanceChange) event.data())
+                .map(change -> change.accountNumber() + "=" + change.balance())
+                .toList();
+        }
+    }
+}
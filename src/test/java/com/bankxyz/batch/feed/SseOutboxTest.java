@@ -0,0 +1,118 @@
+package com.bankxyz.batch.feed;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseOutboxTest {
+
+    private final ExecutorService sender = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        sender.shutdownNow();
+    }
+
+    @Test
+    void completeSendsWhatIsQueuedInOrderFirst() throws Exception {
+        CountDownLatch socketFree = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(socketFree);
+        SseOutbox outbox = new SseOutbox(emitter, 3, sender);
+
+        // El primero queda en vuelo; los otros tres llenan la cola y el quinto no entra
+        assertThat(outbox.offer(event("1"))).isTrue();
+        emitter.sending.await(5, TimeUnit.SECONDS);
+        assertThat(outbox.offer(event("2"))).isTrue();
+        assertThat(outbox.offer(event("3"))).isTrue();
+        assertThat(outbox.offer(event("4"))).isTrue();
+        assertThat(outbox.offer(event("5"))).isFalse();
+
+        outbox.complete();
+        assertThat(outbox.offer(event("6"))).isFalse();
+        socketFree.countDown();
+
+        assertThat(emitter.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(emitter.ids).containsExactly("1", "2", "3", "4");
+        assertThat(emitter.failure).isNull();
+    }
+
+    @Test
+    void abortDiscardsTheQueueAndFailsOnceTheSocketIsFree() throws Exception {
+        CountDownLatch socketFree = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(socketFree);
+        SseOutbox outbox = new SseOutbox(emitter, 3, sender);
+
+        outbox.offer(event("1"));
+        emitter.sending.await(5, TimeUnit.SECONDS);
+        outbox.offer(event("2"));
+
+        // No bloquea al que llama aunque haya un envío detenido
+        outbox.abort(new IllegalStateException("fell behind"));
+        assertThat(outbox.isClosed()).isTrue();
+        assertThat(emitter.completed.getCount()).isEqualTo(1);
+
+        socketFree.countDown();
+        assertThat(emitter.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(emitter.ids).containsExactly("1");
+        assertThat(emitter.failure).hasMessage("fell behind");
+    }
+
+    private static SseEmitter.SseEventBuilder event(String id) {
+        return SseEmitter.event().name("balance").id(id).data(id);
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        private static final Pattern ID = Pattern.compile("id:(\\d+)");
+
+        final List<String> ids = new CopyOnWriteArrayList<>();
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        final CountDownLatch socketFree;
+        volatile Throwable failure;
+
+        RecordingEmitter(CountDownLatch socketFree) {
+            this.socketFree = socketFree;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sending.countDown();
+            try {
+                socketFree.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof String text) {
+                    Matcher id = ID.matcher(text);
+                    if (id.find()) {
+                        ids.add(id.group(1));
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failure = ex;
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.bankxyz.batch.launch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InputFileTrackerTest {
+
+    private final InputFileTracker tracker = new InputFileTracker();
+
+    @Test
+    void concurrentExecutionsOfTheSameJobCountSeparately(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("transacciones.csv");
+        Files.writeString(file, "x".repeat(1000));
+        CountingFileResource resource = tracker.track("dailyReportJob", file.toString());
+        assertThat(tracker.track("dailyReportJob", file.toString())).isSameAs(resource);
+
+        try (InputStream first = openIn(resource, 1L); InputStream second = openIn(resource, 2L)) {
+            first.readNBytes(600);
+            second.readNBytes(100);
+            // Reabrir la segunda (reinicio de su step) no toca la cuenta de la primera
+            try (InputStream reopened = openIn(resource, 2L)) {
+                reopened.readNBytes(50);
+            }
+        }
+
+        assertThat(resource.getBytesRead(1L)).isEqualTo(600);
+        assertThat(resource.getBytesRead(2L)).isEqualTo(50);
+
+        tracker.afterJob(new JobExecution(1L));
+        assertThat(resource.getBytesRead(1L)).isZero();
+        assertThat(resource.getBytesRead(2L)).isEqualTo(50);
+    }
+
+    @Test
+    void rangeReadersAddToTheExecutionCounter(@TempDir Path dir) {
+        CountingFileResource resource = tracker.track("dailyReportJob", dir.resolve("transacciones.csv").toString());
+
+        inStep(7L, () -> resource.counter().addAndGet(300));
+        inStep(7L, () -> resource.counter().addAndGet(200));
+        // Fuera de un step no se registra nada
+        resource.counter().addAndGet(1000);
+
+        assertThat(resource.getBytesRead(7L)).isEqualTo(500);
+    }
+
+    private static InputStream openIn(CountingFileResource resource, long jobExecutionId) throws Exception {
+        InputStream[] in = new InputStream[1];
+        inStep(jobExecutionId, () -> {
+            try {
+                in[0] = resource.getInputStream();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return in[0];
+    }
+
+    // Ejecuta con el contexto de un step de la JobExecution dada, como lo hace AbstractStep
+    private static void inStep(long jobExecutionId, Runnable work) {
+        StepSynchronizationManager.register(new StepExecution("step", new JobExecution(jobExecutionId), 1L));
+        try {
+            work.run();
+        } finally {
+            StepSynchronizationManager.close();
+        }
+    }
+}
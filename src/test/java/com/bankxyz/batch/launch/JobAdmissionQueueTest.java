@@ -0,0 +1,141 @@
+package com.bankxyz.batch.launch;
+
+import com.bankxyz.batch.config.AdmissionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class JobAdmissionQueueTest {
+
+    private final JobLaunchService jobLaunchService = mock(JobLaunchService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdmissionProperties props = new AdmissionProperties();
+    private final List<JobExecution> launched = new CopyOnWriteArrayList<>();
+    private final AtomicLong executionIds = new AtomicLong();
+    private JobAdmissionQueue queue;
+
+    @AfterEach
+    void shutdown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void identicalPendingRequestsShareOneTicket() throws Exception {
+        JobAdmissionQueue queue = queue();
+
+        JobAdmissionQueue.Ticket running = queue.submit("dailyReportJob", null);
+        JobAdmissionQueue.Ticket waiting = queue.submit("dailyReportJob", null);
+        JobAdmissionQueue.Ticket joined = queue.submit("dailyReportJob", null);
+
+        assertThat(running.getState()).isEqualTo(JobAdmissionQueue.State.RUNNING);
+        assertThat(joined).isSameAs(waiting);
+        assertThat(waiting.getRequests()).isEqualTo(2);
+        assertThat(launched).hasSize(1);
+        assertThat(meterRegistry.counter("batch.admission.coalesced", "job", "dailyReportJob").count()).isEqualTo(1);
+    }
+
+    @Test
+    void perJobLimitHoldsTheNextRunUntilTheCurrentOneFinishes() throws Exception {
+        JobAdmissionQueue queue = queue();
+
+        JobAdmissionQueue.Ticket first = queue.submit("dailyReportJob", null);
+        JobAdmissionQueue.Ticket second = queue.submit("dailyReportJob", null);
+        // Otro job tiene su propio cupo
+        JobAdmissionQueue.Ticket other = queue.submit("monthlyInterestJob", null);
+
+        assertThat(second.getState()).isEqualTo(JobAdmissionQueue.State.QUEUED);
+        assertThat(other.getState()).isEqualTo(JobAdmissionQueue.State.RUNNING);
+
+        first.getExecution().setStatus(BatchStatus.COMPLETED);
+        assertThat(first.finished().get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(BatchStatus.COMPLETED);
+        assertThat(second.started().get(5, TimeUnit.SECONDS)).isNotNull();
+        assertThat(second.getState()).isEqualTo(JobAdmissionQueue.State.RUNNING);
+    }
+
+    @Test
+    void higherPriorityLaunchesFirstWhenSlotsFreeUp() throws Exception {
+        JobAdmissionQueue queue = queue();
+        JobAdmissionQueue.Ticket daily = queue.submit("dailyReportJob", null);
+        JobAdmissionQueue.Ticket annual = queue.submit("annualAccountsJob", null);
+
+        JobAdmissionQueue.Ticket lowPriority = queue.submit("dailyReportJob", 1);
+        JobAdmissionQueue.Ticket highPriority = queue.submit("annualAccountsJob", 5);
+        assertThat(queue.position(highPriority)).isEqualTo(1);
+        assertThat(queue.position(lowPriority)).isEqualTo(2);
+
+        // Una solicitud unida a un ticket en espera le sube la prioridad
+        assertThat(queue.submit("dailyReportJob", 9)).isSameAs(lowPriority);
+        assertThat(lowPriority.getPriority()).isEqualTo(9);
+        assertThat(queue.position(lowPriority)).isEqualTo(1);
+
+        // Ambos cupos se liberan en el mismo ciclo: se lanza primero el de mayor prioridad
+        daily.getExecution().setStatus(BatchStatus.COMPLETED);
+        annual.getExecution().setStatus(BatchStatus.COMPLETED);
+        lowPriority.started().get(5, TimeUnit.SECONDS);
+        highPriority.started().get(5, TimeUnit.SECONDS);
+        assertThat(launched).extracting(execution -> execution.getJobInstance().getJobName())
+            .containsExactly("dailyReportJob", "annualAccountsJob", "dailyReportJob", "annualAccountsJob");
+    }
+
+    @Test
+    void fullQueueRejectsWithRetryAfter() throws Exception {
+        props.setQueueCapacity(1);
+        props.setRetryAfter(Duration.ofSeconds(45));
+        JobAdmissionQueue queue = queue();
+
+        queue.submit("dailyReportJob", null);
+        queue.submit("dailyReportJob", null);          // Ocupa el único lugar de la cola
+        queue.submit("dailyReportJob", null);          // Se une: no ocupa lugar
+
+        assertThatThrownBy(() -> queue.submit("monthlyInterestJob", null))
+            .isInstanceOfSatisfying(AdmissionRejectedException.class,
+                e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(45)));
+        assertThat(meterRegistry.counter("batch.admission.rejected", "job", "monthlyInterestJob").count()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownJobsAreRefused() {
+        JobAdmissionQueue queue = queue();
+
+        assertThatThrownBy(() -> queue.submit("noSuchJob", null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Lanzador de prueba: cada ejecución queda en curso hasta que el test cambia su estado
+    private JobAdmissionQueue queue() {
+        props.setDispatchInterval(Duration.ofMillis(20));
+        when(jobLaunchService.hasJob(anyString())).thenAnswer(invocation -> !"noSuchJob".equals(invocation.getArgument(0)));
+        try {
+            when(jobLaunchService.launch(anyString(), any(JobParameters.class))).thenAnswer(invocation -> {
+                JobExecution execution = new JobExecution(
+                    new JobInstance(executionIds.incrementAndGet(), invocation.getArgument(0)),
+                    executionIds.get(), invocation.getArgument(1));
+                execution.setStatus(BatchStatus.STARTED);
+                launched.add(execution);
+                return execution;
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        queue = new JobAdmissionQueue(jobLaunchService, props, meterRegistry);
+        return queue;
+    }
+}
@@ -0,0 +1,83 @@
+package com.bankxyz.batch.partition;
+
+import com.bankxyz.batch.config.AccountPartitionProperties;
+import com.bankxyz.batch.config.AppProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class AccountKeyPartitionerTest {
+
+    private final JobRepository jobRepository = mock(JobRepository.class);
+
+    @Test
+    void workDirIsKeptInTheManagerContextAndCleanedOnRestart(@TempDir Path dataDir, @TempDir Path stateDir) throws Exception {
+        Files.writeString(dataDir.resolve("intereses.csv"), "cuenta_id,nombre\nC1,Ana\nC2,Luis\nC1,Ana\n");
+        StepExecution first = managerExecution(1L);
+
+        Map<String, ExecutionContext> partitions;
+        StepSynchronizationManager.register(first);
+        try {
+            partitions = partitioner(dataDir, stateDir).partition(2);
+        } finally {
+            StepSynchronizationManager.close();
+        }
+        Path workDir = Path.of(first.getExecutionContext().getString(AccountKeyPartitioner.WORK_DIR));
+        assertThat(workDir).startsWith(stateDir).isDirectory();
+        verify(jobRepository).updateExecutionContext(first);
+        assertThat(partitions.values()).allSatisfy(context ->
+            assertThat(Path.of(context.getString(AccountKeyPartitioner.PARTITION_FILE))).startsWith(workDir));
+
+        // Reinicio en otro proceso: contexto restaurado del manager y particiones reutilizadas sin partition()
+        StepExecution restart = managerExecution(2L);
+        restart.setExecutionContext(new ExecutionContext(first.getExecutionContext()));
+        restart.setStatus(BatchStatus.COMPLETED);
+        partitioner(dataDir, stateDir).afterStep(restart);
+
+        assertThat(workDir).doesNotExist();
+    }
+
+    @Test
+    void failedStepKeepsThePartitionFiles(@TempDir Path dataDir, @TempDir Path stateDir) throws Exception {
+        Files.writeString(dataDir.resolve("intereses.csv"), "cuenta_id,nombre\nC1,Ana\n");
+        AccountKeyPartitioner partitioner = partitioner(dataDir, stateDir);
+        StepExecution manager = managerExecution(1L);
+
+        StepSynchronizationManager.register(manager);
+        try {
+            partitioner.partition(2);
+        } finally {
+            StepSynchronizationManager.close();
+        }
+        manager.setStatus(BatchStatus.FAILED);
+        partitioner.afterStep(manager);
+
+        assertThat(Path.of(manager.getExecutionContext().getString(AccountKeyPartitioner.WORK_DIR))).isDirectory();
+    }
+
+    private AccountKeyPartitioner partitioner(Path dataDir, Path stateDir) {
+        AppProperties appProps = new AppProperties();
+        appProps.setDataDir(dataDir.toString());
+        AccountPartitionProperties props = new AccountPartitionProperties();
+        props.setWorkDir(stateDir.toString());
+        return new AccountKeyPartitioner(appProps, props, new SimpleMeterRegistry(), jobRepository);
+    }
+
+    private static StepExecution managerExecution(long id) {
+        return new StepExecution("monthlyInterestStep", new JobExecution(id), id);
+    }
+}
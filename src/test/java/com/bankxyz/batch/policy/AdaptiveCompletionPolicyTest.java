@@ -0,0 +1,104 @@
+package com.bankxyz.batch.policy;
+
+import com.bankxyz.batch.config.ChunkProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.repeat.RepeatContext;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveCompletionPolicyTest {
+
+    private final ChunkProperties props = new ChunkProperties();
+    private final AdaptiveCompletionPolicy policy =
+        new AdaptiveCompletionPolicy("step", new ChunkProperties.Bounds(10, 5, 100), props);
+
+    @Test
+    void growsAfterTheFirstWindowOfCommits() {
+        StepExecution step = stepExecution(1L, "step");
+        policy.beforeStep(step);
+
+        for (int i = 0; i < props.getSamplesPerAdjustment(); i++) {
+            assertThat(commitChunk(step)).isEqualTo(10);
+        }
+
+        assertThat(commitChunk(step)).isEqualTo(15);
+        assertThat(step.getExecutionContext().getInt("chunkSizeCurrent")).isEqualTo(15);
+    }
+
+    @Test
+    void rollbacksAndLockWaitsShrinkImmediately() {
+        StepExecution step = stepExecution(1L, "step");
+        policy.beforeStep(step);
+
+        rollBackChunk(step, new PessimisticLockingFailureException("lock"));
+
+        assertThat(commitChunk(step)).isEqualTo(5);
+        assertThat(step.getExecutionContext().getInt("chunkLockWaits")).isEqualTo(1);
+        assertThat(step.getExecutionContext().getString("chunkSizeHistory")).endsWith("(lock)");
+    }
+
+    @Test
+    void concurrentPartitionsKeepTheirOwnSizeAndHistory() {
+        StepExecution first = stepExecution(1L, "step:partition0");
+        StepExecution second = stepExecution(2L, "step:partition1");
+        policy.beforeStep(first);
+        policy.beforeStep(second);
+
+        rollBackChunk(first, new IllegalStateException("boom"));
+        for (int i = 0; i < props.getSamplesPerAdjustment(); i++) {
+            commitChunk(second);
+        }
+
+        assertThat(commitChunk(first)).isEqualTo(5);
+        assertThat(commitChunk(second)).isEqualTo(15);
+
+        // Terminar una partición no toca el estado de la otra
+        policy.afterStep(first);
+        assertThat(commitChunk(second)).isEqualTo(15);
+        assertThat(first.getExecutionContext().getInt("chunkRollbacks")).isEqualTo(1);
+        assertThat(second.getExecutionContext().getInt("chunkRollbacks")).isZero();
+    }
+
+    @Test
+    void restartResumesTheLastChosenSize() {
+        StepExecution restarted = stepExecution(3L, "step");
+        restarted.getExecutionContext().putInt("chunkSizeCurrent", 40);
+        policy.beforeStep(restarted);
+
+        assertThat(commitChunk(restarted)).isEqualTo(40);
+    }
+
+    // Un chunk completo: beforeChunk, los ítems que fija la política y afterChunk. Devuelve su tamaño
+    private int commitChunk(StepExecution step) {
+        ChunkContext chunk = new ChunkContext(new StepContext(step));
+        policy.beforeChunk(chunk);
+        RepeatContext context = policy.start(null);
+        int items = 0;
+        while (!policy.isComplete(context)) {
+            policy.update(context);
+            items++;
+        }
+        policy.afterChunk(chunk);
+        return items;
+    }
+
+    private void rollBackChunk(StepExecution step, Throwable cause) {
+        ChunkContext chunk = new ChunkContext(new StepContext(step));
+        policy.beforeChunk(chunk);
+        policy.update(policy.start(null));
+        chunk.setAttribute(ChunkListener.ROLLBACK_EXCEPTION_KEY, cause);
+        policy.afterChunkError(chunk);
+    }
+
+    private static StepExecution stepExecution(long id, String name) {
+        StepExecution step = new StepExecution(name, new JobExecution(id));
+        step.setId(id);
+        return step;
+    }
+}
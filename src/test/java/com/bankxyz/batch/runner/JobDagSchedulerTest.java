@@ -0,0 +1,113 @@
+package com.bankxyz.batch.runner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JobDagSchedulerTest {
+
+    @Test
+    void independentJobsRunConcurrently() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        JobDagScheduler scheduler = new JobDagScheduler()
+            .addJob("a", List.of(), () -> meet(bothStarted))
+            .addJob("b", List.of(), () -> meet(bothStarted));
+
+        Map<String, JobDagScheduler.JobResult> results = scheduler.run(2);
+
+        // Cada job espera al otro: solo terminan bien si corrieron a la vez
+        assertThat(results.values()).allMatch(JobDagScheduler.JobResult::success);
+    }
+
+    @Test
+    void dependentJobStartsAfterItsDependencyAndRespectsTheConcurrencyLimit() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        JobDagScheduler scheduler = new JobDagScheduler()
+            .addJob("annual", List.of("interest"), () -> track(running, peak))
+            .addJob("interest", List.of(), () -> track(running, peak))
+            .addJob("daily", List.of(), () -> track(running, peak));
+
+        Map<String, JobDagScheduler.JobResult> results = scheduler.run(1);
+
+        assertThat(peak.get()).isEqualTo(1);
+        assertThat(results.get("annual").startMs()).isGreaterThanOrEqualTo(results.get("interest").endMs());
+        assertThat(results.keySet()).containsExactly("interest", "daily", "annual");
+    }
+
+    @Test
+    void dependentsOfAFailedJobAreSkipped() {
+        JobDagScheduler scheduler = new JobDagScheduler()
+            .addJob("interest", List.of(), () -> { throw new IllegalStateException("boom"); })
+            .addJob("annual", List.of("interest"), () -> true)
+            .addJob("daily", List.of(), () -> true);
+
+        Map<String, JobDagScheduler.JobResult> results = scheduler.run(3);
+
+        assertThat(results.get("interest").success()).isFalse();
+        assertThat(results.get("annual").skipped()).isTrue();
+        assertThat(results.get("daily").success()).isTrue();
+    }
+
+    @Test
+    void dependenciesOnUnselectedJobsAreIgnored() {
+        JobDagScheduler scheduler = new JobDagScheduler()
+            .addJob("annual", List.of("interest"), () -> true);
+
+        assertThat(scheduler.run(1).get("annual").success()).isTrue();
+    }
+
+    @Test
+    void rejectsCycles() {
+        JobDagScheduler scheduler = new JobDagScheduler()
+            .addJob("a", List.of("b"), () -> true)
+            .addJob("b", List.of("a"), () -> true);
+
+        assertThatThrownBy(() -> scheduler.run(2))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("[a, b]");
+    }
+
+    @Test
+    void criticalPathFollowsTheLongestChain() {
+        JobDagScheduler scheduler = new JobDagScheduler()
+            .addJob("interest", List.of(), () -> true)
+            .addJob("annual", List.of("interest"), () -> true)
+            .addJob("daily", List.of(), () -> true);
+
+        Map<String, JobDagScheduler.JobResult> results = Map.of(
+            "interest", new JobDagScheduler.JobResult("interest", true, false, 0, 300),
+            "annual", new JobDagScheduler.JobResult("annual", true, false, 300, 500),
+            "daily", new JobDagScheduler.JobResult("daily", true, false, 0, 400));
+
+        assertThat(scheduler.criticalPath(results)).containsExactly("interest", "annual");
+    }
+
+    private static boolean meet(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean track(AtomicInteger running, AtomicInteger peak) {
+        peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        running.decrementAndGet();
+        return true;
+    }
+}
@@ -0,0 +1,84 @@
+package com.bankxyz.batch.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de autenticación por request de JwtAuthenticationFilter: token con claim "roles" o
+ * anterior al claim (consulta a UserDetailsService, aquí en memoria: sin la latencia de la base),
+ * con y sin VerifiedTokenCache. "none" es el filtro sin header Authorization (piso del request):
+ * mvn -Pbenchmark verify -DskipTests -Djmh.args="JwtAuthenticationBenchmark"
+ * Con -t 8 se ve además la contención del lock de la caché.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    @Param({"roles", "legacy", "none"})
+    public String token;
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", "benchmarkSecretKeyThatIsAtLeast256BitsLongForHS256");
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", TimeUnit.HOURS.toMillis(1));
+        jwtUtil.init();
+
+        UserDetails bff = User.withUsername("bff-mobile").password("{noop}x").roles("MOBILE").build();
+        filter = new JwtAuthenticationFilter(jwtUtil, new InMemoryUserDetailsManager(bff),
+            new VerifiedTokenCache(cache, 10_000, new SimpleMeterRegistry()));
+
+        Authentication login = new UsernamePasswordAuthenticationToken(bff, null, bff.getAuthorities());
+        authorization = switch (token) {
+            case "roles" -> "Bearer " + jwtUtil.generateToken(login);
+            case "legacy" -> "Bearer " + jwtUtil.generateTokenFromUsername(bff.getUsername());
+            default -> null;
+        };
+    }
+
+    @Benchmark
+    public Object authenticate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts/124");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        // Como al terminar un request real: el siguiente no hereda la autenticación
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,116 @@
+package com.bankxyz.batch.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTest {
+
+    private static final String SECRET = "testSecretKeyThatIsAtLeast256BitsLongForTheHS256Algorithm";
+
+    private final UserDetails bff = User.withUsername("bff-mobile").password("").roles("MOBILE").build();
+    private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+    private final VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, new SimpleMeterRegistry());
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", TimeUnit.HOURS.toMillis(1));
+        jwtUtil.init();
+        when(userDetailsService.loadUserByUsername("bff-mobile")).thenReturn(bff);
+        filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, cache);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void rolesClaimAuthenticatesWithoutUserDetailsService() throws Exception {
+        String token = jwtUtil.generateToken(new UsernamePasswordAuthenticationToken(bff, null, bff.getAuthorities()));
+
+        assertThat(authorities(authenticate(token))).containsExactly("ROLE_MOBILE");
+        assertThat(authorities(authenticate(token))).containsExactly("ROLE_MOBILE");
+
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void tokenWithoutRolesFallsBackToUserDetailsServiceOnce() throws Exception {
+        String token = jwtUtil.generateTokenFromUsername("bff-mobile");
+
+        assertThat(authorities(authenticate(token))).containsExactly("ROLE_MOBILE");
+        // El segundo request sale de la caché
+        assertThat(authorities(authenticate(token))).containsExactly("ROLE_MOBILE");
+
+        verify(userDetailsService, times(1)).loadUserByUsername("bff-mobile");
+    }
+
+    @Test
+    void invalidTokensAreNeverCached() throws Exception {
+        String expired = Jwts.builder()
+            .setSubject("bff-mobile")
+            .setExpiration(new Date(System.currentTimeMillis() - 60_000))
+            .signWith(SignatureAlgorithm.HS256, Keys.hmacShaKeyFor(SECRET.getBytes()))
+            .compact();
+        String otherKey = Jwts.builder()
+            .setSubject("bff-mobile")
+            .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+            .signWith(SignatureAlgorithm.HS256, Keys.hmacShaKeyFor("anotherSecretKeyThatIsAtLeast256BitsLongForHS256!".getBytes()))
+            .compact();
+
+        for (String token : new String[] { expired, otherKey, "not-a-jwt" }) {
+            assertThat(authenticate(token)).isNull();
+            assertThat(authenticate(token)).isNull();
+        }
+
+        assertThat(cache.size()).isZero();
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    // Un request con el token; devuelve la autenticación que dejó el filtro (null si no autenticó)
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts/124");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static List<String> authorities(Authentication authentication) {
+        assertThat(authentication).isNotNull();
+        return authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+}
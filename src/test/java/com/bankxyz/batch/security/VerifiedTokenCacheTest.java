@@ -0,0 +1,41 @@
+package com.bankxyz.batch.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTest {
+
+    private final UserDetails user = User.withUsername("bff-mobile").password("").roles("MOBILE").build();
+
+    @Test
+    void entryExpiresAtTheTokenExp() throws Exception {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, new SimpleMeterRegistry());
+        cache.put("token", new VerifiedTokenCache.VerifiedToken(user, System.currentTimeMillis() + 50));
+        assertThat(cache.get("token")).isPresent();
+
+        Thread.sleep(80);
+
+        assertThat(cache.get("token")).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void leastRecentlyUsedTokenIsEvictedAboveTheMaximumSize() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 2, new SimpleMeterRegistry());
+        long exp = System.currentTimeMillis() + 60_000;
+        cache.put("a", new VerifiedTokenCache.VerifiedToken(user, exp));
+        cache.put("b", new VerifiedTokenCache.VerifiedToken(user, exp));
+        // "a" pasa a ser el más reciente: "c" desplaza a "b"
+        cache.get("a");
+        cache.put("c", new VerifiedTokenCache.VerifiedToken(user, exp));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a")).isPresent();
+        assertThat(cache.get("b")).isEmpty();
+        assertThat(cache.get("c")).isPresent();
+    }
+}
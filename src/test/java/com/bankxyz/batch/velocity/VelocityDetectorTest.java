@@ -0,0 +1,52 @@
+package com.bankxyz.batch.velocity;
+
+import com.bankxyz.batch.config.VelocityProperties;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VelocityDetectorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void transactionsWithoutAccountAreNeverFlagged() {
+        VelocityDetector detector = detector(3);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(detector.record(null, "credito", DAY, BigDecimal.TEN)).isFalse();
+        }
+    }
+
+    @Test
+    void flagsOnlyTheAccountThatExceedsTheWindow() {
+        VelocityDetector detector = detector(3);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(detector.record("101", "debito", DAY, BigDecimal.TEN)).isFalse();
+        }
+        assertThat(detector.record("101", "debito", DAY, BigDecimal.TEN)).isTrue();
+        assertThat(detector.record("102", "debito", DAY, BigDecimal.TEN)).isFalse();
+        assertThat(detector.record("101", "credito", DAY, BigDecimal.TEN)).isFalse();
+    }
+
+    @Test
+    void flagsWhenTheWindowAmountExceedsTheLimit() {
+        VelocityProperties props = new VelocityProperties();
+        props.setMaxAmount(new BigDecimal("1000"));
+        VelocityDetector detector = new VelocityDetector(props);
+
+        assertThat(detector.record("101", "debito", DAY, new BigDecimal("-600"))).isFalse();
+        assertThat(detector.record("101", "debito", DAY.plusDays(1), new BigDecimal("-600"))).isTrue();
+    }
+
+    private static VelocityDetector detector(int maxCount) {
+        VelocityProperties props = new VelocityProperties();
+        props.setMaxCount(maxCount);
+        props.setMaxMemoryBytes(1 << 20);
+        return new VelocityDetector(props);
+    }
+}
@@ -0,0 +1,94 @@
+package com.bankxyz.batch.velocity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VelocityStateStoreTest {
+
+    private static final int BUCKETS = 7;
+
+    @Test
+    void windowSumsCountAndAmountPerKey() throws Exception {
+        try (VelocityStateStore store = store(1 << 20, null)) {
+            store.record(1L, 100, 500);
+            store.record(2L, 100, 9_999);
+            VelocityStateStore.Window window = store.record(1L, 101, 250);
+
+            assertThat(window.count()).isEqualTo(2);
+            assertThat(window.sumCents()).isEqualTo(750);
+        }
+    }
+
+    @Test
+    void windowSlidesOneBucketPerDay() throws Exception {
+        try (VelocityStateStore store = store(1 << 20, null)) {
+            VelocityStateStore.Window window = null;
+            for (int day = 0; day < BUCKETS; day++) {
+                window = store.record(1L, day, 100);
+            }
+            assertThat(window.count()).isEqualTo(BUCKETS);
+
+            // El día 7 expulsa el día 0
+            window = store.record(1L, BUCKETS, 100);
+            assertThat(window.count()).isEqualTo(BUCKETS);
+            assertThat(window.sumCents()).isEqualTo(BUCKETS * 100L);
+
+            // Un salto mayor que la ventana la vacía
+            window = store.record(1L, 100, 100);
+            assertThat(window.count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void lateEventsOutsideTheWindowAreIgnored() throws Exception {
+        try (VelocityStateStore store = store(1 << 20, null)) {
+            store.record(1L, 50, 100);
+            VelocityStateStore.Window window = store.record(1L, 40, 100);
+
+            assertThat(window.count()).isEqualTo(1);
+            assertThat(window.sumCents()).isEqualTo(100);
+        }
+    }
+
+    @Test
+    void staysWithinCapacityAndEvicts() throws Exception {
+        long oneEntryPerSegment = 16 * VelocityStateStore.bytesPerEntry(BUCKETS);
+        try (VelocityStateStore store = store(oneEntryPerSegment, null)) {
+            for (long key = 0; key < 1_000; key++) {
+                store.record(key, 100, 1);
+            }
+
+            assertThat(store.capacity()).isEqualTo(16);
+            assertThat(store.size()).isLessThanOrEqualTo(store.capacity());
+            assertThat(store.getEvictions()).isGreaterThanOrEqualTo(1_000 - 16);
+        }
+    }
+
+    @Test
+    void evictedWindowsAreRestoredFromSpill(@TempDir Path dir) throws Exception {
+        long oneEntryPerSegment = 16 * VelocityStateStore.bytesPerEntry(BUCKETS);
+        try (VelocityStateStore store = store(oneEntryPerSegment, dir.resolve("velocity.spill"))) {
+            store.record(42L, 100, 300);
+            store.record(42L, 101, 300);
+            for (long key = 1_000; key < 1_100; key++) {
+                store.record(key, 101, 1);
+            }
+
+            VelocityStateStore.Window window = store.record(42L, 102, 300);
+
+            assertThat(store.getSpilled()).isPositive();
+            assertThat(store.getRestored()).isPositive();
+            assertThat(window.count()).isEqualTo(3);
+            assertThat(window.sumCents()).isEqualTo(900);
+        }
+    }
+
+    private static VelocityStateStore store(long maxMemoryBytes, Path spill) throws Exception {
+        return new VelocityStateStore(maxMemoryBytes, BUCKETS, Duration.ofHours(1), spill, 1 << 16);
+    }
+}
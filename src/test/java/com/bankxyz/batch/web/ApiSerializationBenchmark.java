@@ -0,0 +1,167 @@
+package com.bankxyz.batch.web;
+
+import com.bankxyz.batch.config.AccountFieldsProperties;
+import com.bankxyz.batch.model.Account;
+import com.bankxyz.batch.model.AccountField;
+import com.bankxyz.batch.model.LegacyTransaction;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bytes en el cable y CPU de serialización de las respuestas /api/** por formato (JSON, CBOR,
+ * Smile) con y sin Blackbird, armando los ObjectMapper como ApiFormatsConfig y las cuentas por
+ * el mismo AccountFieldSelector que los controladores. Payloads del tamaño máximo de página:
+ * 1000 cuentas (GET /api/accounts?limit=) y 500 transacciones (GET /api/transactions/{cuenta}/history).
+ * El tamaño de cada respuesta (plano y gzip) se imprime al iniciar cada combinación:
+ * mvn -Pbenchmark verify -DskipTests -Djmh.args="ApiSerializationBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiSerializationBenchmark {
+
+    private static final int ACCOUNTS_PAGE = 1000;
+    private static final int TRANSACTIONS_PAGE = 500;
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean blackbird;
+
+    @Param({"accounts", "transactions"})
+    public String payload;
+
+    private ObjectWriter writer;
+    private Object response;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper json = mapper(null);
+        MappingJackson2CborHttpMessageConverter cbor = new MappingJackson2CborHttpMessageConverter(mapper(new CBORFactory()));
+        MappingJackson2SmileHttpMessageConverter smile = new MappingJackson2SmileHttpMessageConverter(mapper(new SmileFactory()));
+        MediaType mediaType = switch (format) {
+            case "CBOR" -> MediaType.APPLICATION_CBOR;
+            case "SMILE" -> AccountFieldSelector.SMILE;
+            default -> MediaType.APPLICATION_JSON;
+        };
+
+        if (payload.equals("accounts")) {
+            writer = new AccountFieldSelector(json, cbor, smile, new AccountFieldsProperties())
+                .writerFor(mediaType, AccountField.ALL);
+            response = accountsPage();
+        } else {
+            ObjectMapper mapper = switch (format) {
+                case "CBOR" -> cbor.getObjectMapper();
+                case "SMILE" -> smile.getObjectMapper();
+                default -> json;
+            };
+            writer = mapper.writer();
+            response = transactionsPage();
+        }
+
+        byte[] bytes = writer.writeValueAsBytes(response);
+        System.out.printf("%n📦 %s %s: %d bytes (gzip %d)%n", format, payload, bytes.length, gzipped(bytes));
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(response);
+    }
+
+    // Como Spring Boot: módulos conocidos (JavaTimeModule), fechas ISO y Blackbird como Module adicional
+    private ObjectMapper mapper(JsonFactory factory) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (blackbird) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        if (factory != null) {
+            builder.factory(factory);
+        }
+        return builder.build();
+    }
+
+    private static Map<String, Object> accountsPage() {
+        List<Account> items = new ArrayList<>(ACCOUNTS_PAGE);
+        for (int i = 1; i <= ACCOUNTS_PAGE; i++) {
+            Account account = new Account(String.format("ACC%07d", i), "Titular " + i,
+                i % 3 == 0 ? "AHORRO" : "CORRIENTE", BigDecimal.valueOf(i * 1234L + 56, 2), 18 + i % 60);
+            account.setId((long) i);
+            items.add(account);
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("limit", ACCOUNTS_PAGE);
+        page.put("hasNext", true);
+        page.put("nextCursor", "aWQ6MTAwMA");
+        page.put("items", items);
+        return page;
+    }
+
+    private static Map<String, Object> transactionsPage() {
+        List<LegacyTransaction> items = new ArrayList<>(TRANSACTIONS_PAGE);
+        LocalDate day = LocalDate.of(2024, 12, 31);
+        for (int i = 0; i < TRANSACTIONS_PAGE; i++) {
+            LegacyTransaction tx = new LegacyTransaction();
+            tx.setId(100_000L - i);
+            tx.setTxId("TX" + (100_000 - i));
+            tx.setAccountNumber("ACC0000042");
+            tx.setTxDate(day.minusDays(i / 5));
+            tx.setDescription(i % 2 == 0 ? "DEPOSITO" : "RETIRO");
+            tx.setAmount(BigDecimal.valueOf((i % 2 == 0 ? 1 : -1) * (i * 731L + 99), 2));
+            items.add(tx);
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("accountNumber", "ACC0000042");
+        page.put("from", LocalDate.of(2024, 1, 1));
+        page.put("to", day);
+        page.put("limit", TRANSACTIONS_PAGE);
+        page.put("hasNext", true);
+        page.put("nextCursor", "MjAyNC0xMC0xNzo5OTUwMQ");
+        page.put("items", items);
+        return page;
+    }
+
+    private static int gzipped(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.size();
+    }
+}
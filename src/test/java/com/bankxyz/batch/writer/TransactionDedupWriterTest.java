@@ -0,0 +1,210 @@
+package com.bankxyz.batch.writer;
+
+import com.bankxyz.batch.aggregation.DailyReportAggregator;
+import com.bankxyz.batch.config.DedupProperties;
+import com.bankxyz.batch.dedup.ScalableBloomFilter;
+import com.bankxyz.batch.dedup.TxIdBloomFilter;
+import com.bankxyz.batch.model.LegacyTransaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.item.Chunk;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransactionDedupWriterTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final DailyReportAggregator dailyReport = mock(DailyReportAggregator.class);
+    private final EntityManagerFactory emf = mock(EntityManagerFactory.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+
+    // tx_id ya guardados en transaction_legacy y cada lote que consultó la verificación exacta
+    private final Set<String> stored = new HashSet<>();
+    private final List<List<String>> lookups = new ArrayList<>();
+
+    private ScalableBloomFilter bloom;
+    private TransactionDedupWriter writer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp(@TempDir Path bloomDir) throws Exception {
+        bloom = new ScalableBloomFilter(bloomDir, 1_000, 0.01, 2, 0.5);
+        TxIdBloomFilter txIdBloomFilter = mock(TxIdBloomFilter.class);
+        when(txIdBloomFilter.get()).thenReturn(bloom);
+
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+            .thenAnswer(invocation -> {
+                List<String> txIds = new ArrayList<>();
+                Connection connection = mock(Connection.class);
+                when(connection.createArrayOf(eq("varchar"), any())).thenAnswer(create -> {
+                    Arrays.stream(create.<Object[]>getArgument(1)).forEach(id -> txIds.add((String) id));
+                    return mock(Array.class);
+                });
+                PreparedStatement ps = mock(PreparedStatement.class);
+                when(ps.getConnection()).thenReturn(connection);
+                invocation.<PreparedStatementSetter>getArgument(1).setValues(ps);
+                lookups.add(txIds);
+                return txIds.stream().filter(stored::contains).toList();
+            });
+
+        // JpaItemWriter toma el EntityManager ligado al hilo, como dentro de la transacción del chunk
+        when(emf.createEntityManager()).thenReturn(entityManager);
+        TransactionSynchronizationManager.bindResource(emf, new EntityManagerHolder(entityManager));
+
+        writer = new TransactionDedupWriter(new DedupProperties(), jdbcTemplate, txIdBloomFilter, dailyReport, emf);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        TransactionSynchronizationManager.unbindResourceIfPossible(emf);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        bloom.close();
+    }
+
+    @Test
+    void onlyProbableHitsAreVerifiedAgainstTheDatabase() throws Exception {
+        bloom.put("TX1");
+        bloom.put("TX2");
+        // TX2 está en el Bloom filter pero nunca se guardó: falso positivo
+        stored.add("TX1");
+
+        LegacyTransaction tx1 = tx("TX1");
+        LegacyTransaction tx2 = tx("TX2");
+        LegacyTransaction tx3 = tx("TX3");
+        writer.write(Chunk.of(tx1, tx2, tx3, tx("TX3")));
+
+        assertThat(lookups).containsExactly(List.of("TX1", "TX2"));
+        verify(entityManager, never()).merge(tx1);
+        verify(entityManager).merge(tx2);
+        verify(entityManager).merge(tx3);
+        verify(dailyReport, times(2)).record(any(), any(), anyBoolean());
+        assertThat(bloom.mightContain("TX3")).isTrue();
+
+        // TX1 confirmado en la base y la segunda TX3 del mismo chunk
+        StepExecution step = afterStep();
+        assertThat(step.getExecutionContext().getLong("duplicateCount")).isEqualTo(2);
+        assertThat(step.getExecutionContext().getLong("bloomProbableHits")).isEqualTo(2);
+        assertThat(step.getExecutionContext().getLong("bloomFalsePositives")).isEqualTo(1);
+    }
+
+    @Test
+    void uniqueViolationMakesTheRetryVerifyTheWholeChunk() throws Exception {
+        // Otro nodo guardó TX9 sin que el Bloom filter local lo viera: el índice único lo rechaza
+        stored.add("TX9");
+        doThrow(new PersistenceException("insert", new SQLException("duplicate key", "23505")))
+            .doNothing()
+            .when(entityManager).flush();
+
+        LegacyTransaction tx8 = tx("TX8");
+        LegacyTransaction tx9 = tx("TX9");
+        assertThatThrownBy(() -> writer.write(Chunk.of(tx8, tx9))).isInstanceOf(PersistenceException.class);
+        assertThat(lookups).isEmpty();
+
+        // Reintento del chunk: todos sus tx_id se verifican y TX9 se descarta
+        writer.write(Chunk.of(tx8, tx9));
+
+        assertThat(lookups).containsExactly(List.of("TX8", "TX9"));
+        verify(entityManager, times(2)).merge(tx8);
+        verify(entityManager, times(1)).merge(tx9);
+        verify(dailyReport, times(1)).record(any(), any(), anyBoolean());
+        assertThat(afterStep().getExecutionContext().getLong("duplicateCount")).isEqualTo(1);
+    }
+
+    @Test
+    void bloomAndCountersChangeOnlyAfterCommit() throws Exception {
+        bloom.put("TX1");
+        stored.add("TX1");
+
+        chunk(TransactionSynchronization.STATUS_ROLLED_BACK, () -> writer.write(Chunk.of(tx("TX1"), tx("TX2"))));
+
+        assertThat(bloom.mightContain("TX2")).isFalse();
+        StepExecution rolledBack = afterStep();
+        assertThat(rolledBack.getExecutionContext().getLong("duplicateCount")).isZero();
+        assertThat(rolledBack.getExecutionContext().getLong("bloomProbableHits")).isZero();
+
+        chunk(TransactionSynchronization.STATUS_COMMITTED, () -> writer.write(Chunk.of(tx("TX1"), tx("TX2"))));
+
+        assertThat(bloom.mightContain("TX2")).isTrue();
+        StepExecution committed = afterStep();
+        assertThat(committed.getExecutionContext().getLong("duplicateCount")).isEqualTo(1);
+        assertThat(committed.getExecutionContext().getLong("bloomProbableHits")).isEqualTo(1);
+        assertThat(committed.getExecutionContext().getLong("bloomFalsePositives")).isZero();
+    }
+
+    private StepExecution afterStep() {
+        JobExecution jobExecution = new JobExecution(new JobInstance(1L, "dailyReportJob"), 1L, new JobParameters());
+        StepExecution step = jobExecution.createStepExecution("dailyReportStep");
+        writer.afterStep(step);
+        return step;
+    }
+
+    private static LegacyTransaction tx(String txId) {
+        LegacyTransaction tx = new LegacyTransaction();
+        tx.setTxId(txId);
+        tx.setAccountNumber("124");
+        tx.setTxDate(LocalDate.of(2024, 1, 15));
+        tx.setAmount(new BigDecimal("10.00"));
+        return tx;
+    }
+
+    private interface ChunkWork {
+        void run() throws Exception;
+    }
+
+    // Simula la transacción de un chunk y su fin con el estado dado
+    private static void chunk(int status, ChunkWork work) throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+            }
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), status);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}